@@ -0,0 +1,89 @@
+package com.imolczek.school.banking.loan.calculator.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imolczek.school.banking.loan.calculator.APRCalculator;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.apr.APRCashFlows;
+import com.imolczek.school.banking.loan.calculator.apr.BrentAPRSolver;
+import com.imolczek.school.banking.loan.calculator.apr.NetPresentValues;
+import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * The APR calculation in isolation, on an amortization schedule calculated beforehand
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class APRCalculatorBenchmark {
+
+	@Param({ "12", "60", "120", "240", "360", "480" })
+	private int numberOfInstallments;
+
+	private APRCalculator newtonRaphson;
+
+	private APRCalculator brent;
+
+	private LoanCalculationResult result;
+
+	private APRCashFlows cashFlows;
+
+	private double[] rates;
+
+	@Setup
+	public void setUp() throws Exception {
+		newtonRaphson = new APRCalculator();
+		brent = new APRCalculator(new BrentAPRSolver());
+		result = new StandardLoanCalculator().calculateForFixedInstallment(LoanScenarios.forDuration(numberOfInstallments));
+		cashFlows = APRCashFlows.compile(result.getAmortizationSchedule(), new LoanDateUtil());
+		rates = new double[64];
+		for (int j = 0; j < rates.length; j++) {
+			rates[j] = j * 0.0025;
+		}
+	}
+
+	/**
+	 * Compiles the cash streams of the schedule, then solves
+	 */
+	@Benchmark
+	public LoanCalculationResult calculateAPR() throws Exception {
+		newtonRaphson.calculateAPR(result);
+		return result;
+	}
+
+	@Benchmark
+	public BigDecimal newtonRaphson() throws Exception {
+		return newtonRaphson.calculateAPR(cashFlows);
+	}
+
+	@Benchmark
+	public BigDecimal brent() throws Exception {
+		return brent.calculateAPR(cashFlows);
+	}
+
+	/**
+	 * A rate sheet of 64 rates evaluated in a single pass
+	 */
+	@Benchmark
+	public NetPresentValues rateSheet() throws Exception {
+		return NetPresentValues.evaluate(cashFlows, rates);
+	}
+
+}
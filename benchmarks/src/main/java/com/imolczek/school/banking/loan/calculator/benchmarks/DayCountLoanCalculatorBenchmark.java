@@ -0,0 +1,69 @@
+package com.imolczek.school.banking.loan.calculator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imolczek.school.banking.loan.calculator.DayCountLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.dateutils.DayCountConvention;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentFrequency;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * End to end quote latency of the day-count conventions and frequencies, to compare with {@link StandardLoanCalculatorBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DayCountLoanCalculatorBenchmark {
+
+	@Param({ "60", "240", "480" })
+	private int numberOfInstallments;
+
+	@Param({ "THIRTY_360", "ACTUAL_360", "ACTUAL_ACTUAL" })
+	private DayCountConvention convention;
+
+	@Param({ "WEEKLY", "MONTHLY", "QUARTERLY" })
+	private PaymentFrequency frequency;
+
+	private DayCountLoanCalculator calculator;
+
+	private LoanParameters parameters;
+
+	@Setup
+	public void setUp() throws Exception {
+		calculator = new DayCountLoanCalculator(convention, frequency);
+		parameters = LoanScenarios.forDuration(calculator, numberOfInstallments);
+	}
+
+	@Benchmark
+	public LoanCalculationResult calculateForFixedInstallment() throws Exception {
+		return calculator.calculateForFixedInstallment(parameters);
+	}
+
+	@Benchmark
+	public LoanSummary calculateSummaryForFixedInstallment() throws Exception {
+		return calculator.calculateSummaryForFixedInstallment(parameters);
+	}
+
+	@Benchmark
+	public LoanCalculationResult calculateForFixedDuration() throws Exception {
+		return calculator.calculateForFixedDuration(parameters);
+	}
+
+}
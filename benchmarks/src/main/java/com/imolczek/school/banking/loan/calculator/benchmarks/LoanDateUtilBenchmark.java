@@ -0,0 +1,62 @@
+package com.imolczek.school.banking.loan.calculator.benchmarks;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+
+/**
+ * Day counts over a single period and over the whole life of a loan, as the APR calculation needs them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanDateUtilBenchmark {
+
+	@Param({ "31", "366", "3653", "14610" })
+	private int days;
+
+	private LoanDateUtil dateUtil;
+
+	private LocalDate start;
+
+	private LocalDate end;
+
+	@Setup
+	public void setUp() {
+		dateUtil = new LoanDateUtil();
+		start = LocalDate.of(2019, 12, 15);
+		end = start.plusDays(days);
+	}
+
+	@Benchmark
+	public long getNumberOfDaysBetweenDates() throws Exception {
+		return dateUtil.getNumberOfDaysBetweenDates(start, end);
+	}
+
+	@Benchmark
+	public long getNumberOfDaysBetweenEpochDays() throws Exception {
+		return dateUtil.getNumberOfDaysBetweenEpochDays(start.toEpochDay(), end.toEpochDay());
+	}
+
+	@Benchmark
+	public long getNumberOfDays365And366BetweenDates() throws Exception {
+		return dateUtil.getNumberOfDays365BetweenDates(start, end) + dateUtil.getNumberOfDays366BetweenDates(start, end);
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.imolczek.school.banking.loan.calculator.benchmarks;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.imolczek.school.banking.loan.calculator.LoanCalculator;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * The loans the benchmarks run on
+ */
+final class LoanScenarios {
+
+	private LoanScenarios() {
+	}
+
+	/**
+	 * A mortgage-like loan with a monthly installment reimbursing it in the given number of installments
+	 * @param numberOfInstallments The number of installments
+	 * @return The loan parameters, including the monthly installment
+	 * @throws Exception
+	 */
+	static LoanParameters forDuration(int numberOfInstallments) throws Exception {
+		return forDuration(new StandardLoanCalculator(), numberOfInstallments);
+	}
+
+	/**
+	 * The same loan with the installment reimbursing it in the given number of installments of a calculator
+	 * @param calculator The calculator, which decides the frequency of the installments
+	 * @param numberOfInstallments The number of installments
+	 * @return The loan parameters, including the installment
+	 * @throws Exception
+	 */
+	static LoanParameters forDuration(LoanCalculator calculator, int numberOfInstallments) throws Exception {
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0390"))
+				.loanAmount(new BigDecimal("250000"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.numberOfInstallments(numberOfInstallments)
+				.build();
+		LoanCalculationResult result = calculator.calculateForFixedDuration(parameters);
+		BigDecimal monthlyInstallment = result.getAmortizationSchedule().getCashStreamList().get(1).getAmount();
+		return parameters.toBuilder().monthlyInstallment(monthlyInstallment).build();
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.imolczek.school.banking.loan.calculator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imolczek.school.banking.loan.calculator.CalculationEngine;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * End to end quote latency: amortization schedule plus APR, for loans from 1 to 40 years
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StandardLoanCalculatorBenchmark {
+
+	@Param({ "12", "60", "120", "240", "360", "480" })
+	private int numberOfInstallments;
+
+	@Param({ "BIG_DECIMAL", "LONG_CENTS" })
+	private CalculationEngine engine;
+
+	private StandardLoanCalculator calculator;
+
+	private LoanParameters parameters;
+
+	@Setup
+	public void setUp() throws Exception {
+		calculator = new StandardLoanCalculator(engine);
+		parameters = LoanScenarios.forDuration(numberOfInstallments);
+	}
+
+	@Benchmark
+	public LoanCalculationResult calculateForFixedInstallment() throws Exception {
+		return calculator.calculateForFixedInstallment(parameters);
+	}
+
+	@Benchmark
+	public LoanSummary calculateSummaryForFixedInstallment() throws Exception {
+		return calculator.calculateSummaryForFixedInstallment(parameters);
+	}
+
+	@Benchmark
+	public LoanCalculationResult calculateForFixedDuration() throws Exception {
+		return calculator.calculateForFixedDuration(parameters);
+	}
+
+}
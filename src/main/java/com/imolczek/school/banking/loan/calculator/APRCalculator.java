@@ -1,61 +1,163 @@
 package com.imolczek.school.banking.loan.calculator;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.Iterator;
+import java.math.MathContext;
+import java.math.RoundingMode;
 
+import com.imolczek.school.banking.loan.calculator.apr.APRCashFlows;
+import com.imolczek.school.banking.loan.calculator.apr.APRSolution;
+import com.imolczek.school.banking.loan.calculator.apr.APRSolver;
+import com.imolczek.school.banking.loan.calculator.apr.NewtonRaphsonAPRSolver;
 import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
 import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
-import com.imolczek.school.banking.loan.model.AmortizationSchedule;
-import com.imolczek.school.banking.loan.model.CashStream;
+import com.imolczek.school.banking.loan.calculator.instrumentation.Instrumentation;
 import com.imolczek.school.banking.loan.model.LoanCalculationResult;
 
+/**
+ * Determines the annual percentage rate of a loan: the rate at which the net present value of all its cash streams is zero.
+ * The root is searched on doubles by a pluggable {@link APRSolver}, then the 4-decimal result is verified in BigDecimal arithmetic.
+ */
 public class APRCalculator {
 
-	private LoanDateUtil dateUtil = new LoanDateUtil();
-		
+	/**
+	 * Lowest APR searched, just above -100% where discounting is no longer defined
+	 */
+	private static final double LOWEST_APR = -0.99d;
+
+	/**
+	 * Highest APR searched
+	 */
+	private static final double HIGHEST_APR = 10d;
+
+	/**
+	 * Starting point of the search
+	 */
+	private static final double INITIAL_GUESS = 0d;
+
+	/**
+	 * The APR is published with 4 decimals
+	 */
+	private static final int APR_SCALE = 4;
+
+	private static final BigDecimal APR_UNIT = BigDecimal.ONE.movePointLeft(APR_SCALE);
+
+	private static final BigDecimal APR_HALF_UNIT = new BigDecimal(5).movePointLeft(APR_SCALE + 1);
+
+	/**
+	 * Maximum number of one unit corrections applied by the verification pass
+	 */
+	private static final int MAX_VERIFICATION_STEPS = 4;
+
+	private final LoanDateUtil dateUtil;
+
+	private final APRSolver solver;
+
+	/**
+	 * Uses Newton-Raphson iterations with a Brent fallback and the default tolerance and iteration cap
+	 */
+	public APRCalculator() {
+		this(new NewtonRaphsonAPRSolver());
+	}
+
+	/**
+	 * @param solver The strategy used to find the root of the net present value
+	 */
+	public APRCalculator(APRSolver solver) {
+		this(solver, new LoanDateUtil());
+	}
+
+	/**
+	 * @param solver The strategy used to find the root of the net present value
+	 * @param dateUtil The day-count engine, which can be shared with the loan calculator
+	 */
+	public APRCalculator(APRSolver solver, LoanDateUtil dateUtil) {
+		this.solver = solver;
+		this.dateUtil = dateUtil;
+	}
+
+	/**
+	 * Determine the APR of an amortization schedule, compiling its cash streams into the buffers of the current {@link CalculationContext}
+	 * @param result The result holding the amortization schedule, whose APR is set
+	 * @throws LoanCalculationException
+	 */
 	public void calculateAPR(LoanCalculationResult result) throws LoanCalculationException {
-		BigDecimal lowAPR = new BigDecimal("0").setScale(5, BigDecimal.ROUND_HALF_DOWN);
-		BigDecimal highAPR = new BigDecimal("10").setScale(5, BigDecimal.ROUND_HALF_DOWN);
-		
-		while (highAPR.subtract(lowAPR).compareTo(BigDecimal.ONE.movePointRight(-5)) <= 0) {
-			System.out.println("L: " + lowAPR + " H: " + highAPR);
-			boolean lowerAPR = testAPR(result.getAmortizationSchedule(), lowAPR, highAPR);
-			if(lowerAPR) {
-				highAPR = lowAPR.add(highAPR.subtract(lowAPR).divide(new BigDecimal("2"), 5, BigDecimal.ROUND_HALF_DOWN));
+		result.setApr(calculateAPR(APRCashFlows.compile(result.getAmortizationSchedule(), dateUtil, CalculationContext.current().getCashFlows())));
+	}
+
+	/**
+	 * Determine the APR of compiled cash streams
+	 * @param cashFlows The cash streams, starting with the loan disbursement
+	 * @return The APR with 4 decimals
+	 * @throws LoanCalculationException
+	 */
+	public BigDecimal calculateAPR(APRCashFlows cashFlows) throws LoanCalculationException {
+		return calculateAPR(cashFlows, Instrumentation.NO_OP);
+	}
+
+	/**
+	 * Determine the APR of compiled cash streams, reporting the number of iterations and the duration of the search.
+	 * The APR of an empty loan, whose cash streams are all zero, is zero.
+	 * @param cashFlows The cash streams, starting with the loan disbursement
+	 * @param instrumentation Receives the measurements
+	 * @return The APR with 4 decimals
+	 * @throws LoanCalculationException If the cash streams are not both lent and repaid, their net present value then has no root
+	 */
+	public BigDecimal calculateAPR(APRCashFlows cashFlows, Instrumentation instrumentation) throws LoanCalculationException {
+		boolean lent = false;
+		boolean repaid = false;
+		for (int i = 0; i < cashFlows.size(); i++) {
+			lent |= cashFlows.getAmount(i) < 0;
+			repaid |= cashFlows.getAmount(i) > 0;
+		}
+		if (!lent && !repaid) {
+			return BigDecimal.ZERO.setScale(APR_SCALE);
+		}
+		if (!lent || !repaid) {
+			throw new LoanCalculationException("The cash streams must contain both a disbursement and a repayment to determine the APR");
+		}
+		long start = System.nanoTime();
+		APRSolution solution = solver.solve(cashFlows, LOWEST_APR, HIGHEST_APR, INITIAL_GUESS);
+		BigDecimal apr = verifyAPR(cashFlows, solution.getRate());
+		instrumentation.aprCalculated(solution.getIterations(), System.nanoTime() - start);
+		return apr;
+	}
+
+	/**
+	 * Round the rate found on doubles to 4 decimals, then make sure in BigDecimal arithmetic that the exact root
+	 * lies within half a unit of the last decimal, correcting the rounding otherwise.
+	 * The net present value of a loan decreases when the rate increases.
+	 * @param cashFlows The cash streams of the loan
+	 * @param rate The root found by the solver
+	 * @return The APR with 4 decimals
+	 */
+	private BigDecimal verifyAPR(APRCashFlows cashFlows, double rate) {
+		BigDecimal apr = new BigDecimal(rate).setScale(APR_SCALE, RoundingMode.HALF_UP);
+		for (int i = 0; i < MAX_VERIFICATION_STEPS; i++) {
+			if (valuate(cashFlows, apr.subtract(APR_HALF_UNIT)).signum() < 0) {
+				apr = apr.subtract(APR_UNIT);
+			} else if (valuate(cashFlows, apr.add(APR_HALF_UNIT)).signum() >= 0) {
+				apr = apr.add(APR_UNIT);
 			} else {
-				lowAPR = lowAPR.add(highAPR.subtract(lowAPR).divide(new BigDecimal("2"), 5, BigDecimal.ROUND_HALF_DOWN));
+				break;
 			}
 		}
-		
-		result.setApr(lowAPR.setScale(4, BigDecimal.ROUND_HALF_UP));
-	}
-
-	private boolean testAPR(AmortizationSchedule amortizationSchedule, BigDecimal lowAPR, BigDecimal highAPR) throws LoanCalculationException {
-		BigDecimal sum = BigDecimal.ZERO.setScale(5, BigDecimal.ROUND_HALF_UP);
-		double testAPR = lowAPR.add(highAPR.subtract(lowAPR).divide(new BigDecimal(2), 5, BigDecimal.ROUND_HALF_DOWN)).doubleValue();
-		LocalDate start = amortizationSchedule.getCashStreamList().get(0).getDate();
-		Iterator<CashStream> iterator = amortizationSchedule.getCashStreamList().iterator();
-
-		int k = new Long(Math.round(Math.log10(amortizationSchedule.getCashStreamList().size()))).intValue();
-		
-		while(iterator.hasNext()) {
-			CashStream stream = iterator.next();
-			
-			double vRate = 1 + testAPR;
-			double days365 = dateUtil.getNumberOfDays365BetweenDates(start, stream.getDate());
-			double days366 = dateUtil.getNumberOfDays366BetweenDates(start, stream.getDate());
-			double power = days365 / 365d + days366 / 366d;
-			
-			BigDecimal divisor = new BigDecimal(Math.pow(vRate, power)).setScale(2 + k, BigDecimal.ROUND_HALF_UP);
-			BigDecimal valuatedStream = stream.getAmount().divide(divisor, 2 + k, BigDecimal.ROUND_HALF_UP);
-			sum = sum.add(valuatedStream);
-		}
-		if(sum.signum() < 0) {
-			return true;
-		} else {
-			return false;
+		return apr;
+	}
+
+	/**
+	 * Net present value of the cash streams, accumulated in BigDecimal
+	 * @param cashFlows The cash streams of the loan
+	 * @param rate The discount rate
+	 * @return The net present value
+	 */
+	private BigDecimal valuate(APRCashFlows cashFlows, BigDecimal rate) {
+		double vRate = 1 + rate.doubleValue();
+		BigDecimal sum = BigDecimal.ZERO;
+		for (int i = 0; i < cashFlows.size(); i++) {
+			BigDecimal discountFactor = new BigDecimal(Math.pow(vRate, -cashFlows.getExponent(i)));
+			sum = sum.add(BigDecimal.valueOf(cashFlows.getAmount(i)).multiply(discountFactor, MathContext.DECIMAL128));
 		}
+		return sum;
 	}
 
 }
@@ -0,0 +1,654 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.LongToDoubleFunction;
+
+import com.imolczek.school.banking.loan.calculator.apr.APRCashFlows;
+import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentCalendar;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentCalendars;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentFrequency;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.calculator.instrumentation.Instrumentation;
+import com.imolczek.school.banking.loan.model.CashStream;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * The period engine shared by the calculators paying installments along a {@link PaymentCalendar}.
+ * The schedules, the searches for the installment, the loan amount or the annual rate, and the APR are calculated here;
+ * the subclasses only decide how the accrual of a period is counted and how interests are applied to it.
+ * The accrual of a period is a long whose meaning is up to the subclass, the days of interest of the period for instance.
+ * Only the accrual of the first period, which depends on the loan start date, is calculated, the others are read from the shared calendars.
+ * The APR is always calculated on the actual days between the cash streams, whatever the accrual.
+ */
+public abstract class AbstractPeriodLoanCalculator extends LoanCalculator {
+
+	/**
+	 * Maximum number of schedule simulations performed to find the installment of a fixed duration loan
+	 */
+	private static final int MAX_INSTALLMENT_SIMULATIONS = 64;
+
+	/**
+	 * Margin above the annuity estimates of the installment of a fixed duration loan and of the highest loan amount,
+	 * which only ignore the rounding of the interests
+	 */
+	private static final double INSTALLMENT_CEILING_FACTOR = 1.01;
+
+	/**
+	 * The annual rates searched for a target APR have 4 decimals
+	 */
+	private static final int ANNUAL_RATE_SCALE = 4;
+
+	/**
+	 * Highest annual rate searched for a target APR, in units of the last decimal: 100%
+	 */
+	private static final long MAXIMUM_ANNUAL_RATE = 10000;
+
+	private final LoanDateUtil dateUtil;
+
+	private final APRCalculator aprCalculator;
+
+	private final PaymentFrequency frequency;
+
+	private final PaymentCalendars calendars;
+
+	/**
+	 * All the collaborators are thread-safe and can be shared between calculators
+	 * @param dateUtil The day-count engine
+	 * @param aprCalculator The APR calculator
+	 * @param frequency The frequency of the installments
+	 * @param calendars The reimbursement dates shared between calculations
+	 */
+	protected AbstractPeriodLoanCalculator(LoanDateUtil dateUtil, APRCalculator aprCalculator, PaymentFrequency frequency, PaymentCalendars calendars) {
+		this.dateUtil = dateUtil;
+		this.aprCalculator = aprCalculator;
+		this.frequency = frequency;
+		this.calendars = calendars;
+	}
+
+	/**
+	 * Determine the accrual of a period that does not start on a reimbursement date
+	 * @param start The start of the period
+	 * @param end The reimbursement date ending the period
+	 * @return The accrual of the period
+	 * @throws LoanCalculationException
+	 */
+	protected abstract long getAccrual(LocalDate start, LocalDate end) throws LoanCalculationException;
+
+	/**
+	 * @param calendar The calendar of the loan
+	 * @param index The index of a reimbursement in the calendar, above 0
+	 * @return The accrual of the period ending with the reimbursement and starting with the previous one
+	 * @throws LoanCalculationException
+	 */
+	protected abstract long getAccrual(PaymentCalendar calendar, int index) throws LoanCalculationException;
+
+	/**
+	 * @param parameters The validated loan parameters
+	 * @return The interest rate of a period given its accrual, ignoring the rounding of the interests to the cent
+	 */
+	protected abstract LongToDoubleFunction getPeriodRates(LoanParameters parameters);
+
+	/**
+	 * @param parameters The validated loan parameters
+	 * @return The interest rate of a period on average over four years, one of them being a leap year
+	 */
+	protected abstract double getAveragePeriodRate(LoanParameters parameters);
+
+	/**
+	 * Calculates the interests of a period, rounded to the cent exactly as the amortization cursors do
+	 * @param parameters The validated loan parameters
+	 * @param remainingBalance Current remaining balance
+	 * @param accrual The accrual of the period
+	 * @return The amount of interests
+	 */
+	protected abstract BigDecimal getInterests(LoanParameters parameters, BigDecimal remainingBalance, long accrual);
+
+	@Override
+	protected LoanCalculationResult doCalculateForFixedInstallment(LoanParameters parameters) throws LoanCalculationException {
+		Instrumentation instrumentation = getInstrumentation();
+		long start = System.nanoTime();
+		LoanCalculationResult result = new LoanCalculationResult();
+		List<CashStream> cashStreamList = result.getAmortizationSchedule().getCashStreamList();
+
+		CashStream initialCashStream = new CashStream();
+		initialCashStream.setAmount(parameters.getLoanAmount().negate());
+		initialCashStream.setDate(parameters.getLoanStartDate());
+
+		cashStreamList.add(initialCashStream);
+
+		// The days of interest of the periods give the exponents of the APR cash flows, the dates need not be compared again
+		APRCashFlows.Builder cashFlows = CalculationContext.current().getCashFlows();
+		cashFlows.add(initialCashStream.getAmount().doubleValue(), 0, 0);
+		long days365 = 0;
+		long days366 = 0;
+
+		AmortizationCursor cursor = openAmortizationCursor(parameters);
+		while(cursor.next()) {
+			CashStream cashStream = cursor.toCashStream();
+			cashStreamList.add(cashStream);
+			days365 += LoanDateUtil.getDays365(cursor.getDaysOfInterest());
+			days366 += LoanDateUtil.getDays366(cursor.getDaysOfInterest());
+			cashFlows.add(cashStream.getAmount().doubleValue(), days365, days366);
+		}
+		// The balloon left outstanding is repaid with the last installment, or cancels the disbursement when there is none
+		cashFlows.addToLast(cursor.getRemainingBalance().doubleValue());
+		instrumentation.scheduleCalculated(cursor.getPeriod(), System.nanoTime() - start);
+
+		result.setApr(aprCalculator.calculateAPR(cashFlows.build(), instrumentation));
+
+		result.calculateTotalInterest();
+
+		return result;
+	}
+
+	@Override
+	protected LoanSummary doCalculateSummaryForFixedInstallment(LoanParameters parameters) throws LoanCalculationException {
+		Instrumentation instrumentation = getInstrumentation();
+		long start = System.nanoTime();
+		APRCashFlows.Builder cashFlows = CalculationContext.current().getCashFlows();
+		cashFlows.add(parameters.getLoanAmount().negate().doubleValue(), 0, 0);
+
+		long totalInterest = 0;
+		long lastInstallment = 0;
+		LocalDate lastReimbursementDate = null;
+		long days365 = 0;
+		long days366 = 0;
+
+		AmortizationCursor cursor = openAmortizationCursor(parameters);
+		while(cursor.next()) {
+			days365 += LoanDateUtil.getDays365(cursor.getDaysOfInterest());
+			days366 += LoanDateUtil.getDays366(cursor.getDaysOfInterest());
+			lastInstallment = cursor.getAmountCents();
+			cashFlows.add(lastInstallment / 100d, days365, days366);
+			totalInterest += cursor.getInterestCents();
+			lastReimbursementDate = cursor.getDate();
+		}
+		// The balloon left outstanding is repaid with the last installment, or cancels the disbursement when there is none
+		cashFlows.addToLast(cursor.getRemainingBalanceCents() / 100d);
+		instrumentation.scheduleCalculated(cursor.getPeriod(), System.nanoTime() - start);
+
+		BigDecimal apr = aprCalculator.calculateAPR(cashFlows.build(), instrumentation);
+		return new LoanSummary(apr, BigDecimal.valueOf(totalInterest, 2), cursor.getPeriod(), lastReimbursementDate == null ? null : BigDecimal.valueOf(lastInstallment, 2), lastReimbursementDate);
+	}
+
+	/**
+	 * The cursor is reopened at the installment of every rate change with the new rate, and after every prepayment
+	 * with the balance it left, so the changes compose in a single walk through the remaining installments.
+	 */
+	@Override
+	protected LoanCalculationResult doRecalculateForFixedInstallment(LoanParameters parameters, LoanCalculationResult result, List<ScheduleChange> changes) throws LoanCalculationException {
+		Instrumentation instrumentation = getInstrumentation();
+		long start = System.nanoTime();
+		List<CashStream> cashStreamList = result.getAmortizationSchedule().getCashStreamList();
+		int period = changes.get(0).getPeriod();
+
+		// The installments before the change are kept, the remaining balance is what their principal repayments left
+		LoanCalculationResult changedResult = new LoanCalculationResult();
+		List<CashStream> changedCashStreamList = changedResult.getAmortizationSchedule().getCashStreamList();
+		changedCashStreamList.add(LoanCalculationResults.copyOf(cashStreamList.get(0)));
+		BigDecimal remainingBalance = parameters.getLoanAmount();
+		for (int i = 1; i < period; i++) {
+			CashStream cashStream = cashStreamList.get(i);
+			changedCashStreamList.add(LoanCalculationResults.copyOf(cashStream));
+			remainingBalance = remainingBalance.subtract(cashStream.getPrincipalRepaymentAmount());
+		}
+		LocalDate date = cashStreamList.get(period - 1).getDate();
+
+		LoanParameters changedParameters = parameters;
+		AmortizationCursor cursor = openAmortizationCursor(changedParameters, period - 1, date, remainingBalance);
+		int changeIndex = 0;
+		while (true) {
+			BigDecimal prepayment = null;
+			while (changeIndex < changes.size() && changes.get(changeIndex).getPeriod() == cursor.getPeriod() + 1) {
+				ScheduleChange change = changes.get(changeIndex++);
+				if (change.getType() == ScheduleChange.Type.RATE_CHANGE) {
+					try {
+						changedParameters = changedParameters.toBuilder().annualRate(change.getAnnualRate()).build();
+					} catch (LoanSettingsException e) {
+						throw new LoanCalculationException(e.getMessage());
+					}
+					cursor = openAmortizationCursor(changedParameters, cursor.getPeriod(), cursor.getDate(), cursor.getRemainingBalance());
+				} else {
+					prepayment = prepayment == null ? change.getAmount() : prepayment.add(change.getAmount());
+				}
+			}
+			if (!cursor.next()) {
+				if (prepayment != null || changeIndex < changes.size()) {
+					throw new LoanCalculationException("The loan is reimbursed before installment " + (prepayment != null ? cursor.getPeriod() + 1 : changes.get(changeIndex).getPeriod()));
+				}
+				break;
+			}
+			CashStream cashStream = cursor.toCashStream();
+			if (prepayment != null) {
+				prepayment = prepayment.min(cursor.getRemainingBalance().subtract(parameters.getBalloon()));
+				cashStream.setAmount(cashStream.getAmount().add(prepayment));
+				cashStream.setPrincipalRepaymentAmount(cashStream.getPrincipalRepaymentAmount().add(prepayment));
+				cursor = openAmortizationCursor(changedParameters, cursor.getPeriod(), cursor.getDate(), cursor.getRemainingBalance().subtract(prepayment));
+			}
+			changedCashStreamList.add(cashStream);
+		}
+		instrumentation.scheduleCalculated(changedCashStreamList.size() - 1, System.nanoTime() - start);
+
+		changedResult.setApr(aprCalculator.calculateAPR(APRCashFlows.compile(changedResult.getAmortizationSchedule(), dateUtil, CalculationContext.current().getCashFlows()), instrumentation));
+
+		changedResult.calculateTotalInterest();
+
+		return changedResult;
+	}
+
+	@Override
+	protected LoanCalculationResult doCalculateForFixedDuration(LoanParameters parameters) throws LoanCalculationException {
+		BigDecimal monthlyInstallment = getInstallmentForDuration(parameters);
+		try {
+			return doCalculateForFixedInstallment(parameters.toBuilder().monthlyInstallment(monthlyInstallment).build());
+		} catch (LoanSettingsException e) {
+			throw new LoanCalculationException(e.getMessage());
+		}
+	}
+
+	@Override
+	protected BigDecimal doCalculateInstallmentForFixedDuration(LoanParameters parameters) throws LoanCalculationException {
+		return getInstallmentForDuration(parameters);
+	}
+
+	/**
+	 * Determines the lowest installment, in cents, that reimburses the loan in the desired number of installments.
+	 * The first estimate solves the annuity equation built from the growth factor of every period, which only ignores
+	 * the rounding of the interests to the cent. It is then refined by simulating the schedule: each simulation gives
+	 * the balance left after the last installment, which divided by the annuity factor corrects the installment.
+	 * The search stops when the installment reimburses the loan and one cent less does not.
+	 * The bracket is bounded from the start by the estimate plus a margin and a cent per period, so that a fallback to
+	 * bisection never tries absurd installments; this ceiling is simulated before being returned, and raised if it falls short.
+	 * @param parameters The validated loan parameters, including the number of installments
+	 * @return The installment
+	 * @throws LoanCalculationException
+	 */
+	protected BigDecimal getInstallmentForDuration(LoanParameters parameters) throws LoanCalculationException {
+		int numberOfPeriods = parameters.getNumberOfInstallments();
+		long[] accruals = getAccruals(parameters, numberOfPeriods);
+		Annuity annuity = new Annuity(accruals, numberOfPeriods, getPeriodRates(parameters));
+		double annuityFactor = annuity.factor;
+		double estimate = (parameters.getLoanAmount().doubleValue() * annuity.growth - parameters.getBalloon().doubleValue()) / annuityFactor;
+
+		// Bracket of installments in cents: the highest one known not to reimburse the loan and the lowest one known to,
+		// the latter being the ceiling until an installment is known to reimburse the loan
+		long notEnough = 0;
+		long installment = Math.max(1, (long) Math.ceil(estimate * 100));
+		long enough = Math.max(installment, (long) Math.ceil(estimate * 100 * INSTALLMENT_CEILING_FACTOR)) + numberOfPeriods;
+		boolean reimbursed = false;
+		for (int i = 0; i < MAX_INSTALLMENT_SIMULATIONS; i++) {
+			BigDecimal residual = getResidualBalance(parameters, accruals, numberOfPeriods, parameters.getLoanAmount(), BigDecimal.valueOf(installment, 2));
+			long correction = (long) Math.ceil(Math.abs(residual.doubleValue()) * 100 / annuityFactor);
+			long next;
+			if (residual.signum() > 0) {
+				notEnough = installment;
+				next = installment + Math.max(1, correction);
+				if (notEnough >= enough) {
+					enough = notEnough > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : 2 * notEnough;
+				}
+			} else {
+				enough = installment;
+				reimbursed = true;
+				next = installment - Math.max(1, correction - 1);
+			}
+			if (enough - notEnough == 1) {
+				if (reimbursed) {
+					return BigDecimal.valueOf(enough, 2);
+				}
+				next = enough;
+			} else if (next <= notEnough || next >= enough) {
+				next = notEnough + (enough - notEnough) / 2;
+			}
+			installment = next;
+		}
+		throw new LoanCalculationException("The monthly installment could not be determined within " + MAX_INSTALLMENT_SIMULATIONS + " simulations");
+	}
+
+	/**
+	 * Determines the highest loan amount, in cents, reimbursed by the installment in the desired number of installments.
+	 * The first estimate solves the annuity equation for the loan amount, then it is refined by simulating the schedule
+	 * as for {@link #getInstallmentForDuration(LoanParameters)}: the balance left after the last installment, divided by
+	 * the growth of the balance over the whole loan, corrects the loan amount.
+	 * The search stops when the loan amount is reimbursed and one cent more is not.
+	 * The bracket is bounded from the start as for the installment, by the estimate plus a margin and a cent per period;
+	 * this ceiling is simulated before the search stops below it, and raised if the installment reimburses it.
+	 */
+	@Override
+	protected BigDecimal doCalculateMaximumLoanAmount(LoanParameters parameters) throws LoanCalculationException {
+		int numberOfPeriods = parameters.getNumberOfInstallments();
+		long[] accruals = getAccruals(parameters, numberOfPeriods);
+		Annuity annuity = new Annuity(accruals, numberOfPeriods, getPeriodRates(parameters));
+		double estimate = (parameters.getMonthlyInstallment().doubleValue() * annuity.factor + parameters.getBalloon().doubleValue()) / annuity.growth;
+
+		// Bracket of loan amounts in cents: the highest one known to be reimbursed and the lowest one known not to,
+		// the latter being the ceiling until a loan amount is known not to be reimbursed
+		long enough = 0;
+		long loanAmount = Math.max(1, (long) Math.floor(estimate * 100));
+		long tooMuch = Math.max(loanAmount, (long) Math.ceil(estimate * 100 * INSTALLMENT_CEILING_FACTOR)) + numberOfPeriods;
+		boolean exceeded = false;
+		for (int i = 0; i < MAX_INSTALLMENT_SIMULATIONS; i++) {
+			BigDecimal residual = getResidualBalance(parameters, accruals, numberOfPeriods, BigDecimal.valueOf(loanAmount, 2), parameters.getMonthlyInstallment());
+			long correction = (long) Math.ceil(Math.abs(residual.doubleValue()) * 100 / annuity.growth);
+			long next;
+			if (residual.signum() > 0) {
+				tooMuch = loanAmount;
+				exceeded = true;
+				next = loanAmount - Math.max(1, correction);
+			} else {
+				enough = loanAmount;
+				next = loanAmount + Math.max(1, correction - 1);
+				if (enough >= tooMuch) {
+					tooMuch = enough > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : 2 * enough;
+				}
+			}
+			if (tooMuch - enough == 1) {
+				if (exceeded) {
+					BigDecimal maximumLoanAmount = BigDecimal.valueOf(enough, 2);
+					if (maximumLoanAmount.compareTo(parameters.getBalloon()) <= 0) {
+						throw new LoanCalculationException("The monthly installment cannot reimburse any loan above the balloon in " + parameters.getNumberOfInstallments() + " installments");
+					}
+					return maximumLoanAmount;
+				}
+				next = tooMuch;
+			} else if (next <= enough || next >= tooMuch) {
+				next = enough + (tooMuch - enough) / 2;
+			}
+			loanAmount = next;
+		}
+		throw new LoanCalculationException("The loan amount could not be determined within " + MAX_INSTALLMENT_SIMULATIONS + " simulations");
+	}
+
+	/**
+	 * Searches the annual rates with 4 decimals, the APR of the loan never decreasing when its annual rate increases.
+	 * Every rate tried costs the few simulations finding the installment for the duration, then one summary calculation.
+	 * The search starts from the annual rate that would give the target APR if interests were compounded every month,
+	 * widens the bracket by doubling steps until the target lies within it, then bisects it.
+	 */
+	@Override
+	protected BigDecimal doCalculateAnnualRateForAPR(LoanParameters parameters, BigDecimal targetApr) throws LoanCalculationException {
+		double estimate = 12 * Math.expm1(Math.log1p(targetApr.doubleValue()) / 12);
+		long rate = Math.min(MAXIMUM_ANNUAL_RATE, Math.max(0, Math.round(estimate * 10000)));
+
+		// Bracket of annual rates in units of the last decimal: the highest one known to give a lower APR than the target and the lowest one known to reach it
+		long tooLow = -1;
+		long reached = MAXIMUM_ANNUAL_RATE + 1;
+		long step = 1;
+		while (reached - tooLow > 1) {
+			if (getAPR(parameters, rate).compareTo(targetApr) >= 0) {
+				reached = rate;
+				rate = Math.max(tooLow + 1, rate - step);
+			} else {
+				tooLow = rate;
+				rate = Math.min(reached - 1, rate + step);
+			}
+			if (tooLow >= 0 && reached <= MAXIMUM_ANNUAL_RATE) {
+				rate = tooLow + (reached - tooLow) / 2;
+			} else {
+				step *= 2;
+			}
+		}
+		if (reached > MAXIMUM_ANNUAL_RATE) {
+			throw new LoanCalculationException("The target APR cannot be reached with an annual rate up to " + BigDecimal.valueOf(MAXIMUM_ANNUAL_RATE, ANNUAL_RATE_SCALE));
+		}
+		return BigDecimal.valueOf(reached, ANNUAL_RATE_SCALE);
+	}
+
+	/**
+	 * The APR of the loan at a given annual rate, the installment being the one for the desired duration
+	 * @param parameters The validated loan parameters, including the number of installments
+	 * @param rate The annual rate, in units of the last decimal
+	 * @return The APR
+	 * @throws LoanCalculationException
+	 */
+	private BigDecimal getAPR(LoanParameters parameters, long rate) throws LoanCalculationException {
+		try {
+			LoanParameters atRate = parameters.toBuilder().annualRate(BigDecimal.valueOf(rate, ANNUAL_RATE_SCALE)).build();
+			BigDecimal monthlyInstallment = getInstallmentForDuration(atRate);
+			return doCalculateSummaryForFixedInstallment(atRate.toBuilder().monthlyInstallment(monthlyInstallment).build()).getApr();
+		} catch (LoanSettingsException e) {
+			throw new LoanCalculationException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Simulates the schedule paying the same installment every period, including the last one
+	 * @param parameters The validated loan parameters
+	 * @param accruals Accrual of every period, as returned by {@link #getAccruals(LoanParameters, int)}
+	 * @param numberOfPeriods The number of periods, the first ones of the accruals
+	 * @param loanAmount The amount borrowed
+	 * @param monthlyInstallment The installment paid every period
+	 * @return The balance above the balloon left after the last period, zero or negative if the installment reimburses the loan
+	 */
+	private BigDecimal getResidualBalance(LoanParameters parameters, long[] accruals, int numberOfPeriods, BigDecimal loanAmount, BigDecimal monthlyInstallment) {
+		BigDecimal remainingBalance = loanAmount;
+		for (int i = 0; i < numberOfPeriods; i++) {
+			BigDecimal interest = getInterests(parameters, remainingBalance, accruals[i]);
+			remainingBalance = remainingBalance.add(interest).subtract(monthlyInstallment);
+		}
+		return remainingBalance.subtract(parameters.getBalloon());
+	}
+
+	/**
+	 * Determines the accruals of the first periods of the loan, in the buffer of the current {@link CalculationContext}
+	 * @param parameters The validated loan parameters
+	 * @param numberOfPeriods The number of periods
+	 * @return Accrual of every period, the array being longer than the number of periods
+	 * @throws LoanCalculationException
+	 */
+	private long[] getAccruals(LoanParameters parameters, int numberOfPeriods) throws LoanCalculationException {
+		int firstIndex = frequency.getIndexAfter(parameters.getFirstReimbursementDate(), parameters.getLoanStartDate());
+		PaymentCalendar calendar = calendars.get(parameters.getFirstReimbursementDate(), frequency, firstIndex + numberOfPeriods);
+		long[] accruals = CalculationContext.current().getDaysOfInterest(numberOfPeriods);
+		accruals[0] = getAccrual(parameters.getLoanStartDate(), calendar.getDate(firstIndex));
+		for (int i = 1; i < numberOfPeriods; i++) {
+			accruals[i] = getAccrual(calendar, firstIndex + i);
+		}
+		return accruals;
+	}
+
+	/**
+	 * Makes sure, before walking through the installments of a fixed installment loan, that they reimburse it within
+	 * the maximum number of installments, so that infeasible loans are rejected without calculating any schedule.
+	 * The balance is first carried over the next period, whose interests may exceed the installment when it is long.
+	 * From then on, the installment must exceed the interests of an average period, otherwise the balance never decreases.
+	 * The number of installments is then estimated as that of an annuity at the average period rate; as this ignores
+	 * the rounding of the interests and the actual length of the periods, the loan is only rejected when the estimate
+	 * exceeds the maximum by more than a quarter, the calculation being aborted anyway once the maximum is reached.
+	 * @param parameters The validated loan parameters, including the monthly installment
+	 * @param period The number of the last installment already paid, 0 if none
+	 * @param remainingBalance The balance remaining after the last installment already paid
+	 * @param accrual The accrual of the next period
+	 * @throws LoanCalculationException If the loan is never reimbursed or not within the maximum number of installments
+	 */
+	private void checkTermination(LoanParameters parameters, int period, BigDecimal remainingBalance, long accrual) throws LoanCalculationException {
+		double installment = parameters.getMonthlyInstallment().doubleValue();
+		double balloon = parameters.getBalloon().doubleValue();
+		double balance = remainingBalance.doubleValue();
+		balance += balance * getPeriodRates(parameters).applyAsDouble(accrual) - installment;
+		if (balance <= balloon) {
+			return;
+		}
+
+		double periodRate = getAveragePeriodRate(parameters);
+		if (installment <= balance * periodRate) {
+			throw new LoanCalculationException("The installment does not exceed the interests of a period, the loan is never reimbursed");
+		}
+		double periods = periodRate == 0 ? (balance - balloon) / installment
+				: Math.log((installment - balloon * periodRate) / (installment - balance * periodRate)) / Math.log1p(periodRate);
+		int maximum = getMaximumNumberOfInstallments();
+		if (period + 1 + periods > maximum + maximum / 4d) {
+			throw new LoanCalculationException("The loan needs about " + (long) Math.ceil(period + 1 + periods) + " installments, more than the maximum of " + maximum);
+		}
+	}
+
+	/**
+	 * The day of the month of the first reimbursement only matters to month-based frequencies
+	 */
+	@Override
+	protected void checkFirstReimbursementDate(LoanParameters parameters) throws LoanSettingsException {
+		if (frequency.isMonthBased()) {
+			super.checkFirstReimbursementDate(parameters);
+		}
+	}
+
+	/**
+	 * @return the frequency of the installments
+	 */
+	public PaymentFrequency getFrequency() {
+		return frequency;
+	}
+
+	/**
+	 * @return the day-count engine
+	 */
+	protected LoanDateUtil getDateUtil() {
+		return dateUtil;
+	}
+
+	/**
+	 * Growth factors of a loan, ignoring the rounding of the interests to the cent
+	 */
+	private static class Annuity {
+
+		/**
+		 * Growth of the balance over the whole loan
+		 */
+		private double growth = 1;
+
+		/**
+		 * Sum of the growths of every installment from its payment to the end of the loan
+		 */
+		private double factor;
+
+		private Annuity(long[] accruals, int numberOfPeriods, LongToDoubleFunction periodRates) {
+			for (int i = numberOfPeriods - 1; i >= 0; i--) {
+				factor += growth;
+				growth *= 1 + periodRates.applyAsDouble(accruals[i]);
+			}
+		}
+
+	}
+
+	/**
+	 * Moves from one reimbursement date to the next along the shared payment calendar, the amounts being calculated by the subclasses.
+	 * Only the days of interest and the accrual of the first period, which depend on the loan start date, are calculated.
+	 */
+	protected abstract class PeriodCursor implements AmortizationCursor {
+
+		private final LoanParameters parameters;
+
+		private final LocalDate firstReimbursementDate;
+
+		private final int maximumNumberOfInstallments = getMaximumNumberOfInstallments();
+
+		/**
+		 * Whether the termination of the loan was checked, before the first installment
+		 */
+		private boolean checked;
+
+		private PaymentCalendar calendar;
+
+		/**
+		 * Index in the calendar of the next reimbursement
+		 */
+		private int index;
+
+		private int period;
+
+		private LocalDate date;
+
+		private long daysOfInterest;
+
+		/**
+		 * @param parameters The validated loan parameters, including the monthly installment
+		 * @param period The number of the last installment already paid, 0 if none
+		 * @param date The date of the last installment already paid, the loan start date if none
+		 */
+		protected PeriodCursor(LoanParameters parameters, int period, LocalDate date) {
+			this.parameters = parameters;
+			this.firstReimbursementDate = parameters.getFirstReimbursementDate();
+			this.index = frequency.getIndexAfter(firstReimbursementDate, date);
+			this.period = period;
+			this.date = date;
+		}
+
+		@Override
+		public boolean next() throws LoanCalculationException {
+			if(isReimbursed()) {
+				return false;
+			}
+			if (period >= maximumNumberOfInstallments) {
+				throw new LoanCalculationException("The loan is not reimbursed within the maximum of " + maximumNumberOfInstallments + " installments");
+			}
+
+			if (calendar == null) {
+				calendar = calendars.get(firstReimbursementDate, frequency, index + 1);
+			} else if (index >= calendar.getHorizon()) {
+				// Twice as long, in case the calendars could not keep the previous one
+				calendar = calendars.get(firstReimbursementDate, frequency, Math.max(index + 1, 2 * calendar.getHorizon()));
+			}
+			LocalDate nextDate = calendar.getDate(index);
+			long accrual;
+			if (index > 0 && date.equals(calendar.getDate(index - 1))) {
+				daysOfInterest = calendar.getDaysOfInterest(index);
+				accrual = getAccrual(calendar, index);
+			} else {
+				daysOfInterest = dateUtil.getNumberOfDaysBetweenDates(date, nextDate);
+				accrual = getAccrual(date, nextDate);
+			}
+			if (!checked) {
+				checkTermination(parameters, period, getRemainingBalance(), accrual);
+				checked = true;
+			}
+			date = nextDate;
+			index++;
+			period++;
+
+			pay(accrual);
+			return true;
+		}
+
+		/**
+		 * @return true once the remaining balance is down to the balloon
+		 */
+		protected abstract boolean isReimbursed();
+
+		/**
+		 * Apply the interests of the period then pay the installment
+		 * @param accrual The accrual of the period
+		 * @throws LoanCalculationException
+		 */
+		protected abstract void pay(long accrual) throws LoanCalculationException;
+
+		@Override
+		public int getPeriod() {
+			return period;
+		}
+
+		@Override
+		public LocalDate getDate() {
+			return date;
+		}
+
+		@Override
+		public long getDaysOfInterest() {
+			return daysOfInterest;
+		}
+
+		@Override
+		public BigDecimal getFees() {
+			return BigDecimal.ZERO;
+		}
+
+		@Override
+		public BigDecimal getInsuranceCost() {
+			return BigDecimal.ZERO;
+		}
+
+	}
+
+}
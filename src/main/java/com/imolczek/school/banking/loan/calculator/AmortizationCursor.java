@@ -0,0 +1,143 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.model.CashStream;
+
+/**
+ * Walks through the installments of a loan one at a time.
+ * Only the current installment is kept, so walking through a schedule does not allocate one object per installment.
+ * The disbursement of the loan is not an installment: the first call to {@link #next()} moves to the first reimbursement.
+ */
+public interface AmortizationCursor {
+
+	/**
+	 * Move to the next installment
+	 * @return false once the loan is reimbursed down to the balloon
+	 * @throws LoanCalculationException
+	 */
+	boolean next() throws LoanCalculationException;
+
+	/**
+	 * @return the number of the current installment, starting at 1
+	 */
+	int getPeriod();
+
+	/**
+	 * @return the date of the current installment
+	 */
+	LocalDate getDate();
+
+	/**
+	 * @return the days of interest of the current installment, as returned by {@link com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil#getNumberOfDaysBetweenDates(LocalDate, LocalDate)}
+	 */
+	long getDaysOfInterest();
+
+	/**
+	 * @return the amount of the current installment
+	 */
+	BigDecimal getAmount();
+
+	/**
+	 * @return the interests paid by the current installment
+	 */
+	BigDecimal getInterest();
+
+	/**
+	 * @return the fees paid by the current installment
+	 */
+	BigDecimal getFees();
+
+	/**
+	 * @return the insurance cost paid by the current installment
+	 */
+	BigDecimal getInsuranceCost();
+
+	/**
+	 * @return the principal reimbursed by the current installment
+	 */
+	BigDecimal getPrincipalRepaymentAmount();
+
+	/**
+	 * @return the balance remaining after the current installment
+	 */
+	BigDecimal getRemainingBalance();
+
+	/**
+	 * @return the amount of the current installment in cents
+	 * @throws LoanCalculationException If it exceeds the capacity of a long
+	 */
+	default long getAmountCents() throws LoanCalculationException {
+		return toCents(getAmount());
+	}
+
+	/**
+	 * @return the interests paid by the current installment in cents
+	 * @throws LoanCalculationException If it exceeds the capacity of a long
+	 */
+	default long getInterestCents() throws LoanCalculationException {
+		return toCents(getInterest());
+	}
+
+	/**
+	 * @return the fees paid by the current installment in cents
+	 * @throws LoanCalculationException If it exceeds the capacity of a long
+	 */
+	default long getFeesCents() throws LoanCalculationException {
+		return toCents(getFees());
+	}
+
+	/**
+	 * @return the insurance cost paid by the current installment in cents
+	 * @throws LoanCalculationException If it exceeds the capacity of a long
+	 */
+	default long getInsuranceCostCents() throws LoanCalculationException {
+		return toCents(getInsuranceCost());
+	}
+
+	/**
+	 * @return the principal reimbursed by the current installment in cents
+	 * @throws LoanCalculationException If it exceeds the capacity of a long
+	 */
+	default long getPrincipalRepaymentAmountCents() throws LoanCalculationException {
+		return toCents(getPrincipalRepaymentAmount());
+	}
+
+	/**
+	 * @return the balance remaining after the current installment in cents
+	 * @throws LoanCalculationException If it exceeds the capacity of a long
+	 */
+	default long getRemainingBalanceCents() throws LoanCalculationException {
+		return toCents(getRemainingBalance());
+	}
+
+	/**
+	 * @param amount an amount with at most 2 decimals
+	 * @return the amount in cents
+	 * @throws LoanCalculationException If it exceeds the capacity of a long
+	 */
+	static long toCents(BigDecimal amount) throws LoanCalculationException {
+		try {
+			return amount.movePointRight(2).longValueExact();
+		} catch (ArithmeticException e) {
+			throw new LoanCalculationException("The amount " + amount.toPlainString() + " exceeds the capacity of a long number of cents");
+		}
+	}
+
+	/**
+	 * @return a new cash stream holding the current installment
+	 */
+	default CashStream toCashStream() {
+		CashStream cashStream = new CashStream();
+		cashStream.setDate(getDate());
+		cashStream.setInsuranceCost(getInsuranceCost());
+		cashStream.setFees(getFees());
+		cashStream.setInterest(getInterest());
+		cashStream.setAmount(getAmount());
+		cashStream.setPrincipalRepaymentAmount(getPrincipalRepaymentAmount());
+		return cashStream;
+	}
+
+}
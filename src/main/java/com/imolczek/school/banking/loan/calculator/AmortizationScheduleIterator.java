@@ -0,0 +1,67 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.exceptions.UncheckedLoanCalculationException;
+import com.imolczek.school.banking.loan.model.CashStream;
+
+/**
+ * Produces the cash streams of a loan on demand: the disbursement first, then one installment per call,
+ * each calculated by the cursor only when requested
+ */
+public class AmortizationScheduleIterator implements Iterator<CashStream> {
+
+	private final LoanParameters parameters;
+
+	private final AmortizationCursor cursor;
+
+	private boolean disbursed;
+
+	/**
+	 * Whether the cursor is positioned on an installment that has not been returned yet, null if not known yet
+	 */
+	private Boolean pending;
+
+	/**
+	 * @param parameters The validated loan parameters
+	 * @param cursor A cursor positioned before the first installment of the loan
+	 */
+	public AmortizationScheduleIterator(LoanParameters parameters, AmortizationCursor cursor) {
+		this.parameters = parameters;
+		this.cursor = cursor;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (!disbursed) {
+			return true;
+		}
+		if (pending == null) {
+			try {
+				pending = cursor.next();
+			} catch (LoanCalculationException e) {
+				throw new UncheckedLoanCalculationException(e);
+			}
+		}
+		return pending;
+	}
+
+	@Override
+	public CashStream next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("The loan is reimbursed");
+		}
+		if (!disbursed) {
+			disbursed = true;
+			CashStream initialCashStream = new CashStream();
+			initialCashStream.setAmount(parameters.getLoanAmount().negate());
+			initialCashStream.setDate(parameters.getLoanStartDate());
+			return initialCashStream;
+		}
+		pending = null;
+		return cursor.toCashStream();
+	}
+
+}
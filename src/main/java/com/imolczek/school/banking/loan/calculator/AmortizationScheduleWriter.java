@@ -0,0 +1,73 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Iterator;
+
+import com.imolczek.school.banking.loan.model.CashStream;
+
+/**
+ * Writes cash streams as delimited text, one line per cash stream, as they are produced.
+ * Combined with {@link LoanCalculator#iterateAmortizationSchedule(LoanParameters)} a schedule is exported
+ * without ever being held in memory.
+ */
+public class AmortizationScheduleWriter {
+
+	private static final String[] HEADERS = { "date", "amount", "interest", "principalRepaymentAmount", "fees", "insuranceCost" };
+
+	private final char separator;
+
+	/**
+	 * Separates the values with semicolons
+	 */
+	public AmortizationScheduleWriter() {
+		this(';');
+	}
+
+	/**
+	 * @param separator The character separating the values of a line
+	 */
+	public AmortizationScheduleWriter(char separator) {
+		this.separator = separator;
+	}
+
+	/**
+	 * Write a header line then every cash stream left in the iterator. The writer is neither flushed nor closed.
+	 * @param cashStreams The cash streams
+	 * @param writer The destination
+	 * @return The number of cash streams written
+	 * @throws IOException
+	 */
+	public long write(Iterator<CashStream> cashStreams, Writer writer) throws IOException {
+		for (int i = 0; i < HEADERS.length; i++) {
+			if (i > 0) {
+				writer.write(separator);
+			}
+			writer.write(HEADERS[i]);
+		}
+		writer.write('\n');
+
+		long count = 0;
+		while (cashStreams.hasNext()) {
+			CashStream cashStream = cashStreams.next();
+			writer.write(cashStream.getDate().toString());
+			writeAmount(writer, cashStream.getAmount());
+			writeAmount(writer, cashStream.getInterest());
+			writeAmount(writer, cashStream.getPrincipalRepaymentAmount());
+			writeAmount(writer, cashStream.getFees());
+			writeAmount(writer, cashStream.getInsuranceCost());
+			writer.write('\n');
+			count++;
+		}
+		return count;
+	}
+
+	private void writeAmount(Writer writer, BigDecimal amount) throws IOException {
+		writer.write(separator);
+		if (amount != null) {
+			writer.write(amount.toPlainString());
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import com.imolczek.school.banking.loan.calculator.apr.APRCashFlows;
+
+/**
+ * Scratch buffers reused by the calculations, so that loans calculated one after the other stop allocating them
+ * once they are large enough. A calculator keeps the contexts of its finished calculations in a bounded {@link Pool}
+ * and binds one to the thread of every calculation only while it runs, so that no thread keeps a context, nor the
+ * classes of the bundle that created it, once the calculations are done. The buffers grow as needed, and those grown
+ * above {@link #MAXIMUM_RETAINED_CAPACITY} are dropped when the calculation ends.
+ * A buffer is only valid until it is requested again, so a calculation must be done with it before starting another one.
+ */
+public final class CalculationContext {
+
+	/**
+	 * The largest buffers kept between calculations, enough for loans of the default maximum number of installments
+	 */
+	public static final int MAXIMUM_RETAINED_CAPACITY = 2048;
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private static final ThreadLocal<CalculationContext> CURRENT = new ThreadLocal<CalculationContext>();
+
+	private APRCashFlows.Builder cashFlows = new APRCashFlows.Builder(INITIAL_CAPACITY);
+
+	private long[] daysOfInterest = new long[INITIAL_CAPACITY];
+
+	private CalculationContext() {
+	}
+
+	/**
+	 * @return the context of the calculation running on the current thread, or a new context if none is running
+	 */
+	public static CalculationContext current() {
+		CalculationContext context = CURRENT.get();
+		return context == null ? new CalculationContext() : context;
+	}
+
+	/**
+	 * @return a cleared builder of the cash streams of the APR calculation
+	 */
+	public APRCashFlows.Builder getCashFlows() {
+		return cashFlows.clear();
+	}
+
+	/**
+	 * @param size The number of periods needed
+	 * @return a buffer for the days of interest, or the accruals, of at least that number of periods
+	 */
+	public long[] getDaysOfInterest(int size) {
+		if (daysOfInterest.length < size) {
+			daysOfInterest = new long[Math.max(size, daysOfInterest.length * 2)];
+		}
+		return daysOfInterest;
+	}
+
+	/**
+	 * Drop the buffers grown above the retained capacity
+	 */
+	private void trim() {
+		if (cashFlows.capacity() > MAXIMUM_RETAINED_CAPACITY) {
+			cashFlows = new APRCashFlows.Builder(INITIAL_CAPACITY);
+		}
+		if (daysOfInterest.length > MAXIMUM_RETAINED_CAPACITY) {
+			daysOfInterest = new long[INITIAL_CAPACITY];
+		}
+	}
+
+	/**
+	 * The contexts of the finished calculations of a calculator, reused by the following ones
+	 */
+	static final class Pool {
+
+		private final ArrayBlockingQueue<CalculationContext> idle;
+
+		/**
+		 * @param capacity The number of contexts kept, those of more concurrent calculations being dropped
+		 */
+		Pool(int capacity) {
+			idle = new ArrayBlockingQueue<CalculationContext>(capacity);
+		}
+
+		/**
+		 * Bind a context to the current thread for a calculation, unless a calculation running on it already has one
+		 * @return the context bound, to release when the calculation ends, or null if none was bound
+		 */
+		CalculationContext bind() {
+			if (CURRENT.get() != null) {
+				return null;
+			}
+			CalculationContext context = idle.poll();
+			if (context == null) {
+				context = new CalculationContext();
+			}
+			CURRENT.set(context);
+			return context;
+		}
+
+		/**
+		 * Unbind a context from the current thread and keep it for another calculation
+		 * @param context The context returned by {@link #bind()}
+		 */
+		void release(CalculationContext context) {
+			if (context != null) {
+				CURRENT.remove();
+				context.trim();
+				idle.offer(context);
+			}
+		}
+
+	}
+
+}
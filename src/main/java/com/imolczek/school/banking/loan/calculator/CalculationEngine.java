@@ -0,0 +1,21 @@
+package com.imolczek.school.banking.loan.calculator;
+
+/**
+ * The arithmetic used to calculate the amortization schedule.
+ * Both engines round the same way and produce identical schedules.
+ */
+public enum CalculationEngine {
+
+	/**
+	 * Amounts are BigDecimal with 2 decimals
+	 */
+	BIG_DECIMAL,
+
+	/**
+	 * Amounts are long numbers of cents and daily rates long numbers of 1/10000.
+	 * Interests are rounded HALF_UP to the cent, exactly as BigDecimal does, without allocating any object.
+	 * Amounts whose interests would not fit in a long make the calculation fail.
+	 */
+	LONG_CENTS
+
+}
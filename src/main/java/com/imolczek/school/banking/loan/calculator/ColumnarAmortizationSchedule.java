@@ -0,0 +1,240 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.imolczek.school.banking.loan.model.AmortizationSchedule;
+import com.imolczek.school.banking.loan.model.CashStream;
+
+/**
+ * An amortization schedule stored as one primitive array per column: dates as epoch days and amounts as cents.
+ * A row costs a few dozen bytes instead of a CashStream and its BigDecimal fields, and reading a column walks contiguous memory.
+ * As in {@link AmortizationSchedule}, the first row is the disbursement of the loan, its amount being negative.
+ * The schedule is immutable; {@link #asCashStreamList()} offers the usual cash stream view, creating cash streams on demand.
+ */
+public final class ColumnarAmortizationSchedule {
+
+	private final int[] epochDays;
+
+	private final long[] amounts;
+
+	private final long[] interests;
+
+	private final long[] principalRepaymentAmounts;
+
+	private final long[] fees;
+
+	private final long[] insuranceCosts;
+
+	/**
+	 * Number of rows, the arrays may be longer
+	 */
+	private final int size;
+
+	private ColumnarAmortizationSchedule(Builder builder) {
+		this.epochDays = builder.epochDays;
+		this.amounts = builder.amounts;
+		this.interests = builder.interests;
+		this.principalRepaymentAmounts = builder.principalRepaymentAmounts;
+		this.fees = builder.fees;
+		this.insuranceCosts = builder.insuranceCosts;
+		this.size = builder.size;
+	}
+
+	/**
+	 * @return the number of rows, including the disbursement
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param row The row, 0 for the disbursement
+	 * @return the date of the row as an epoch day
+	 */
+	public int getEpochDay(int row) {
+		return epochDays[checkRow(row)];
+	}
+
+	/**
+	 * @param row The row, 0 for the disbursement
+	 * @return the date of the row
+	 */
+	public LocalDate getDate(int row) {
+		return LocalDate.ofEpochDay(getEpochDay(row));
+	}
+
+	/**
+	 * @param row The row, 0 for the disbursement
+	 * @return the amount of the row in cents
+	 */
+	public long getAmountCents(int row) {
+		return amounts[checkRow(row)];
+	}
+
+	/**
+	 * @param row The row, 0 for the disbursement
+	 * @return the interests paid by the row in cents
+	 */
+	public long getInterestCents(int row) {
+		return interests[checkRow(row)];
+	}
+
+	/**
+	 * @param row The row, 0 for the disbursement
+	 * @return the principal reimbursed by the row in cents
+	 */
+	public long getPrincipalRepaymentAmountCents(int row) {
+		return principalRepaymentAmounts[checkRow(row)];
+	}
+
+	/**
+	 * @param row The row, 0 for the disbursement
+	 * @return the fees paid by the row in cents
+	 */
+	public long getFeesCents(int row) {
+		return fees[checkRow(row)];
+	}
+
+	/**
+	 * @param row The row, 0 for the disbursement
+	 * @return the insurance cost paid by the row in cents
+	 */
+	public long getInsuranceCostCents(int row) {
+		return insuranceCosts[checkRow(row)];
+	}
+
+	/**
+	 * @return the sum of the interests of all the rows in cents
+	 */
+	public long getTotalInterestCents() {
+		return sum(interests);
+	}
+
+	/**
+	 * @return the sum of the amounts of all the installments in cents, the disbursement excluded
+	 */
+	public long getTotalReimbursedCents() {
+		return sum(amounts) - (size > 0 ? amounts[0] : 0);
+	}
+
+	/**
+	 * The cash streams are created when read, and created again every time they are read.
+	 * As in the amortization schedule of the full calculation, the disbursement only has a date and an amount.
+	 * @return a read-only view of the rows as cash streams
+	 */
+	public List<CashStream> asCashStreamList() {
+		return new CashStreamList();
+	}
+
+	/**
+	 * @return a new amortization schedule holding a cash stream per row
+	 */
+	public AmortizationSchedule toAmortizationSchedule() {
+		AmortizationSchedule amortizationSchedule = new AmortizationSchedule();
+		amortizationSchedule.getCashStreamList().addAll(asCashStreamList());
+		return amortizationSchedule;
+	}
+
+	private long sum(long[] column) {
+		long sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += column[i];
+		}
+		return sum;
+	}
+
+	private int checkRow(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row " + row + " is not between 0 and " + (size - 1));
+		}
+		return row;
+	}
+
+	private class CashStreamList extends AbstractList<CashStream> implements RandomAccess {
+
+		@Override
+		public CashStream get(int row) {
+			CashStream cashStream = new CashStream();
+			cashStream.setDate(getDate(row));
+			cashStream.setAmount(BigDecimal.valueOf(amounts[row], 2));
+			if (row > 0) {
+				cashStream.setInterest(BigDecimal.valueOf(interests[row], 2));
+				cashStream.setPrincipalRepaymentAmount(BigDecimal.valueOf(principalRepaymentAmounts[row], 2));
+				cashStream.setFees(BigDecimal.valueOf(fees[row], 2));
+				cashStream.setInsuranceCost(BigDecimal.valueOf(insuranceCosts[row], 2));
+			}
+			return cashStream;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+	}
+
+	/**
+	 * Collects the rows of a columnar schedule
+	 */
+	public static class Builder {
+
+		private static final int INITIAL_CAPACITY = 64;
+
+		private int[] epochDays = new int[INITIAL_CAPACITY];
+
+		private long[] amounts = new long[INITIAL_CAPACITY];
+
+		private long[] interests = new long[INITIAL_CAPACITY];
+
+		private long[] principalRepaymentAmounts = new long[INITIAL_CAPACITY];
+
+		private long[] fees = new long[INITIAL_CAPACITY];
+
+		private long[] insuranceCosts = new long[INITIAL_CAPACITY];
+
+		private int size;
+
+		/**
+		 * Add the next row
+		 * @param date The date of the row
+		 * @param amount The amount in cents, negative for the disbursement
+		 * @param interest The interests in cents
+		 * @param principalRepaymentAmount The principal reimbursed in cents
+		 * @param fee The fees in cents
+		 * @param insuranceCost The insurance cost in cents
+		 * @return this builder
+		 */
+		public Builder add(LocalDate date, long amount, long interest, long principalRepaymentAmount, long fee, long insuranceCost) {
+			if (size == amounts.length) {
+				epochDays = Arrays.copyOf(epochDays, size * 2);
+				amounts = Arrays.copyOf(amounts, size * 2);
+				interests = Arrays.copyOf(interests, size * 2);
+				principalRepaymentAmounts = Arrays.copyOf(principalRepaymentAmounts, size * 2);
+				fees = Arrays.copyOf(fees, size * 2);
+				insuranceCosts = Arrays.copyOf(insuranceCosts, size * 2);
+			}
+			epochDays[size] = Math.toIntExact(date.toEpochDay());
+			amounts[size] = amount;
+			interests[size] = interest;
+			principalRepaymentAmounts[size] = principalRepaymentAmount;
+			fees[size] = fee;
+			insuranceCosts[size] = insuranceCost;
+			size++;
+			return this;
+		}
+
+		/**
+		 * @return the columnar schedule
+		 */
+		public ColumnarAmortizationSchedule build() {
+			return new ColumnarAmortizationSchedule(this);
+		}
+
+	}
+
+}
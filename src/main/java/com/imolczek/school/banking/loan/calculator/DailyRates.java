@@ -0,0 +1,69 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The daily interest rates derived from an annual rate, for standard and for leap years.
+ * They only depend on the annual rate, so they can be computed once and shared by all the calculations using that rate.
+ */
+public class DailyRates {
+
+	private static final BigDecimal BIG_365 = new BigDecimal(365);
+
+	private static final BigDecimal BIG_366 = new BigDecimal(366);
+
+	/**
+	 * Annual rate the daily rates were derived from
+	 */
+	private final BigDecimal annualRate;
+
+	/**
+	 * Daily rate in a standard year
+	 */
+	private final BigDecimal rate365;
+
+	/**
+	 * Daily rate in a leap year
+	 */
+	private final BigDecimal rate366;
+
+	/**
+	 * @param annualRate Annual rate of the loan, 5% must be provided as 0.05
+	 */
+	public DailyRates(BigDecimal annualRate) {
+		this.annualRate = annualRate;
+		this.rate365 = annualRate.divide(BIG_365, 4, RoundingMode.HALF_UP);
+		this.rate366 = annualRate.divide(BIG_366, 4, RoundingMode.HALF_UP);
+	}
+
+	/**
+	 * @param annualRate an annual rate
+	 * @return true if these daily rates were derived from the given annual rate
+	 */
+	public boolean appliesTo(BigDecimal annualRate) {
+		return this.annualRate.compareTo(annualRate) == 0;
+	}
+
+	/**
+	 * @return the annualRate
+	 */
+	public BigDecimal getAnnualRate() {
+		return annualRate;
+	}
+
+	/**
+	 * @return the rate365
+	 */
+	public BigDecimal getRate365() {
+		return rate365;
+	}
+
+	/**
+	 * @return the rate366
+	 */
+	public BigDecimal getRate366() {
+		return rate366;
+	}
+
+}
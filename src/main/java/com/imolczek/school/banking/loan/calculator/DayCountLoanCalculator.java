@@ -0,0 +1,211 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.function.LongToDoubleFunction;
+
+import com.imolczek.school.banking.loan.calculator.apr.NewtonRaphsonAPRSolver;
+import com.imolczek.school.banking.loan.calculator.dateutils.DayCountConvention;
+import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentCalendar;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentCalendars;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentFrequency;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * This calculator applies the annual rate to the fraction of a year of every period, counted according to a {@link DayCountConvention},
+ * the installments being paid at a given {@link PaymentFrequency}. The monthly installment of the parameters is the installment of every period.
+ * The interests of a period are the remaining balance times the annual rate times the fraction of a year, rounded HALF_UP to the cent,
+ * and the amortization schedule is calculated on long numbers of cents. Amounts whose interests would not fit in a long make the calculation fail.
+ * It keeps no state between calculations and can be shared between threads.
+ * It is not an OSGi component as it needs a convention and a frequency: a component extending it
+ * picks up an Instrumentation service through the reference it inherits, as {@link StandardLoanCalculator} does.
+ */
+public class DayCountLoanCalculator extends AbstractPeriodLoanCalculator {
+
+	/**
+	 * The annual rates have 4 decimals
+	 */
+	private static final long RATE_UNIT = 10000L;
+
+	private final DayCountConvention convention;
+
+	/**
+	 * @param convention The day-count convention of the interests
+	 * @param frequency The frequency of the installments
+	 */
+	public DayCountLoanCalculator(DayCountConvention convention, PaymentFrequency frequency) {
+		this(convention, frequency, new LoanDateUtil());
+	}
+
+	private DayCountLoanCalculator(DayCountConvention convention, PaymentFrequency frequency, LoanDateUtil dateUtil) {
+		this(convention, frequency, dateUtil, new APRCalculator(new NewtonRaphsonAPRSolver(), dateUtil), new PaymentCalendars(dateUtil));
+	}
+
+	/**
+	 * All the collaborators are thread-safe and can be shared between calculators, whatever their convention and frequency
+	 * @param convention The day-count convention of the interests
+	 * @param frequency The frequency of the installments
+	 * @param dateUtil The day-count engine
+	 * @param aprCalculator The APR calculator
+	 * @param calendars The reimbursement dates shared between calculations
+	 */
+	public DayCountLoanCalculator(DayCountConvention convention, PaymentFrequency frequency, LoanDateUtil dateUtil, APRCalculator aprCalculator, PaymentCalendars calendars) {
+		super(dateUtil, aprCalculator, frequency, calendars);
+		this.convention = convention;
+	}
+
+	@Override
+	public AmortizationCursor openAmortizationCursor(LoanParameters parameters, int period, LocalDate date, BigDecimal remainingBalance) throws LoanCalculationException {
+		return new DayCountAmortizationCursor(parameters, period, date, remainingBalance);
+	}
+
+	@Override
+	protected long getAccrual(LocalDate start, LocalDate end) throws LoanCalculationException {
+		return convention.getAccrual(getDateUtil(), start, end);
+	}
+
+	@Override
+	protected long getAccrual(PaymentCalendar calendar, int index) throws LoanCalculationException {
+		return calendar.getAccrual(convention, index);
+	}
+
+	@Override
+	protected LongToDoubleFunction getPeriodRates(LoanParameters parameters) {
+		double rate = parameters.getAnnualRate().doubleValue() / convention.getYearLength();
+		return accrual -> accrual * rate;
+	}
+
+	@Override
+	protected double getAveragePeriodRate(LoanParameters parameters) {
+		return parameters.getAnnualRate().doubleValue() * convention.getYearsPerCalendarYear() / getFrequency().getPeriodsPerYear();
+	}
+
+	@Override
+	protected BigDecimal getInterests(LoanParameters parameters, BigDecimal remainingBalance, long accrual) {
+		return remainingBalance.multiply(parameters.getAnnualRate()).multiply(BigDecimal.valueOf(accrual))
+				.divide(BigDecimal.valueOf(convention.getYearLength()), 2, RoundingMode.HALF_UP);
+	}
+
+	/**
+	 * @return the day-count convention of the interests
+	 */
+	public DayCountConvention getConvention() {
+		return convention;
+	}
+
+	/**
+	 * Applies the interests of the period to the remaining balance, then pays the installment,
+	 * or the remaining balance above the balloon if it is lower.
+	 * The rate has 4 decimals, so the interests are a number of 1/(10000 x year length) cents rounded HALF_UP to the cent.
+	 */
+	private class DayCountAmortizationCursor extends PeriodCursor {
+
+		private final long balloon;
+
+		private final long monthlyInstallment;
+
+		private final long rate;
+
+		private final long divisor;
+
+		private long amount;
+
+		private long interest;
+
+		private long principalRepaymentAmount;
+
+		private long remainingBalance;
+
+		private DayCountAmortizationCursor(LoanParameters parameters, int period, LocalDate date, BigDecimal remainingBalance) throws LoanCalculationException {
+			super(parameters, period, date);
+			this.balloon = AmortizationCursor.toCents(parameters.getBalloon());
+			this.monthlyInstallment = AmortizationCursor.toCents(parameters.getMonthlyInstallment());
+			this.rate = parameters.getAnnualRate().unscaledValue().longValueExact();
+			this.divisor = RATE_UNIT * convention.getYearLength();
+			this.remainingBalance = AmortizationCursor.toCents(remainingBalance);
+		}
+
+		@Override
+		protected boolean isReimbursed() {
+			return remainingBalance <= balloon;
+		}
+
+		@Override
+		protected void pay(long accrual) throws LoanCalculationException {
+			try {
+				long product = Math.multiplyExact(remainingBalance, Math.multiplyExact(rate, accrual));
+				interest = product / divisor;
+				if (Math.abs(product % divisor) * 2 >= divisor) {
+					interest += Long.signum(product);
+				}
+			} catch (ArithmeticException e) {
+				throw new LoanCalculationException("The interests exceed the capacity of the long cents engine");
+			}
+
+			remainingBalance += interest;
+
+			if (monthlyInstallment < remainingBalance - balloon) {
+				remainingBalance -= monthlyInstallment;
+				amount = monthlyInstallment;
+			} else {
+				amount = remainingBalance - balloon;
+				remainingBalance = balloon;
+			}
+			principalRepaymentAmount = amount - interest;
+		}
+
+		@Override
+		public BigDecimal getAmount() {
+			return BigDecimal.valueOf(amount, 2);
+		}
+
+		@Override
+		public BigDecimal getInterest() {
+			return BigDecimal.valueOf(interest, 2);
+		}
+
+		@Override
+		public BigDecimal getPrincipalRepaymentAmount() {
+			return BigDecimal.valueOf(principalRepaymentAmount, 2);
+		}
+
+		@Override
+		public BigDecimal getRemainingBalance() {
+			return BigDecimal.valueOf(remainingBalance, 2);
+		}
+
+		@Override
+		public long getAmountCents() {
+			return amount;
+		}
+
+		@Override
+		public long getInterestCents() {
+			return interest;
+		}
+
+		@Override
+		public long getFeesCents() {
+			return 0;
+		}
+
+		@Override
+		public long getInsuranceCostCents() {
+			return 0;
+		}
+
+		@Override
+		public long getPrincipalRepaymentAmountCents() {
+			return principalRepaymentAmount;
+		}
+
+		@Override
+		public long getRemainingBalanceCents() {
+			return remainingBalance;
+		}
+
+	}
+
+}
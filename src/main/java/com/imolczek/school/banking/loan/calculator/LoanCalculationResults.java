@@ -0,0 +1,49 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.util.List;
+
+import com.imolczek.school.banking.loan.model.CashStream;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * Copies of calculation results.
+ * The model classes are mutable beans: a result kept for later use is copied when stored and again when handed out,
+ * so that no caller can change what another caller receives.
+ */
+public final class LoanCalculationResults {
+
+	private LoanCalculationResults() {
+	}
+
+	/**
+	 * The amounts and dates are immutable, so copying the cash streams is enough
+	 * @param result The result to copy
+	 * @return A new result holding new cash streams with the same values
+	 */
+	public static LoanCalculationResult copyOf(LoanCalculationResult result) {
+		LoanCalculationResult copy = new LoanCalculationResult();
+		List<CashStream> cashStreams = copy.getAmortizationSchedule().getCashStreamList();
+		for (CashStream cashStream : result.getAmortizationSchedule().getCashStreamList()) {
+			cashStreams.add(copyOf(cashStream));
+		}
+		copy.setApr(result.getApr());
+		copy.calculateTotalInterest();
+		return copy;
+	}
+
+	/**
+	 * @param cashStream The cash stream to copy
+	 * @return A new cash stream with the same values
+	 */
+	public static CashStream copyOf(CashStream cashStream) {
+		CashStream copy = new CashStream();
+		copy.setDate(cashStream.getDate());
+		copy.setAmount(cashStream.getAmount());
+		copy.setInterest(cashStream.getInterest());
+		copy.setPrincipalRepaymentAmount(cashStream.getPrincipalRepaymentAmount());
+		copy.setFees(cashStream.getFees());
+		copy.setInsuranceCost(cashStream.getInsuranceCost());
+		return copy;
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * Stateless loan calculations, safe to share between threads.
+ * This is the interface under which calculators are registered as OSGi services.
+ */
+public interface LoanCalculationService {
+
+	/**
+	 * Calculate the amortization schedule and the APR of a loan reimbursed by fixed monthly installments
+	 * @param parameters The validated loan parameters, the monthly installment must be set
+	 * @return The result of the calculation
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	LoanCalculationResult calculateForFixedInstallment(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException;
+
+	/**
+	 * Calculate the APR, the total interest and the last installment of a loan reimbursed by fixed monthly installments,
+	 * without building its amortization schedule
+	 * @param parameters The validated loan parameters, the monthly installment must be set
+	 * @return The key figures of the loan
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	LoanSummary calculateSummaryForFixedInstallment(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException;
+
+	/**
+	 * Calculate the amortization schedule and the APR of a loan reimbursed in a given number of monthly installments,
+	 * the monthly installment being the lowest amount, in cents, that reimburses the loan in that many installments
+	 * @param parameters The validated loan parameters, the number of installments must be set
+	 * @return The result of the calculation
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	LoanCalculationResult calculateForFixedDuration(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException;
+
+	/**
+	 * Apply a change to the amortization schedule of a loan reimbursed by fixed monthly installments,
+	 * only recalculating the installments from the change on
+	 * @param parameters The validated loan parameters the result was calculated with
+	 * @param result The result of the fixed installment calculation of the loan, it is not modified
+	 * @param change The change, applying to one of the installments of the result
+	 * @return The result of the calculation of the changed loan
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	default LoanCalculationResult recalculateForFixedInstallment(LoanParameters parameters, LoanCalculationResult result, ScheduleChange change) throws LoanSettingsException, LoanCalculationException {
+		return recalculateForFixedInstallment(parameters, result, Collections.singletonList(change));
+	}
+
+	/**
+	 * Apply changes to the amortization schedule of a loan reimbursed by fixed monthly installments in a single pass,
+	 * only recalculating the installments from the first change on. A recalculated result cannot be recalculated again,
+	 * as no loan parameters describe it: all the changes of a loan are applied at once to its original result.
+	 * @param parameters The validated loan parameters the result was calculated with
+	 * @param result The result of the fixed installment calculation of the loan, it is not modified
+	 * @param changes The changes ordered by installment, the first one applying to one of the installments of the result
+	 * @return The result of the calculation of the changed loan
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	LoanCalculationResult recalculateForFixedInstallment(LoanParameters parameters, LoanCalculationResult result, List<ScheduleChange> changes) throws LoanSettingsException, LoanCalculationException;
+
+	/**
+	 * Determine the highest loan amount that the monthly installment reimburses in the desired number of installments
+	 * @param parameters The validated loan parameters, which may be built without loan amount, see {@link LoanParameters.Builder#buildWithoutLoanAmount()};
+	 * the monthly installment and the number of installments must be set
+	 * @return The highest loan amount
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	BigDecimal calculateMaximumLoanAmount(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException;
+
+	/**
+	 * Determine the lowest annual rate, with 4 decimals, for which the loan reimbursed in the desired number of monthly installments
+	 * has at least the target APR
+	 * @param parameters The validated loan parameters, which may be built without annual rate, see {@link LoanParameters.Builder#buildWithoutAnnualRate()};
+	 * the number of installments must be set
+	 * @param targetApr The APR to reach, 5% must be provided as 0.05
+	 * @return The annual rate
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	BigDecimal calculateAnnualRateForAPR(LoanParameters parameters, BigDecimal targetApr) throws LoanSettingsException, LoanCalculationException;
+
+}
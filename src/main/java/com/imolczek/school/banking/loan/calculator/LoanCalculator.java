@@ -2,17 +2,38 @@ package com.imolczek.school.banking.loan.calculator;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 
 import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
 import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.calculator.exceptions.UncheckedLoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.instrumentation.Instrumentation;
+import com.imolczek.school.banking.loan.model.CashStream;
 import com.imolczek.school.banking.loan.model.LoanCalculationResult;
 
 /**
  * @author Fabian Bouch
  * A Loan calculator.
- * This calculator only works with monthly installments.
+ * The installments are monthly unless the implementation pays them at another frequency, see {@link DayCountLoanCalculator},
+ * the monthly installment then being the installment of every period.
+ * The inputs can either be set on the calculator, which then must not be shared between threads,
+ * or passed as {@link LoanParameters} to the stateless methods, which can be called concurrently.
  */
-public abstract class LoanCalculator {
+public abstract class LoanCalculator implements LoanCalculationService {
+
+	/**
+	 * Default maximum number of installments of a loan: 100 years
+	 */
+	public static final int DEFAULT_MAXIMUM_NUMBER_OF_INSTALLMENTS = 1200;
 
 	/**
 	 * Annual rate of the loan
@@ -47,29 +68,339 @@ public abstract class LoanCalculator {
 	
 	/**
 	 * The LocalDate when the first reimbursement will occur
-	 * The day of the month must be between 1 and 28 as all recurring installments will happen on the same day
+	 * The day of the month must be between 1 and 28 as all recurring installments will happen on the same day,
+	 * unless the implementation pays them at a frequency that is not month-based
 	 */
 	protected LocalDate firstReimbursementDate;
+
+	/**
+	 * Receives the measurements of the calculations
+	 */
+	private volatile Instrumentation instrumentation = Instrumentation.NO_OP;
+
+	/**
+	 * Calculations of longer loans are aborted
+	 */
+	private volatile int maximumNumberOfInstallments = DEFAULT_MAXIMUM_NUMBER_OF_INSTALLMENTS;
+
+	/**
+	 * The scratch buffers of the calculations, bound to their thread while they run
+	 */
+	private final CalculationContext.Pool contexts = new CalculationContext.Pool(Runtime.getRuntime().availableProcessors());
 	
 	public LoanCalculationResult calculateForFixedInstallment() throws LoanSettingsException, LoanCalculationException {
-		// Generic input data validation
-		validateInputData();
+		// Generic input data validation happens when the parameters are built
+		return calculate(this::getValidatedParameters, LoanCalculator::checkFixedInstallment, this::doCalculateForFixedInstallment);
+	}
+
+	/**
+	 * Calculate the loan described by the parameters, regardless of the inputs set on this calculator.
+	 * This method does not modify the calculator and can be called concurrently.
+	 * @param parameters The validated loan parameters
+	 * @return The result of the calculation
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	@Override
+	public LoanCalculationResult calculateForFixedInstallment(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+		return calculate(() -> parameters, LoanCalculator::checkFixedInstallment, this::doCalculateForFixedInstallment);
+	}
 		
-		// Specific controls		
-		if(monthlyInstallment == null) {
-			throw new LoanSettingsException("The desired monthly installment must be set");
+	/**
+	 * Do the calculation according to the selected implementation (daily interests, day-count convention...)
+	 * Implementations must not keep any state between calls as they may run concurrently
+	 * @param parameters The validated loan parameters
+	 * @return
+	 * @throws LoanCalculationException
+	 */
+	protected abstract LoanCalculationResult doCalculateForFixedInstallment(LoanParameters parameters) throws LoanCalculationException;
+
+	public LoanSummary calculateSummaryForFixedInstallment() throws LoanSettingsException, LoanCalculationException {
+		// Generic input data validation happens when the parameters are built
+		return calculate(this::getValidatedParameters, LoanCalculator::checkFixedInstallment, this::doCalculateSummaryForFixedInstallment);
+	}
+
+	/**
+	 * Calculate the key figures of the loan described by the parameters without building its amortization schedule,
+	 * regardless of the inputs set on this calculator. The figures are the same as those of the full calculation.
+	 * This method does not modify the calculator and can be called concurrently.
+	 * @param parameters The validated loan parameters
+	 * @return The key figures of the loan
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	@Override
+	public LoanSummary calculateSummaryForFixedInstallment(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+		return calculate(() -> parameters, LoanCalculator::checkFixedInstallment, this::doCalculateSummaryForFixedInstallment);
+	}
+
+	/**
+	 * Do the calculation according to the selected implementation (daily interests, day-count convention...)
+	 * Implementations must not keep any state between calls as they may run concurrently
+	 * @param parameters The validated loan parameters
+	 * @return
+	 * @throws LoanCalculationException
+	 */
+	protected abstract LoanSummary doCalculateSummaryForFixedInstallment(LoanParameters parameters) throws LoanCalculationException;
+
+	/**
+	 * Produce the amortization schedule of the loan lazily: each cash stream is only calculated when requested,
+	 * so the caller can stop at any point and very long schedules are never held in memory.
+	 * The first cash stream is the disbursement of the loan, as in the amortization schedule of the full calculation.
+	 * Calculation errors are thrown as {@link UncheckedLoanCalculationException}.
+	 * @param parameters The validated loan parameters
+	 * @return An iterator over the cash streams of the loan
+	 * @throws LoanSettingsException
+	 */
+	public Iterator<CashStream> iterateAmortizationSchedule(LoanParameters parameters) throws LoanSettingsException {
+		checkFirstReimbursementDate(parameters);
+		checkFixedInstallment(parameters);
+		try {
+			return new AmortizationScheduleIterator(parameters, openAmortizationCursor(parameters));
+		} catch (LoanCalculationException e) {
+			throw new UncheckedLoanCalculationException(e);
 		}
-		
-		// Do the calculation according to the selected implementation (daily interests, lombard year...)
-		return doCalculateForFixedInstallment();
 	}
-		
+
+	/**
+	 * Produce the amortization schedule of the loan lazily, see {@link #iterateAmortizationSchedule(LoanParameters)}
+	 * @param parameters The validated loan parameters
+	 * @return An ordered, sequential stream of the cash streams of the loan
+	 * @throws LoanSettingsException
+	 */
+	public Stream<CashStream> streamAmortizationSchedule(LoanParameters parameters) throws LoanSettingsException {
+		Spliterator<CashStream> spliterator = Spliterators.spliteratorUnknownSize(iterateAmortizationSchedule(parameters), Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false);
+	}
+
 	/**
-	 * Do the calculation according to the selected implementation (daily interests, lombard year...)
+	 * Calculate the amortization schedule of the loan as primitive columns, without creating any cash stream.
+	 * The rows are the same as those of the amortization schedule of the full calculation.
+	 * @param parameters The validated loan parameters
+	 * @return The amortization schedule of the loan
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	public ColumnarAmortizationSchedule calculateColumnarScheduleForFixedInstallment(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+		return calculate(() -> parameters, LoanCalculator::checkFixedInstallment, this::buildColumnarSchedule);
+	}
+
+	/**
+	 * @param parameters The validated loan parameters, including the monthly installment
+	 * @return The amortization schedule of the loan
+	 * @throws LoanCalculationException
+	 */
+	private ColumnarAmortizationSchedule buildColumnarSchedule(LoanParameters parameters) throws LoanCalculationException {
+		long start = System.nanoTime();
+		ColumnarAmortizationSchedule.Builder builder = new ColumnarAmortizationSchedule.Builder();
+		builder.add(parameters.getLoanStartDate(), -AmortizationCursor.toCents(parameters.getLoanAmount()), 0, 0, 0, 0);
+		AmortizationCursor cursor = openAmortizationCursor(parameters);
+		while(cursor.next()) {
+			builder.add(cursor.getDate(), cursor.getAmountCents(), cursor.getInterestCents(), cursor.getPrincipalRepaymentAmountCents(),
+					cursor.getFeesCents(), cursor.getInsuranceCostCents());
+		}
+		instrumentation.scheduleCalculated(cursor.getPeriod(), System.nanoTime() - start);
+		return builder.build();
+	}
+
+	/**
+	 * Start walking through the installments of a fixed installment loan according to the selected implementation
+	 * @param parameters The validated loan parameters, including the monthly installment
+	 * @return A cursor positioned before the first installment
+	 * @throws LoanCalculationException If the amounts exceed the capacity of the selected implementation
+	 */
+	public AmortizationCursor openAmortizationCursor(LoanParameters parameters) throws LoanCalculationException {
+		return openAmortizationCursor(parameters, 0, parameters.getLoanStartDate(), parameters.getLoanAmount());
+	}
+
+	/**
+	 * Resume walking through the installments of a fixed installment loan after a given installment
+	 * @param parameters The validated loan parameters, including the monthly installment
+	 * @param period The number of the last installment already paid, 0 if none
+	 * @param date The date of the last installment already paid, the loan start date if none
+	 * @param remainingBalance The balance remaining after the last installment already paid
+	 * @return A cursor positioned before the installment following the given one
+	 * @throws LoanCalculationException If the amounts exceed the capacity of the selected implementation
+	 */
+	public abstract AmortizationCursor openAmortizationCursor(LoanParameters parameters, int period, LocalDate date, BigDecimal remainingBalance) throws LoanCalculationException;
+
+	/**
+	 * Apply changes to the amortization schedule of a fixed installment loan in a single pass, the installments before
+	 * the first change being reused as they are. Only the following installments, the APR and the total interest are recalculated.
+	 * Each change applies from its installment on to the schedule left by the previous ones: a rate change to the
+	 * interests of its installment and of all the following ones, a prepayment to the balance left after its installment.
+	 * A rate change and a prepayment of the same installment apply in that order.
+	 * A recalculated result is not described by any loan parameters, so all the changes of a loan must be applied at once
+	 * to the result of its fixed installment calculation.
+	 * Neither the parameters nor the result are modified, and this method can be called concurrently.
+	 * @param parameters The validated loan parameters the result was calculated with
+	 * @param result The result of the fixed installment calculation of the loan
+	 * @param changes The changes ordered by installment, the first one applying to one of the installments of the result
+	 * @return The result of the calculation of the changed loan
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException If the loan is reimbursed before the installment of a change
+	 */
+	@Override
+	public LoanCalculationResult recalculateForFixedInstallment(LoanParameters parameters, LoanCalculationResult result, List<ScheduleChange> changes) throws LoanSettingsException, LoanCalculationException {
+		return calculate(() -> parameters, validated -> checkChanges(validated, result, changes),
+				validated -> doRecalculateForFixedInstallment(validated, result, changes));
+	}
+
+	/**
+	 * @param parameters The validated loan parameters the result was calculated with
+	 * @param result The result of the fixed installment calculation of the loan
+	 * @param changes The changes to apply
+	 * @throws LoanSettingsException If the changes cannot be applied to the result
+	 */
+	private static void checkChanges(LoanParameters parameters, LoanCalculationResult result, List<ScheduleChange> changes) throws LoanSettingsException {
+		checkFixedInstallment(parameters);
+		if(changes.isEmpty()) {
+			throw new LoanSettingsException("At least one change must be applied");
+		}
+		int numberOfInstallments = result.getAmortizationSchedule().getCashStreamList().size() - 1;
+		if(changes.get(0).getPeriod() < 1 || changes.get(0).getPeriod() > numberOfInstallments) {
+			throw new LoanSettingsException("The change must apply to one of the " + numberOfInstallments + " installments of the schedule");
+		}
+		int period = 0;
+		for(ScheduleChange change : changes) {
+			if(change.getPeriod() < period) {
+				throw new LoanSettingsException("The changes must be ordered by installment");
+			}
+			period = change.getPeriod();
+			if(change.getType() == ScheduleChange.Type.PREPAYMENT) {
+				if(change.getAmount() == null || change.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+					throw new LoanSettingsException("The prepayment must be positive and cannot be zero");
+				}
+			}
+			if(change.getType() == ScheduleChange.Type.RATE_CHANGE) {
+				if(change.getAnnualRate() == null || change.getAnnualRate().compareTo(BigDecimal.ZERO) < 0) {
+					throw new LoanSettingsException("The new annual rate must be positive");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Do the calculation according to the selected implementation (daily interests, day-count convention...)
+	 * Implementations must not keep any state between calls as they may run concurrently
+	 * @param parameters The validated loan parameters, including the monthly installment
+	 * @param result The result of the fixed installment calculation of the loan
+	 * @param changes The validated changes, ordered by installment
 	 * @return
 	 * @throws LoanCalculationException
 	 */
-	protected abstract LoanCalculationResult doCalculateForFixedInstallment() throws LoanCalculationException;
+	protected abstract LoanCalculationResult doRecalculateForFixedInstallment(LoanParameters parameters, LoanCalculationResult result, List<ScheduleChange> changes) throws LoanCalculationException;
+
+	public LoanCalculationResult calculateForFixedDuration() throws LoanSettingsException, LoanCalculationException {
+		// Generic input data validation happens when the parameters are built
+		return calculate(this::getValidatedParameters, this::checkFixedDuration, this::doCalculateForFixedDuration);
+	}
+
+	/**
+	 * Calculate the loan described by the parameters with the lowest monthly installment that reimburses it
+	 * in the desired number of installments, regardless of the inputs set on this calculator.
+	 * The monthly installment of the parameters, if any, is ignored.
+	 * This method does not modify the calculator and can be called concurrently.
+	 * @param parameters The validated loan parameters
+	 * @return The result of the calculation
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	@Override
+	public LoanCalculationResult calculateForFixedDuration(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+		return calculate(() -> parameters, this::checkFixedDuration, this::doCalculateForFixedDuration);
+	}
+
+	/**
+	 * Do the calculation according to the selected implementation (daily interests, day-count convention...)
+	 * Implementations must not keep any state between calls as they may run concurrently
+	 * @param parameters The validated loan parameters, including the number of installments
+	 * @return
+	 * @throws LoanCalculationException
+	 */
+	protected abstract LoanCalculationResult doCalculateForFixedDuration(LoanParameters parameters) throws LoanCalculationException;
+
+	/**
+	 * Determine the lowest monthly installment that reimburses the loan described by the parameters in the desired
+	 * number of installments, without building its amortization schedule. It is the installment of the fixed duration calculation.
+	 * The monthly installment of the parameters, if any, is ignored.
+	 * This method does not modify the calculator and can be called concurrently.
+	 * @param parameters The validated loan parameters
+	 * @return The monthly installment
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	public BigDecimal calculateInstallmentForFixedDuration(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+		return calculate(() -> parameters, this::checkFixedDuration, this::doCalculateInstallmentForFixedDuration);
+	}
+
+	/**
+	 * Do the calculation according to the selected implementation (daily interests, day-count convention...)
+	 * Implementations must not keep any state between calls as they may run concurrently
+	 * @param parameters The validated loan parameters, including the number of installments
+	 * @return
+	 * @throws LoanCalculationException
+	 */
+	protected abstract BigDecimal doCalculateInstallmentForFixedDuration(LoanParameters parameters) throws LoanCalculationException;
+
+	/**
+	 * Determine the highest amount that the desired monthly installment reimburses in the desired number of installments.
+	 * The loan amount of the parameters, if any, is ignored: they can be built without it, see {@link LoanParameters.Builder#buildWithoutLoanAmount()}.
+	 * This method does not modify the calculator and can be called concurrently.
+	 * @param parameters The validated loan parameters
+	 * @return The highest loan amount
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	@Override
+	public BigDecimal calculateMaximumLoanAmount(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+		return calculate(() -> parameters, validated -> {
+			checkAnnualRate(validated);
+			checkMonthlyInstallment(validated);
+			checkNumberOfInstallments(validated);
+		}, this::doCalculateMaximumLoanAmount);
+	}
+
+	/**
+	 * Do the calculation according to the selected implementation (daily interests, day-count convention...)
+	 * Implementations must not keep any state between calls as they may run concurrently
+	 * @param parameters The validated loan parameters, including the monthly installment and the number of installments
+	 * @return
+	 * @throws LoanCalculationException
+	 */
+	protected abstract BigDecimal doCalculateMaximumLoanAmount(LoanParameters parameters) throws LoanCalculationException;
+
+	/**
+	 * Determine the lowest annual rate, with 4 decimals, for which the fixed duration loan described by the parameters
+	 * has at least the target APR. The annual rate and the monthly installment of the parameters, if any, are ignored:
+	 * they can be built without annual rate, see {@link LoanParameters.Builder#buildWithoutAnnualRate()}.
+	 * This method does not modify the calculator and can be called concurrently.
+	 * @param parameters The validated loan parameters
+	 * @param targetApr The APR to reach, 5% must be provided as 0.05
+	 * @return The annual rate
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	@Override
+	public BigDecimal calculateAnnualRateForAPR(LoanParameters parameters, BigDecimal targetApr) throws LoanSettingsException, LoanCalculationException {
+		return calculate(() -> parameters, validated -> {
+			checkLoanAmount(validated);
+			checkNumberOfInstallments(validated);
+			if(targetApr == null || targetApr.compareTo(BigDecimal.ZERO) < 0) {
+				throw new LoanSettingsException("The target APR must be positive");
+			}
+		}, validated -> doCalculateAnnualRateForAPR(validated, targetApr));
+	}
+
+	/**
+	 * Do the calculation according to the selected implementation (daily interests, day-count convention...)
+	 * Implementations must not keep any state between calls as they may run concurrently
+	 * @param parameters The validated loan parameters, including the number of installments
+	 * @param targetApr The validated target APR
+	 * @return
+	 * @throws LoanCalculationException
+	 */
+	protected abstract BigDecimal doCalculateAnnualRateForAPR(LoanParameters parameters, BigDecimal targetApr) throws LoanCalculationException;
 
 	/**
 	 * Determines the date of the next reimbursement
@@ -77,6 +408,16 @@ public abstract class LoanCalculator {
 	 * @return
 	 */
 	protected LocalDate getNextReimbursementDate(LocalDate currentDate) {
+		return getNextReimbursementDate(currentDate, firstReimbursementDate);
+	}
+
+	/**
+	 * Determines the date of the next reimbursement
+	 * @param currentDate
+	 * @param firstReimbursementDate
+	 * @return
+	 */
+	protected LocalDate getNextReimbursementDate(LocalDate currentDate, LocalDate firstReimbursementDate) {
 		
 		int day;
 		int month;
@@ -103,55 +444,237 @@ public abstract class LoanCalculator {
 		return response;
 	}
 	
+	/**
+	 * Validate the input data for all calculation cases and take a snapshot of it
+	 * @return The inputs set on this calculator
+	 * @throws LoanSettingsException
+	 */
+	public LoanParameters getParameters() throws LoanSettingsException {
+		return LoanParameters.builder()
+				.annualRate(annualRate)
+				.numberOfInstallments(numberOfInstallments)
+				.loanAmount(loanAmount)
+				.balloon(balloon)
+				.monthlyInstallment(monthlyInstallment)
+				.loanStartDate(loanStartDate)
+				.firstReimbursementDate(firstReimbursementDate)
+				.build();
+	}
+	
 	/**
 	 * Validate the input data for all calculation cases
 	 * @throws LoanSettingsException
+	 * @deprecated The inputs are validated when they are built into {@link LoanParameters}, see {@link #getParameters()}.
+	 * Overrides are still called before the calculations of the inputs set on this calculator, once these inputs are validated,
+	 * but not by the methods taking {@link LoanParameters}.
 	 */
+	@Deprecated
 	protected void validateInputData() throws LoanSettingsException {
-		if(annualRate == null) {
-			throw new LoanSettingsException("The annual rate must be set");
-		}
-		if(annualRate.compareTo(BigDecimal.ZERO) < 0) {
-			throw new LoanSettingsException("The annual rate must be positive");
-		}
-		if(loanAmount == null) {
-			throw new LoanSettingsException("The loan amount must be set");
+		// The inputs are already validated by getParameters()
+	}
+
+	/**
+	 * Validate the inputs set on this calculator
+	 * @return The inputs set on this calculator
+	 * @throws LoanSettingsException
+	 */
+	private LoanParameters getValidatedParameters() throws LoanSettingsException {
+		LoanParameters parameters = getParameters();
+		validateInputData();
+		return parameters;
+	}
+
+	/**
+	 * Supplies the loan parameters of a calculation, validating them if needed
+	 */
+	@FunctionalInterface
+	private interface Inputs {
+		LoanParameters get() throws LoanSettingsException;
+	}
+
+	/**
+	 * The controls specific to a calculation
+	 */
+	@FunctionalInterface
+	private interface Controls {
+		void check(LoanParameters parameters) throws LoanSettingsException;
+	}
+
+	/**
+	 * A calculation according to the selected implementation (daily interests, day-count convention...)
+	 */
+	@FunctionalInterface
+	private interface Calculation<T> {
+		T calculate(LoanParameters parameters) throws LoanCalculationException;
+	}
+
+	/**
+	 * Validate the inputs of a calculation then do it, reporting the duration of the validation and any failure to the instrumentation.
+	 * A calculation context is bound to the current thread while the calculation runs.
+	 * @param inputs The loan parameters
+	 * @param controls The controls specific to the calculation
+	 * @param calculation The calculation
+	 * @return The result of the calculation
+	 * @throws LoanSettingsException
+	 * @throws LoanCalculationException
+	 */
+	private <T> T calculate(Inputs inputs, Controls controls, Calculation<T> calculation) throws LoanSettingsException, LoanCalculationException {
+		CalculationContext context = contexts.bind();
+		try {
+			long start = System.nanoTime();
+			LoanParameters parameters = inputs.get();
+			checkFirstReimbursementDate(parameters);
+			controls.check(parameters);
+			instrumentation.validated(System.nanoTime() - start);
+			return calculation.calculate(parameters);
+		} catch (LoanSettingsException | LoanCalculationException | RuntimeException e) {
+			instrumentation.failed(e);
+			throw e;
+		} finally {
+			contexts.release(context);
 		}
-		if(loanAmount.compareTo(BigDecimal.ZERO) < 0) {
-			throw new LoanSettingsException("The loan amount must be positive");
+	}
+
+	/**
+	 * The installments are monthly, so they all fall on the day of the month of the first one
+	 * @param parameters The validated loan parameters
+	 * @throws LoanSettingsException If the day of the month of the first reimbursement is after the 28th
+	 */
+	protected void checkFirstReimbursementDate(LoanParameters parameters) throws LoanSettingsException {
+		if(parameters.getFirstReimbursementDate().getDayOfMonth() > 28) {
+			throw new LoanSettingsException("The day of the month for the first reimbursement must be between 1 and 28");
 		}
-		if(balloon != null) {
-			if(balloon.compareTo(loanAmount) > 0) {
-				throw new LoanSettingsException("The balloon must be lower than the loan amount");
-			}
+	}
+
+	/**
+	 * @param parameters The validated loan parameters
+	 * @throws LoanSettingsException If the parameters cannot be calculated for a fixed installment
+	 */
+	private static void checkFixedInstallment(LoanParameters parameters) throws LoanSettingsException {
+		checkAnnualRate(parameters);
+		checkLoanAmount(parameters);
+		checkMonthlyInstallment(parameters);
+	}
+
+	/**
+	 * @param parameters The validated loan parameters
+	 * @throws LoanSettingsException If the parameters cannot be calculated for a fixed duration
+	 */
+	private void checkFixedDuration(LoanParameters parameters) throws LoanSettingsException {
+		checkAnnualRate(parameters);
+		checkLoanAmount(parameters);
+		checkNumberOfInstallments(parameters);
+	}
+
+	/**
+	 * @param parameters The validated loan parameters
+	 * @throws LoanSettingsException If the parameters were built without annual rate
+	 */
+	private static void checkAnnualRate(LoanParameters parameters) throws LoanSettingsException {
+		if(parameters.getAnnualRate() == null) {
+			throw new LoanSettingsException("The annual rate must be set");
 		}
-		if(loanStartDate == null) {
-			throw new LoanSettingsException("The loan start LocalDate must be set");
+	}
+
+	/**
+	 * @param parameters The validated loan parameters
+	 * @throws LoanSettingsException If the parameters were built without loan amount
+	 */
+	private static void checkLoanAmount(LoanParameters parameters) throws LoanSettingsException {
+		if(parameters.getLoanAmount() == null) {
+			throw new LoanSettingsException("The loan amount must be set");
 		}
-		if(firstReimbursementDate == null) {
-			throw new LoanSettingsException("The first reimbursement LocalDate must be set");
+	}
+
+	/**
+	 * @param parameters The validated loan parameters
+	 * @throws LoanSettingsException If the monthly installment is missing
+	 */
+	private static void checkMonthlyInstallment(LoanParameters parameters) throws LoanSettingsException {
+		if(parameters.getMonthlyInstallment() == null) {
+			throw new LoanSettingsException("The desired monthly installment must be set");
 		}
-		if(firstReimbursementDate.isBefore(loanStartDate)) {
-			throw new LoanSettingsException("The first reimbursement LocalDate must be after the loan start LocalDate");
+	}
+
+	/**
+	 * @param parameters The validated loan parameters
+	 * @throws LoanSettingsException If the number of installments is missing or exceeds the maximum
+	 */
+	private void checkNumberOfInstallments(LoanParameters parameters) throws LoanSettingsException {
+		if(parameters.getNumberOfInstallments() == null) {
+			throw new LoanSettingsException("The desired number of installments must be set");
 		}
-		if(new Integer(firstReimbursementDate.getDayOfMonth()) > 28) {
-			throw new LoanSettingsException("The day of the month for the first reimbursement must be between 1 and 28");
+		if(parameters.getNumberOfInstallments() > maximumNumberOfInstallments) {
+			throw new LoanSettingsException("The number of installments cannot exceed " + maximumNumberOfInstallments);
 		}
-		
-		if(numberOfInstallments != null) {
-			if(numberOfInstallments <= 0) {
-				throw new LoanSettingsException("The number of installments must be at least 1");
-			}
+	}
+
+	/**
+	 * @return the maximum number of installments of a loan, the calculations of longer loans being aborted
+	 */
+	public int getMaximumNumberOfInstallments() {
+		return maximumNumberOfInstallments;
+	}
+
+	/**
+	 * The maximum can be changed while calculations are running, it applies to the calculations started afterwards
+	 * @param maximumNumberOfInstallments the maximum number of installments of a loan
+	 */
+	public void setMaximumNumberOfInstallments(int maximumNumberOfInstallments) {
+		if (maximumNumberOfInstallments < 1) {
+			throw new IllegalArgumentException("The maximum number of installments must be at least 1");
 		}
+		this.maximumNumberOfInstallments = maximumNumberOfInstallments;
+	}
 
-		if(monthlyInstallment != null) {
-			if(monthlyInstallment.compareTo(BigDecimal.ZERO) <= 0) {
-				throw new LoanSettingsException("The monthly installments must be positive and cannot be zero");
-			}
+	/**
+	 * @return the instrumentation receiving the measurements of the calculations
+	 */
+	public Instrumentation getInstrumentation() {
+		return instrumentation;
+	}
+
+	/**
+	 * The instrumentation can be changed while calculations are running
+	 * @param instrumentation the instrumentation to set, null to stop measuring
+	 */
+	public void setInstrumentation(Instrumentation instrumentation) {
+		this.instrumentation = instrumentation == null ? Instrumentation.NO_OP : instrumentation;
+	}
+
+	/**
+	 * Report to an Instrumentation service when one is registered, the reference being inherited by the calculator components
+	 * @param instrumentation the instrumentation to bind
+	 */
+	@Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC, unbind = "unbindInstrumentation")
+	protected void bindInstrumentation(Instrumentation instrumentation) {
+		setInstrumentation(instrumentation);
+	}
+
+	/**
+	 * Stop reporting to an Instrumentation service that is unregistered
+	 * @param instrumentation the instrumentation to unbind
+	 */
+	protected void unbindInstrumentation(Instrumentation instrumentation) {
+		if (getInstrumentation() == instrumentation) {
+			setInstrumentation(null);
 		}
+	}
 
+	/**
+	 * Set all the inputs at once
+	 * @param parameters the loan parameters to set
+	 */
+	public void setParameters(LoanParameters parameters) {
+		this.annualRate = parameters.getAnnualRate();
+		this.numberOfInstallments = parameters.getNumberOfInstallments();
+		this.loanAmount = parameters.getLoanAmount();
+		this.balloon = parameters.getBalloon();
+		this.monthlyInstallment = parameters.getMonthlyInstallment();
+		this.loanStartDate = parameters.getLoanStartDate();
+		this.firstReimbursementDate = parameters.getFirstReimbursementDate();
 	}
-	
+
 	/**
 	 * @return the annualRate
 	 */
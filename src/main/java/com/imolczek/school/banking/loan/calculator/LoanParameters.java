@@ -0,0 +1,338 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+
+/**
+ * The immutable inputs of a loan calculation.
+ * Values are normalized the same way the {@link LoanCalculator} setters do: rates with 4 decimals, amounts with 2 decimals.
+ * They are validated once when built, so they can be handed to any number of calculations, concurrently.
+ * Two instances are equal when all their values are equal, so they can be used as keys to cache the results of calculations.
+ * The quantity a calculation solves for may be left out, see {@link Builder#buildWithoutLoanAmount()} and {@link Builder#buildWithoutAnnualRate()}.
+ */
+public final class LoanParameters {
+
+	private final BigDecimal annualRate;
+
+	private final Integer numberOfInstallments;
+
+	private final BigDecimal loanAmount;
+
+	private final BigDecimal balloon;
+
+	private final BigDecimal monthlyInstallment;
+
+	private final LocalDate loanStartDate;
+
+	private final LocalDate firstReimbursementDate;
+
+	/**
+	 * Daily rates derived from the annual rate
+	 */
+	private final DailyRates dailyRates;
+
+	private LoanParameters(Builder builder, BigDecimal annualRate, BigDecimal loanAmount) {
+		this.annualRate = annualRate;
+		this.numberOfInstallments = builder.numberOfInstallments;
+		this.loanAmount = loanAmount;
+		this.balloon = builder.balloon;
+		this.monthlyInstallment = builder.monthlyInstallment;
+		this.loanStartDate = builder.loanStartDate;
+		this.firstReimbursementDate = builder.firstReimbursementDate;
+		if (annualRate == null) {
+			this.dailyRates = null;
+		} else {
+			this.dailyRates = builder.dailyRates != null && builder.dailyRates.appliesTo(annualRate) ? builder.dailyRates : new DailyRates(annualRate);
+		}
+	}
+
+	/**
+	 * @return a builder with no value set
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return a builder initialized with the values of these parameters
+	 */
+	public Builder toBuilder() {
+		return new Builder()
+				.annualRate(annualRate)
+				.numberOfInstallments(numberOfInstallments)
+				.loanAmount(loanAmount)
+				.balloon(balloon)
+				.monthlyInstallment(monthlyInstallment)
+				.loanStartDate(loanStartDate)
+				.firstReimbursementDate(firstReimbursementDate)
+				.dailyRates(dailyRates);
+	}
+
+	/**
+	 * @return the annualRate, null if the parameters were built without it
+	 */
+	public BigDecimal getAnnualRate() {
+		return annualRate;
+	}
+
+	/**
+	 * @return the numberOfInstallments
+	 */
+	public Integer getNumberOfInstallments() {
+		return numberOfInstallments;
+	}
+
+	/**
+	 * @return the loanAmount, null if the parameters were built without it
+	 */
+	public BigDecimal getLoanAmount() {
+		return loanAmount;
+	}
+
+	/**
+	 * @return the balloon
+	 */
+	public BigDecimal getBalloon() {
+		return balloon;
+	}
+
+	/**
+	 * @return the monthlyInstallment
+	 */
+	public BigDecimal getMonthlyInstallment() {
+		return monthlyInstallment;
+	}
+
+	/**
+	 * @return the loanStartDate
+	 */
+	public LocalDate getLoanStartDate() {
+		return loanStartDate;
+	}
+
+	/**
+	 * @return the firstReimbursementDate
+	 */
+	public LocalDate getFirstReimbursementDate() {
+		return firstReimbursementDate;
+	}
+
+	/**
+	 * @return the dailyRates, null if the parameters were built without an annual rate
+	 */
+	public DailyRates getDailyRates() {
+		return dailyRates;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof LoanParameters)) {
+			return false;
+		}
+		LoanParameters other = (LoanParameters) obj;
+		return Objects.equals(annualRate, other.annualRate)
+				&& Objects.equals(loanAmount, other.loanAmount)
+				&& balloon.equals(other.balloon)
+				&& loanStartDate.equals(other.loanStartDate)
+				&& firstReimbursementDate.equals(other.firstReimbursementDate)
+				&& Objects.equals(numberOfInstallments, other.numberOfInstallments)
+				&& Objects.equals(monthlyInstallment, other.monthlyInstallment);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(annualRate, numberOfInstallments, loanAmount, balloon, monthlyInstallment, loanStartDate, firstReimbursementDate);
+	}
+
+	@Override
+	public String toString() {
+		return "LoanParameters [annualRate=" + annualRate + ", numberOfInstallments=" + numberOfInstallments + ", loanAmount=" + loanAmount
+				+ ", balloon=" + balloon + ", monthlyInstallment=" + monthlyInstallment + ", loanStartDate=" + loanStartDate
+				+ ", firstReimbursementDate=" + firstReimbursementDate + "]";
+	}
+
+	/**
+	 * Collects the values of the loan parameters
+	 */
+	public static final class Builder {
+
+		private BigDecimal annualRate;
+
+		private Integer numberOfInstallments;
+
+		private BigDecimal loanAmount;
+
+		private BigDecimal balloon = BigDecimal.ZERO.setScale(2);
+
+		private BigDecimal monthlyInstallment;
+
+		private LocalDate loanStartDate;
+
+		private LocalDate firstReimbursementDate;
+
+		private DailyRates dailyRates;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param annualRate the annualRate to set, 5% must be provided as 0.05
+		 * @return this builder
+		 */
+		public Builder annualRate(BigDecimal annualRate) {
+			this.annualRate = annualRate == null ? null : annualRate.setScale(4, BigDecimal.ROUND_HALF_UP);
+			return this;
+		}
+
+		/**
+		 * @param numberOfInstallments the numberOfInstallments to set
+		 * @return this builder
+		 */
+		public Builder numberOfInstallments(Integer numberOfInstallments) {
+			this.numberOfInstallments = numberOfInstallments;
+			return this;
+		}
+
+		/**
+		 * @param loanAmount the loanAmount to set
+		 * @return this builder
+		 */
+		public Builder loanAmount(BigDecimal loanAmount) {
+			this.loanAmount = loanAmount == null ? null : loanAmount.setScale(2, BigDecimal.ROUND_HALF_UP);
+			return this;
+		}
+
+		/**
+		 * @param balloon the balloon to set
+		 * @return this builder
+		 */
+		public Builder balloon(BigDecimal balloon) {
+			this.balloon = balloon == null ? null : balloon.setScale(2, BigDecimal.ROUND_HALF_UP);
+			return this;
+		}
+
+		/**
+		 * @param monthlyInstallment the monthlyInstallment to set
+		 * @return this builder
+		 */
+		public Builder monthlyInstallment(BigDecimal monthlyInstallment) {
+			this.monthlyInstallment = monthlyInstallment == null ? null : monthlyInstallment.setScale(2, BigDecimal.ROUND_HALF_UP);
+			return this;
+		}
+
+		/**
+		 * @param loanStartDate the loanStartDate to set
+		 * @return this builder
+		 */
+		public Builder loanStartDate(LocalDate loanStartDate) {
+			this.loanStartDate = loanStartDate;
+			return this;
+		}
+
+		/**
+		 * @param firstReimbursementDate the firstReimbursementDate to set
+		 * @return this builder
+		 */
+		public Builder firstReimbursementDate(LocalDate firstReimbursementDate) {
+			this.firstReimbursementDate = firstReimbursementDate;
+			return this;
+		}
+
+		/**
+		 * Share daily rates already derived from the same annual rate, they are ignored if the annual rate differs
+		 * @param dailyRates the dailyRates to set
+		 * @return this builder
+		 */
+		public Builder dailyRates(DailyRates dailyRates) {
+			this.dailyRates = dailyRates;
+			return this;
+		}
+
+		/**
+		 * Validate the input data for all calculation cases
+		 * @return the loan parameters
+		 * @throws LoanSettingsException
+		 */
+		public LoanParameters build() throws LoanSettingsException {
+			return build(true, true);
+		}
+
+		/**
+		 * Validate the input data of the calculation of the highest loan amount, which solves for the loan amount:
+		 * the loan amount is left out of the parameters, whether it is set or not
+		 * @return the loan parameters, without loan amount
+		 * @throws LoanSettingsException
+		 * @see LoanCalculationService#calculateMaximumLoanAmount(LoanParameters)
+		 */
+		public LoanParameters buildWithoutLoanAmount() throws LoanSettingsException {
+			return build(true, false);
+		}
+
+		/**
+		 * Validate the input data of the calculation of the annual rate for an APR, which solves for the annual rate:
+		 * the annual rate is left out of the parameters, whether it is set or not
+		 * @return the loan parameters, without annual rate
+		 * @throws LoanSettingsException
+		 * @see LoanCalculationService#calculateAnnualRateForAPR(LoanParameters, BigDecimal)
+		 */
+		public LoanParameters buildWithoutAnnualRate() throws LoanSettingsException {
+			return build(false, true);
+		}
+
+		private LoanParameters build(boolean withAnnualRate, boolean withLoanAmount) throws LoanSettingsException {
+			if(withAnnualRate) {
+				if(annualRate == null) {
+					throw new LoanSettingsException("The annual rate must be set");
+				}
+				if(annualRate.compareTo(BigDecimal.ZERO) < 0) {
+					throw new LoanSettingsException("The annual rate must be positive");
+				}
+			}
+			if(withLoanAmount) {
+				if(loanAmount == null) {
+					throw new LoanSettingsException("The loan amount must be set");
+				}
+				if(loanAmount.compareTo(BigDecimal.ZERO) < 0) {
+					throw new LoanSettingsException("The loan amount must be positive");
+				}
+			}
+			if(balloon == null) {
+				balloon = BigDecimal.ZERO.setScale(2);
+			}
+			if(withLoanAmount && balloon.compareTo(loanAmount) > 0) {
+				throw new LoanSettingsException("The balloon must be lower than the loan amount");
+			}
+			if(loanStartDate == null) {
+				throw new LoanSettingsException("The loan start LocalDate must be set");
+			}
+			if(firstReimbursementDate == null) {
+				throw new LoanSettingsException("The first reimbursement LocalDate must be set");
+			}
+			if(firstReimbursementDate.isBefore(loanStartDate)) {
+				throw new LoanSettingsException("The first reimbursement LocalDate must be after the loan start LocalDate");
+			}
+			
+			if(numberOfInstallments != null) {
+				if(numberOfInstallments <= 0) {
+					throw new LoanSettingsException("The number of installments must be at least 1");
+				}
+			}
+
+			if(monthlyInstallment != null) {
+				if(monthlyInstallment.compareTo(BigDecimal.ZERO) <= 0) {
+					throw new LoanSettingsException("The monthly installments must be positive and cannot be zero");
+				}
+			}
+
+			return new LoanParameters(this, withAnnualRate ? annualRate : null, withLoanAmount ? loanAmount : null);
+		}
+
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The key figures of a loan calculation, without its amortization schedule
+ */
+public class LoanSummary {
+
+	private final BigDecimal apr;
+
+	private final BigDecimal totalInterest;
+
+	private final int numberOfInstallments;
+
+	private final BigDecimal lastInstallment;
+
+	private final LocalDate lastReimbursementDate;
+
+	/**
+	 * @param apr the APR
+	 * @param totalInterest the sum of the interests of all the installments
+	 * @param numberOfInstallments the number of installments
+	 * @param lastInstallment the amount of the last installment, null if there is no installment
+	 * @param lastReimbursementDate the date of the last installment, null if there is no installment
+	 */
+	public LoanSummary(BigDecimal apr, BigDecimal totalInterest, int numberOfInstallments, BigDecimal lastInstallment, LocalDate lastReimbursementDate) {
+		this.apr = apr;
+		this.totalInterest = totalInterest;
+		this.numberOfInstallments = numberOfInstallments;
+		this.lastInstallment = lastInstallment;
+		this.lastReimbursementDate = lastReimbursementDate;
+	}
+
+	/**
+	 * @return the apr
+	 */
+	public BigDecimal getApr() {
+		return apr;
+	}
+
+	/**
+	 * @return the totalInterest
+	 */
+	public BigDecimal getTotalInterest() {
+		return totalInterest;
+	}
+
+	/**
+	 * @return the numberOfInstallments
+	 */
+	public int getNumberOfInstallments() {
+		return numberOfInstallments;
+	}
+
+	/**
+	 * @return the lastInstallment
+	 */
+	public BigDecimal getLastInstallment() {
+		return lastInstallment;
+	}
+
+	/**
+	 * @return the lastReimbursementDate
+	 */
+	public LocalDate getLastReimbursementDate() {
+		return lastReimbursementDate;
+	}
+
+}
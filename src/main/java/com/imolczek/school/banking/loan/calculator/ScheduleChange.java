@@ -0,0 +1,90 @@
+package com.imolczek.school.banking.loan.calculator;
+
+import java.math.BigDecimal;
+
+/**
+ * A change applied to an existing amortization schedule from a given installment on.
+ * The installments before it are unaffected and are not recalculated.
+ */
+public final class ScheduleChange {
+
+	/**
+	 * The kinds of changes
+	 */
+	public enum Type {
+
+		/**
+		 * An extra amount reimbursed together with the installment, the following installments are unchanged
+		 * so the loan is reimbursed sooner
+		 */
+		PREPAYMENT,
+
+		/**
+		 * A new annual rate applied to the interests of the installment and of all the following ones
+		 */
+		RATE_CHANGE
+
+	}
+
+	private final Type type;
+
+	private final int period;
+
+	private final BigDecimal amount;
+
+	private final BigDecimal annualRate;
+
+	private ScheduleChange(Type type, int period, BigDecimal amount, BigDecimal annualRate) {
+		this.type = type;
+		this.period = period;
+		this.amount = amount;
+		this.annualRate = annualRate;
+	}
+
+	/**
+	 * @param period The number of the installment the extra amount is paid with, starting at 1
+	 * @param amount The extra amount, limited to what remains to be reimbursed above the balloon
+	 * @return a prepayment
+	 */
+	public static ScheduleChange prepayment(int period, BigDecimal amount) {
+		return new ScheduleChange(Type.PREPAYMENT, period, amount == null ? null : amount.setScale(2, BigDecimal.ROUND_HALF_UP), null);
+	}
+
+	/**
+	 * @param period The number of the first installment whose interests are calculated with the new rate, starting at 1
+	 * @param annualRate The new annual rate, 5% must be provided as 0.05
+	 * @return a rate change
+	 */
+	public static ScheduleChange rateChange(int period, BigDecimal annualRate) {
+		return new ScheduleChange(Type.RATE_CHANGE, period, null, annualRate == null ? null : annualRate.setScale(4, BigDecimal.ROUND_HALF_UP));
+	}
+
+	/**
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the period
+	 */
+	public int getPeriod() {
+		return period;
+	}
+
+	/**
+	 * @return the amount of a prepayment, null for a rate change
+	 */
+	public BigDecimal getAmount() {
+		return amount;
+	}
+
+	/**
+	 * @return the annual rate of a rate change, null for a prepayment
+	 */
+	public BigDecimal getAnnualRate() {
+		return annualRate;
+	}
+
+}
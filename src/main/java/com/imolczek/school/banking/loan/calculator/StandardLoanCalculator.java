@@ -1,95 +1,360 @@
 package com.imolczek.school.banking.loan.calculator;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.function.LongToDoubleFunction;
 
+import org.osgi.service.component.annotations.Component;
+
+import com.imolczek.school.banking.loan.calculator.apr.NewtonRaphsonAPRSolver;
 import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentCalendar;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentCalendars;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentFrequency;
 import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
-import com.imolczek.school.banking.loan.model.CashStream;
-import com.imolczek.school.banking.loan.model.LoanCalculationResult;
 
 /**
  * @author Fabian Bouch
  * This calculator applies interests on a daily basis
+ * It keeps no state between calculations, so a single instance is registered as an OSGi service
+ * The amortization schedule is calculated either on BigDecimal or on long numbers of cents, see {@link CalculationEngine}
  */
-public class StandardLoanCalculator extends LoanCalculator {
+@Component(service = LoanCalculationService.class)
+public class StandardLoanCalculator extends AbstractPeriodLoanCalculator {
+
+	/**
+	 * Number of days of a month on average over four years, one of them being a leap year
+	 */
+	private static final double DAYS_365_PER_MONTH = 3 * 365 / 48d;
+
+	private static final double DAYS_366_PER_MONTH = 366 / 48d;
+
+	private final CalculationEngine engine;
+
+	/**
+	 * Whether a subclass still overrides {@link #getInterests(BigDecimal, long, long)}
+	 */
+	private final boolean legacyInterests;
+
+	public StandardLoanCalculator() {
+		this(CalculationEngine.BIG_DECIMAL);
+	}
+
+	/**
+	 * @param engine The arithmetic used to calculate the amortization schedule
+	 */
+	public StandardLoanCalculator(CalculationEngine engine) {
+		this(new LoanDateUtil(), engine);
+	}
+
+	private StandardLoanCalculator(LoanDateUtil dateUtil, CalculationEngine engine) {
+		this(dateUtil, new APRCalculator(new NewtonRaphsonAPRSolver(), dateUtil), engine);
+	}
+
+	/**
+	 * Both collaborators are stateless and can be shared between calculators
+	 * @param dateUtil The day-count engine
+	 * @param aprCalculator The APR calculator
+	 */
+	public StandardLoanCalculator(LoanDateUtil dateUtil, APRCalculator aprCalculator) {
+		this(dateUtil, aprCalculator, CalculationEngine.BIG_DECIMAL);
+	}
+
+	/**
+	 * Both collaborators are stateless and can be shared between calculators
+	 * @param dateUtil The day-count engine
+	 * @param aprCalculator The APR calculator
+	 * @param engine The arithmetic used to calculate the amortization schedule
+	 */
+	public StandardLoanCalculator(LoanDateUtil dateUtil, APRCalculator aprCalculator, CalculationEngine engine) {
+		this(dateUtil, aprCalculator, engine, new PaymentCalendars(dateUtil));
+	}
+
+	/**
+	 * All the collaborators are thread-safe and can be shared between calculators
+	 * @param dateUtil The day-count engine
+	 * @param aprCalculator The APR calculator
+	 * @param engine The arithmetic used to calculate the amortization schedule
+	 * @param calendars The reimbursement dates shared between calculations
+	 */
+	public StandardLoanCalculator(LoanDateUtil dateUtil, APRCalculator aprCalculator, CalculationEngine engine, PaymentCalendars calendars) {
+		super(dateUtil, aprCalculator, PaymentFrequency.MONTHLY, calendars);
+		this.engine = engine;
+		this.legacyInterests = overridesLegacyInterests(getClass());
+	}
+
+	private static boolean overridesLegacyInterests(Class<?> type) {
+		for (Class<?> c = type; c != StandardLoanCalculator.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("getInterests", BigDecimal.class, long.class, long.class);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// Not overridden at this level
+			}
+		}
+		return false;
+	}
 
-	private LoanDateUtil dateUtil = new LoanDateUtil();
-	
 	@Override
-	protected LoanCalculationResult doCalculateForFixedInstallment() throws LoanCalculationException {
-		LoanCalculationResult result = new LoanCalculationResult();
-		
-		BigDecimal remainingBalance = loanAmount;
-		LocalDate currentDate = loanStartDate;
-
-		CashStream initialCashStream = new CashStream();
-		initialCashStream.setAmount(loanAmount.negate());
-		initialCashStream.setDate(loanStartDate);
-		
-		result.getAmortizationSchedule().getCashStreamList().add(initialCashStream);
-		
-		while(remainingBalance.compareTo(balloon) > 0) {
-			LocalDate nextDate = getNextReimbursementDate(currentDate);
-			long daysOfInterest365 = dateUtil.getNumberOfDays365BetweenDates(currentDate, nextDate);
-			long daysOfInterest366 = dateUtil.getNumberOfDays366BetweenDates(currentDate, nextDate);
-			currentDate = nextDate;
-			
-			BigDecimal interest = getInterests(remainingBalance, daysOfInterest365, daysOfInterest366);
-			BigDecimal fees = BigDecimal.ZERO;
-			BigDecimal insuranceCost = BigDecimal.ZERO;
+	public AmortizationCursor openAmortizationCursor(LoanParameters parameters, int period, LocalDate date, BigDecimal remainingBalance) throws LoanCalculationException {
+		if (engine == CalculationEngine.LONG_CENTS) {
+			return new LongCentsAmortizationCursor(parameters, period, date, remainingBalance);
+		}
+		return new StandardAmortizationCursor(parameters, period, date, remainingBalance);
+	}
+
+	/**
+	 * The accrual of a period is its days of interest, as returned by {@link LoanDateUtil#getNumberOfDaysBetweenDates(LocalDate, LocalDate)}
+	 */
+	@Override
+	protected long getAccrual(LocalDate start, LocalDate end) throws LoanCalculationException {
+		return getDateUtil().getNumberOfDaysBetweenDates(start, end);
+	}
+
+	@Override
+	protected long getAccrual(PaymentCalendar calendar, int index) {
+		return calendar.getDaysOfInterest(index);
+	}
+
+	@Override
+	protected LongToDoubleFunction getPeriodRates(LoanParameters parameters) {
+		double rate365 = parameters.getDailyRates().getRate365().doubleValue();
+		double rate366 = parameters.getDailyRates().getRate366().doubleValue();
+		return daysOfInterest -> LoanDateUtil.getDays365(daysOfInterest) * rate365 + LoanDateUtil.getDays366(daysOfInterest) * rate366;
+	}
+
+	@Override
+	protected double getAveragePeriodRate(LoanParameters parameters) {
+		return DAYS_365_PER_MONTH * parameters.getDailyRates().getRate365().doubleValue() + DAYS_366_PER_MONTH * parameters.getDailyRates().getRate366().doubleValue();
+	}
+
+	@Override
+	protected BigDecimal getInterests(LoanParameters parameters, BigDecimal remainingBalance, long daysOfInterest) {
+		if (legacyInterests) {
+			return getInterests(remainingBalance, LoanDateUtil.getDays365(daysOfInterest), LoanDateUtil.getDays366(daysOfInterest));
+		}
+		return getInterests(remainingBalance, parameters.getDailyRates(), LoanDateUtil.getDays365(daysOfInterest), LoanDateUtil.getDays366(daysOfInterest));
+	}
+
+	/**
+	 * Calculates the interests for the installment with the annual rate set on this calculator
+	 * @param remainingBalance Current remaining balance
+	 * @param daysOfInterest365 Number of days in a standard year the interests have to be calculated for
+	 * @param daysOfInterest366 Number of days in a leap year the interests have to be calculated for
+	 * @return The amount of interests
+	 * @deprecated The rate of a calculation is that of its {@link LoanParameters}, see {@link #getInterests(BigDecimal, DailyRates, long, long)}.
+	 * Overrides are still called by the {@link CalculationEngine#BIG_DECIMAL} engine, but they only see the rate of the calculations of the inputs set on this calculator.
+	 */
+	@Deprecated
+	protected BigDecimal getInterests(BigDecimal remainingBalance, long daysOfInterest365, long daysOfInterest366) {
+		return getInterests(remainingBalance, new DailyRates(annualRate), daysOfInterest365, daysOfInterest366);
+	}
+
+	/**
+	 * Calculates the interests for the installment
+	 * Beware that the daily interest rate has a different value for a leap year and that some installments may cover a standard and a leap year
+	 * @param remainingBalance Current remaining balance
+	 * @param dailyRates Daily rates derived from the annual rate
+	 * @param daysOfInterest365 Number of days in a standard year the interests have to be calculated for
+	 * @param daysOfInterest366 Number of days in a leap year the interests have to be calculated for
+	 * @return The amount of interests
+	 */
+	protected BigDecimal getInterests(BigDecimal remainingBalance, DailyRates dailyRates, long daysOfInterest365, long daysOfInterest366) {
+		BigDecimal days365 = new BigDecimal(daysOfInterest365);
+		BigDecimal days366 = new BigDecimal(daysOfInterest366);
+		BigDecimal interests = remainingBalance.multiply((days365.multiply(dailyRates.getRate365()).add(days366.multiply(dailyRates.getRate366())))).setScale(2, BigDecimal.ROUND_HALF_UP);
+		return interests;
+	}
+
+	/**
+	 * Applies interests on a daily basis to the remaining balance, then pays the monthly installment,
+	 * or the remaining balance above the balloon if it is lower
+	 */
+	private class StandardAmortizationCursor extends PeriodCursor {
+
+		private final BigDecimal balloon;
+
+		private final BigDecimal monthlyInstallment;
+
+		private final DailyRates dailyRates;
+
+		private BigDecimal amount;
+
+		private BigDecimal interest;
+
+		private BigDecimal principalRepaymentAmount;
+
+		private BigDecimal remainingBalance;
+
+		private StandardAmortizationCursor(LoanParameters parameters, int period, LocalDate date, BigDecimal remainingBalance) {
+			super(parameters, period, date);
+			this.balloon = parameters.getBalloon();
+			this.monthlyInstallment = parameters.getMonthlyInstallment();
+			this.dailyRates = parameters.getDailyRates();
+			this.remainingBalance = remainingBalance;
+		}
+
+		@Override
+		protected boolean isReimbursed() {
+			return remainingBalance.compareTo(balloon) <= 0;
+		}
+
+		@Override
+		protected void pay(long daysOfInterest) {
+			interest = legacyInterests ? getInterests(remainingBalance, LoanDateUtil.getDays365(daysOfInterest), LoanDateUtil.getDays366(daysOfInterest))
+					: getInterests(remainingBalance, dailyRates, LoanDateUtil.getDays365(daysOfInterest), LoanDateUtil.getDays366(daysOfInterest));
+			BigDecimal fees = getFees();
+			BigDecimal insuranceCost = getInsuranceCost();
 			
 			remainingBalance = remainingBalance.add(interest);
 			remainingBalance = remainingBalance.add(insuranceCost);
 			remainingBalance = remainingBalance.add(fees);
 			
-			CashStream cashStream = new CashStream();
-			cashStream.setDate(currentDate);
-			cashStream.setInsuranceCost(insuranceCost);
-			cashStream.setFees(fees);
-			cashStream.setInterest(interest);
-
-			BigDecimal principalRepaymentAmount;
 			if (monthlyInstallment.compareTo(remainingBalance.subtract(balloon)) < 0) {
 				remainingBalance = remainingBalance.subtract(monthlyInstallment);
-				cashStream.setAmount(monthlyInstallment);
+				amount = monthlyInstallment;
 				principalRepaymentAmount = monthlyInstallment.subtract(insuranceCost).subtract(interest).subtract(fees);
 			} else {
-				cashStream.setAmount(remainingBalance.subtract(balloon));
+				amount = remainingBalance.subtract(balloon);
 				principalRepaymentAmount = remainingBalance.subtract(balloon).subtract(insuranceCost).subtract(interest).subtract(fees);
 				remainingBalance = balloon;
 			}
+		}
+
+		@Override
+		public BigDecimal getAmount() {
+			return amount;
+		}
+
+		@Override
+		public BigDecimal getInterest() {
+			return interest;
+		}
 
-			cashStream.setPrincipalRepaymentAmount(principalRepaymentAmount);
+		@Override
+		public BigDecimal getPrincipalRepaymentAmount() {
+			return principalRepaymentAmount;
+		}
 
-			result.getAmortizationSchedule().getCashStreamList().add(cashStream);
+		@Override
+		public BigDecimal getRemainingBalance() {
+			return remainingBalance;
 		}
-		
-		APRCalculator aprCalculator = new APRCalculator();
-		aprCalculator.calculateAPR(result);
-		
-		result.calculateTotalInterest();
-		
-		return result;
-	}	
+
+	}
 
 	/**
-	 * Calculates the interests for the installment
-	 * Beware that the daily interest rate has a different value for a leap year and that some installments may cover a standard and a leap year
-	 * @param remainingBalance Current remaining balance
-	 * @param daysOfInterest365 Number of days in a standard year the interests have to be calculated for
-	 * @param daysOfInterest366 Number of days in a leap year the interests have to be calculated for
-	 * @return The amount of interests
+	 * The same calculation as {@link StandardAmortizationCursor} on long numbers of cents.
+	 * The daily rates have 4 decimals, so the interests are a number of 1/1000000 rounded HALF_UP to the cent.
 	 */
-	protected BigDecimal getInterests(BigDecimal remainingBalance, long daysOfInterest365, long daysOfInterest366) {
-		BigDecimal days365 = new BigDecimal(daysOfInterest365);
-		BigDecimal days366 = new BigDecimal(daysOfInterest366);
-		BigDecimal big365 = new BigDecimal(365);
-		BigDecimal big366 = new BigDecimal(366);
-		BigDecimal interests = remainingBalance.multiply((days365.multiply(annualRate.divide(big365, 4, RoundingMode.HALF_UP)).add(days366.multiply(annualRate.divide(big366, 4, RoundingMode.HALF_UP))))).setScale(2, BigDecimal.ROUND_HALF_UP);
-		return interests;
+	private class LongCentsAmortizationCursor extends PeriodCursor {
+
+		private static final long INTEREST_UNIT = 10000L;
+
+		private final long balloon;
+
+		private final long monthlyInstallment;
+
+		private final long rate365;
+
+		private final long rate366;
+
+		private long amount;
+
+		private long interest;
+
+		private long principalRepaymentAmount;
+
+		private long remainingBalance;
+
+		private LongCentsAmortizationCursor(LoanParameters parameters, int period, LocalDate date, BigDecimal remainingBalance) throws LoanCalculationException {
+			super(parameters, period, date);
+			this.balloon = AmortizationCursor.toCents(parameters.getBalloon());
+			this.monthlyInstallment = AmortizationCursor.toCents(parameters.getMonthlyInstallment());
+			this.rate365 = parameters.getDailyRates().getRate365().unscaledValue().longValueExact();
+			this.rate366 = parameters.getDailyRates().getRate366().unscaledValue().longValueExact();
+			this.remainingBalance = AmortizationCursor.toCents(remainingBalance);
+		}
+
+		@Override
+		protected boolean isReimbursed() {
+			return remainingBalance <= balloon;
+		}
+
+		@Override
+		protected void pay(long daysOfInterest) throws LoanCalculationException {
+			try {
+				long product = Math.multiplyExact(remainingBalance, LoanDateUtil.getDays365(daysOfInterest) * rate365 + LoanDateUtil.getDays366(daysOfInterest) * rate366);
+				interest = product / INTEREST_UNIT;
+				if (Math.abs(product % INTEREST_UNIT) * 2 >= INTEREST_UNIT) {
+					interest += Long.signum(product);
+				}
+			} catch (ArithmeticException e) {
+				throw new LoanCalculationException("The interests exceed the capacity of the long cents engine");
+			}
+
+			remainingBalance += interest;
+			
+			if (monthlyInstallment < remainingBalance - balloon) {
+				remainingBalance -= monthlyInstallment;
+				amount = monthlyInstallment;
+			} else {
+				amount = remainingBalance - balloon;
+				remainingBalance = balloon;
+			}
+			principalRepaymentAmount = amount - interest;
+		}
+
+		@Override
+		public BigDecimal getAmount() {
+			return BigDecimal.valueOf(amount, 2);
+		}
+
+		@Override
+		public BigDecimal getInterest() {
+			return BigDecimal.valueOf(interest, 2);
+		}
+
+		@Override
+		public BigDecimal getPrincipalRepaymentAmount() {
+			return BigDecimal.valueOf(principalRepaymentAmount, 2);
+		}
+
+		@Override
+		public BigDecimal getRemainingBalance() {
+			return BigDecimal.valueOf(remainingBalance, 2);
+		}
+
+		@Override
+		public long getAmountCents() {
+			return amount;
+		}
+
+		@Override
+		public long getInterestCents() {
+			return interest;
+		}
+
+		@Override
+		public long getFeesCents() {
+			return 0;
+		}
+
+		@Override
+		public long getInsuranceCostCents() {
+			return 0;
+		}
+
+		@Override
+		public long getPrincipalRepaymentAmountCents() {
+			return principalRepaymentAmount;
+		}
+
+		@Override
+		public long getRemainingBalanceCents() {
+			return remainingBalance;
+		}
+
 	}
-	
-	
-}
+
+}
\ No newline at end of file
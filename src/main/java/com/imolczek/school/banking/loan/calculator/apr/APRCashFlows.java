@@ -0,0 +1,269 @@
+package com.imolczek.school.banking.loan.calculator.apr;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.model.AmortizationSchedule;
+import com.imolczek.school.banking.loan.model.CashStream;
+
+/**
+ * The cash streams of a loan compiled for the APR calculation.
+ * Every cash stream is reduced to its amount and to the exponent of its discount factor, that is the number of years
+ * elapsed since the first cash stream, leap years counting 366 days (days365 / 365 + days366 / 366).
+ * These never change while the APR is searched, so they are computed once and every solver iteration only performs
+ * arithmetic on primitive arrays.
+ * The arrays passed to the constructors are copied, only the cash streams built by a {@link Builder} share its arrays.
+ */
+public class APRCashFlows implements NetPresentValueFunction {
+
+	private final double[] amounts;
+
+	private final double[] exponents;
+
+	/**
+	 * Number of cash streams, the arrays may be longer
+	 */
+	private final int size;
+
+	/**
+	 * @param amounts The amounts of the cash streams, negative when lent to the borrower
+	 * @param exponents The exponents of the discount factors, in years
+	 */
+	public APRCashFlows(double[] amounts, double[] exponents) {
+		this(amounts, exponents, amounts.length);
+	}
+
+	/**
+	 * @param amounts The amounts of the cash streams, negative when lent to the borrower
+	 * @param exponents The exponents of the discount factors, in years
+	 * @param size The number of cash streams, the first ones of both arrays
+	 */
+	public APRCashFlows(double[] amounts, double[] exponents, int size) {
+		if (size > amounts.length || size > exponents.length) {
+			throw new IllegalArgumentException("There must be as many exponents and amounts as cash streams");
+		}
+		this.amounts = Arrays.copyOf(amounts, size);
+		this.exponents = Arrays.copyOf(exponents, size);
+		this.size = size;
+	}
+
+	/**
+	 * Shares the arrays of the builder, which owns them
+	 * @param builder The builder of the cash streams
+	 */
+	private APRCashFlows(Builder builder) {
+		this.amounts = builder.amounts;
+		this.exponents = builder.exponents;
+		this.size = builder.size;
+	}
+
+	/**
+	 * The exponent of the discount factor of a cash stream
+	 * @param days365 Number of days in a standard year since the first cash stream
+	 * @param days366 Number of days in a leap year since the first cash stream
+	 * @return The number of years since the first cash stream
+	 */
+	public static double getExponent(long days365, long days366) {
+		return days365 / 365d + days366 / 366d;
+	}
+
+	/**
+	 * Compile the cash streams of an amortization schedule.
+	 * The balance the principal repayments leave outstanding, the balloon, is repaid with the last cash stream.
+	 * @param amortizationSchedule The amortization schedule, starting with the loan disbursement
+	 * @param dateUtil The day-count engine
+	 * @return The compiled cash streams
+	 * @throws LoanCalculationException
+	 */
+	public static APRCashFlows compile(AmortizationSchedule amortizationSchedule, LoanDateUtil dateUtil) throws LoanCalculationException {
+		return compile(amortizationSchedule, dateUtil, new Builder(amortizationSchedule.getCashStreamList().size()));
+	}
+
+	/**
+	 * Compile the cash streams of an amortization schedule into a builder, which is cleared beforehand.
+	 * The balance the principal repayments leave outstanding, the balloon, is repaid with the last cash stream.
+	 * @param amortizationSchedule The amortization schedule, starting with the loan disbursement
+	 * @param dateUtil The day-count engine
+	 * @param builder The builder whose arrays are reused
+	 * @return The compiled cash streams, sharing the arrays of the builder
+	 * @throws LoanCalculationException
+	 */
+	public static APRCashFlows compile(AmortizationSchedule amortizationSchedule, LoanDateUtil dateUtil, Builder builder) throws LoanCalculationException {
+		List<CashStream> cashStreamList = amortizationSchedule.getCashStreamList();
+		builder.clear();
+		CashStream disbursement = cashStreamList.get(0);
+		LocalDate start = disbursement.getDate();
+		builder.add(disbursement.getAmount().doubleValue(), 0, 0);
+		BigDecimal outstanding = disbursement.getAmount().negate();
+		for (int i = 1; i < cashStreamList.size(); i++) {
+			CashStream stream = cashStreamList.get(i);
+			long dayCount = dateUtil.getNumberOfDaysBetweenDates(start, stream.getDate());
+			builder.add(stream.getAmount().doubleValue(), LoanDateUtil.getDays365(dayCount), LoanDateUtil.getDays366(dayCount));
+			// Without principal repayments the balloon cannot be told apart from the installments
+			if (outstanding != null) {
+				outstanding = stream.getPrincipalRepaymentAmount() == null ? null : outstanding.subtract(stream.getPrincipalRepaymentAmount());
+			}
+		}
+		if (outstanding != null && outstanding.signum() > 0) {
+			builder.addToLast(outstanding.doubleValue());
+		}
+		return builder.build();
+	}
+
+	@Override
+	public double valueAt(double rate) {
+		double logRate = Math.log1p(rate);
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += amounts[i] * Math.exp(-exponents[i] * logRate);
+		}
+		return sum;
+	}
+
+	@Override
+	public double derivativeAt(double rate) {
+		double logRate = Math.log1p(rate);
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum -= exponents[i] * amounts[i] * Math.exp(-exponents[i] * logRate);
+		}
+		return sum / (1 + rate);
+	}
+
+	/**
+	 * Evaluates the rates one after the other, each discount factor being computed once for the value and the derivative,
+	 * without allocating anything. The results are the same as those of {@link #valueAt(double)} and {@link #derivativeAt(double)}.
+	 */
+	@Override
+	public void evaluate(double[] rates, double[] values, double[] derivatives) {
+		int count = rates.length;
+		if (values.length < count || derivatives != null && derivatives.length < count) {
+			throw new IllegalArgumentException("There must be a value and a derivative for every rate");
+		}
+		for (int j = 0; j < count; j++) {
+			double logRate = Math.log1p(rates[j]);
+			double value = 0;
+			double derivative = 0;
+			for (int i = 0; i < size; i++) {
+				double discountFactor = Math.exp(-exponents[i] * logRate);
+				value += amounts[i] * discountFactor;
+				derivative -= exponents[i] * amounts[i] * discountFactor;
+			}
+			values[j] = value;
+			if (derivatives != null) {
+				derivatives[j] = derivative / (1 + rates[j]);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of cash streams
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param index the index of the cash stream
+	 * @return the amount of the cash stream
+	 */
+	public double getAmount(int index) {
+		return amounts[index];
+	}
+
+	/**
+	 * @param index the index of the cash stream
+	 * @return the exponent of the discount factor of the cash stream
+	 */
+	public double getExponent(int index) {
+		return exponents[index];
+	}
+
+	/**
+	 * Collects cash streams one at a time, for callers producing them without an amortization schedule.
+	 * A builder can be cleared and reused, its arrays growing as needed and never shrinking; the cash streams it built
+	 * share these arrays, so they must no longer be used once it is cleared.
+	 */
+	public static class Builder {
+
+		private static final int INITIAL_CAPACITY = 64;
+
+		private double[] amounts;
+
+		private double[] exponents;
+
+		private int size;
+
+		public Builder() {
+			this(INITIAL_CAPACITY);
+		}
+
+		/**
+		 * @param capacity The number of cash streams expected
+		 */
+		public Builder(int capacity) {
+			amounts = new double[Math.max(1, capacity)];
+			exponents = new double[Math.max(1, capacity)];
+		}
+
+		/**
+		 * @return the number of cash streams the builder holds without growing its arrays
+		 */
+		public int capacity() {
+			return amounts.length;
+		}
+
+		/**
+		 * Forget the cash streams added, keeping the arrays
+		 * @return this builder
+		 */
+		public Builder clear() {
+			size = 0;
+			return this;
+		}
+
+		/**
+		 * Add the next cash stream
+		 * @param amount The amount of the cash stream, negative when lent to the borrower
+		 * @param days365 Number of days in a standard year since the first cash stream
+		 * @param days366 Number of days in a leap year since the first cash stream
+		 * @return this builder
+		 */
+		public Builder add(double amount, long days365, long days366) {
+			if (size == amounts.length) {
+				amounts = Arrays.copyOf(amounts, size * 2);
+				exponents = Arrays.copyOf(exponents, size * 2);
+			}
+			amounts[size] = amount;
+			exponents[size] = getExponent(days365, days366);
+			size++;
+			return this;
+		}
+
+		/**
+		 * Add an amount to the last cash stream, paid at the same date
+		 * @param amount The amount added, positive when repaid by the borrower
+		 * @return this builder
+		 */
+		public Builder addToLast(double amount) {
+			if (size == 0) {
+				throw new IllegalStateException("There is no cash stream to add to");
+			}
+			amounts[size - 1] += amount;
+			return this;
+		}
+
+		/**
+		 * @return the compiled cash streams
+		 */
+		public APRCashFlows build() {
+			return new APRCashFlows(this);
+		}
+
+	}
+
+}
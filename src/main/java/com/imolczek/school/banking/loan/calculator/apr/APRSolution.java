@@ -0,0 +1,41 @@
+package com.imolczek.school.banking.loan.calculator.apr;
+
+/**
+ * The outcome of an APR solver run
+ */
+public class APRSolution {
+
+	/**
+	 * The rate cancelling the net present value
+	 */
+	private final double rate;
+
+	/**
+	 * The number of iterations the solver needed
+	 */
+	private final int iterations;
+
+	/**
+	 * @param rate the rate cancelling the net present value
+	 * @param iterations the number of iterations the solver needed
+	 */
+	public APRSolution(double rate, int iterations) {
+		this.rate = rate;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * @return the rate
+	 */
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * @return the iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+}
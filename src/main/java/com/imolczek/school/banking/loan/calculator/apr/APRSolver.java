@@ -0,0 +1,21 @@
+package com.imolczek.school.banking.loan.calculator.apr;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * A strategy finding the rate that cancels a net present value function
+ */
+public interface APRSolver {
+
+	/**
+	 * Find the root of the function within the bracket
+	 * @param function The net present value function
+	 * @param lowerBound Lowest acceptable rate
+	 * @param upperBound Highest acceptable rate
+	 * @param initialGuess Starting point for solvers that make use of one
+	 * @return The rate and the number of iterations needed
+	 * @throws LoanCalculationException When the function has no root within the bracket or the solver does not converge
+	 */
+	APRSolution solve(NetPresentValueFunction function, double lowerBound, double upperBound, double initialGuess) throws LoanCalculationException;
+
+}
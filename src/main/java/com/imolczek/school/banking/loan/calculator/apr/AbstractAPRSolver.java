@@ -0,0 +1,84 @@
+package com.imolczek.school.banking.loan.calculator.apr;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * Configuration shared by the iterative APR solvers
+ */
+public abstract class AbstractAPRSolver implements APRSolver {
+
+	/**
+	 * Default absolute tolerance on the rate
+	 */
+	public static final double DEFAULT_TOLERANCE = 1e-10;
+
+	/**
+	 * Default maximum number of iterations
+	 */
+	public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+	/**
+	 * Absolute tolerance on the rate: the solver stops when the root is known within this distance
+	 */
+	private double tolerance = DEFAULT_TOLERANCE;
+
+	/**
+	 * Maximum number of iterations before giving up
+	 */
+	private int maxIterations = DEFAULT_MAX_ITERATIONS;
+
+	/**
+	 * Make sure the function changes sign within the bracket
+	 * @param lowerBound Lowest acceptable rate
+	 * @param upperBound Highest acceptable rate
+	 * @param lowerValue Value of the function at the lower bound
+	 * @param upperValue Value of the function at the upper bound
+	 * @throws LoanCalculationException
+	 */
+	protected void checkBracket(double lowerBound, double upperBound, double lowerValue, double upperValue) throws LoanCalculationException {
+		if (!(lowerBound < upperBound)) {
+			throw new LoanCalculationException("The lower bound of the APR must be below the upper bound");
+		}
+		if (Double.isNaN(lowerValue) || Double.isNaN(upperValue)) {
+			throw new LoanCalculationException("The net present value cannot be evaluated at the APR bounds");
+		}
+		if (Math.signum(lowerValue) * Math.signum(upperValue) > 0) {
+			throw new LoanCalculationException("The APR is not between " + lowerBound + " and " + upperBound);
+		}
+	}
+
+	/**
+	 * @return the tolerance
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * @param tolerance the tolerance to set
+	 */
+	public void setTolerance(double tolerance) {
+		if (!(tolerance > 0)) {
+			throw new IllegalArgumentException("The tolerance must be positive");
+		}
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * @return the maxIterations
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	/**
+	 * @param maxIterations the maxIterations to set
+	 */
+	public void setMaxIterations(int maxIterations) {
+		if (maxIterations <= 0) {
+			throw new IllegalArgumentException("The maximum number of iterations must be at least 1");
+		}
+		this.maxIterations = maxIterations;
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.imolczek.school.banking.loan.calculator.apr;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * Brent's method: inverse quadratic interpolation safeguarded by bisection.
+ * It always keeps the root bracketed and therefore converges for any continuous function changing sign within the bounds.
+ */
+public class BrentAPRSolver extends AbstractAPRSolver {
+
+	@Override
+	public APRSolution solve(NetPresentValueFunction function, double lowerBound, double upperBound, double initialGuess) throws LoanCalculationException {
+		double a = lowerBound;
+		double b = upperBound;
+		double fa = function.valueAt(a);
+		double fb = function.valueAt(b);
+		checkBracket(lowerBound, upperBound, fa, fb);
+		if (fa == 0) {
+			return new APRSolution(a, 0);
+		}
+		if (fb == 0) {
+			return new APRSolution(b, 0);
+		}
+
+		double c = b;
+		double fc = fb;
+		double d = b - a;
+		double e = d;
+
+		for (int iteration = 1; iteration <= getMaxIterations(); iteration++) {
+			if (Math.signum(fb) == Math.signum(fc)) {
+				// The root lies between a and b
+				c = a;
+				fc = fa;
+				d = b - a;
+				e = d;
+			}
+			if (Math.abs(fc) < Math.abs(fb)) {
+				// b must always be the best estimate
+				a = b;
+				b = c;
+				c = a;
+				fa = fb;
+				fb = fc;
+				fc = fa;
+			}
+
+			double tolerance = 2 * Math.ulp(b) + 0.5 * getTolerance();
+			double middle = 0.5 * (c - b);
+			if (Math.abs(middle) <= tolerance || fb == 0) {
+				return new APRSolution(b, iteration);
+			}
+
+			if (Math.abs(e) >= tolerance && Math.abs(fa) > Math.abs(fb)) {
+				// Attempt an interpolation
+				double p;
+				double q;
+				double s = fb / fa;
+				if (a == c) {
+					// Secant
+					p = 2 * middle * s;
+					q = 1 - s;
+				} else {
+					// Inverse quadratic interpolation
+					double r = fb / fc;
+					q = fa / fc;
+					p = s * (2 * middle * q * (q - r) - (b - a) * (r - 1));
+					q = (q - 1) * (r - 1) * (s - 1);
+				}
+				if (p > 0) {
+					q = -q;
+				} else {
+					p = -p;
+				}
+				if (2 * p < Math.min(3 * middle * q - Math.abs(tolerance * q), Math.abs(e * q))) {
+					e = d;
+					d = p / q;
+				} else {
+					// The interpolation would fall outside the bracket or converge too slowly
+					d = middle;
+					e = d;
+				}
+			} else {
+				d = middle;
+				e = d;
+			}
+
+			a = b;
+			fa = fb;
+			if (Math.abs(d) > tolerance) {
+				b += d;
+			} else {
+				b += Math.copySign(tolerance, middle);
+			}
+			fb = function.valueAt(b);
+		}
+
+		throw new LoanCalculationException("The APR did not converge within " + getMaxIterations() + " iterations");
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.imolczek.school.banking.loan.calculator.apr;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * The net present value of a series of cash streams, as a function of the annual discount rate.
+ * The APR is the root of this function.
+ */
+public interface NetPresentValueFunction {
+
+	/**
+	 * Net present value of the cash streams discounted at the given rate
+	 * @param rate Annual rate, 5% must be provided as 0.05
+	 * @return The net present value
+	 * @throws LoanCalculationException
+	 */
+	double valueAt(double rate) throws LoanCalculationException;
+
+	/**
+	 * First derivative of the net present value with respect to the rate
+	 * @param rate Annual rate, 5% must be provided as 0.05
+	 * @return The derivative of the net present value
+	 * @throws LoanCalculationException
+	 */
+	double derivativeAt(double rate) throws LoanCalculationException;
+
+	/**
+	 * Net present values and their derivatives at several rates at once.
+	 * By default every rate is evaluated on its own; implementations may share the work between the rates.
+	 * @param rates Annual rates, 5% must be provided as 0.05
+	 * @param values Receives the net present value at each rate, at least as long as the rates
+	 * @param derivatives Receives the derivative at each rate, at least as long as the rates, or null when not needed
+	 * @throws LoanCalculationException
+	 */
+	default void evaluate(double[] rates, double[] values, double[] derivatives) throws LoanCalculationException {
+		for (int j = 0; j < rates.length; j++) {
+			values[j] = valueAt(rates[j]);
+			if (derivatives != null) {
+				derivatives[j] = derivativeAt(rates[j]);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.imolczek.school.banking.loan.calculator.apr;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * The net present values of a series of cash streams and their derivatives at a vector of rates,
+ * for rate sheets and sensitivity tables.
+ */
+public final class NetPresentValues {
+
+	private final double[] rates;
+
+	private final double[] values;
+
+	private final double[] derivatives;
+
+	private NetPresentValues(double[] rates, double[] values, double[] derivatives) {
+		this.rates = rates;
+		this.values = values;
+		this.derivatives = derivatives;
+	}
+
+	/**
+	 * Evaluate cash streams at several rates
+	 * @param function The net present value of the cash streams, such as {@link APRCashFlows}
+	 * @param rates Annual rates, 5% must be provided as 0.05
+	 * @return The net present value and its derivative at each rate
+	 * @throws LoanCalculationException
+	 */
+	public static NetPresentValues evaluate(NetPresentValueFunction function, double... rates) throws LoanCalculationException {
+		double[] copy = rates.clone();
+		double[] values = new double[copy.length];
+		double[] derivatives = new double[copy.length];
+		function.evaluate(copy, values, derivatives);
+		return new NetPresentValues(copy, values, derivatives);
+	}
+
+	/**
+	 * @return the number of rates evaluated
+	 */
+	public int size() {
+		return rates.length;
+	}
+
+	/**
+	 * @param index the index of the rate
+	 * @return the rate
+	 */
+	public double getRate(int index) {
+		return rates[index];
+	}
+
+	/**
+	 * @param index the index of the rate
+	 * @return the net present value at the rate
+	 */
+	public double getValue(int index) {
+		return values[index];
+	}
+
+	/**
+	 * @param index the index of the rate
+	 * @return the derivative of the net present value at the rate
+	 */
+	public double getDerivative(int index) {
+		return derivatives[index];
+	}
+
+	/**
+	 * Locate the root between two consecutive rates, for rates sorted in ascending order
+	 * @return the index of the first rate of the first pair whose net present values have opposite signs or are zero, -1 if none
+	 */
+	public int findBracket() {
+		for (int j = 0; j + 1 < rates.length; j++) {
+			if (values[j] == 0 || Math.signum(values[j]) != Math.signum(values[j + 1])) {
+				return j;
+			}
+		}
+		return -1;
+	}
+
+}
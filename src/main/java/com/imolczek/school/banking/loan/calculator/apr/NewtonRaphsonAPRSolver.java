@@ -0,0 +1,72 @@
+package com.imolczek.school.banking.loan.calculator.apr;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * Newton-Raphson iterations using the analytic derivative of the net present value.
+ * The bracket is narrowed at every step; whenever a Newton step leaves it, the derivative vanishes
+ * or the iterations are exhausted, the search carries on with Brent's method on the narrowed bracket.
+ */
+public class NewtonRaphsonAPRSolver extends AbstractAPRSolver {
+
+	@Override
+	public APRSolution solve(NetPresentValueFunction function, double lowerBound, double upperBound, double initialGuess) throws LoanCalculationException {
+		double low = lowerBound;
+		double high = upperBound;
+		double[] rates = { low, high };
+		double[] values = new double[2];
+		function.evaluate(rates, values, null);
+		double fLow = values[0];
+		double fHigh = values[1];
+		checkBracket(lowerBound, upperBound, fLow, fHigh);
+		if (fLow == 0) {
+			return new APRSolution(low, 0);
+		}
+		if (fHigh == 0) {
+			return new APRSolution(high, 0);
+		}
+
+		double rate = initialGuess > low && initialGuess < high ? initialGuess : low + (high - low) / 2;
+		// The value and the derivative at the current rate are evaluated together
+		double[] point = new double[1];
+		double[] derivatives = new double[1];
+		int iteration = 0;
+		while (iteration < getMaxIterations()) {
+			iteration++;
+			point[0] = rate;
+			function.evaluate(point, values, derivatives);
+			double value = values[0];
+			if (value == 0) {
+				return new APRSolution(rate, iteration);
+			}
+			if (Math.signum(value) == Math.signum(fLow)) {
+				low = rate;
+				fLow = value;
+			} else {
+				high = rate;
+				fHigh = value;
+			}
+
+			double derivative = derivatives[0];
+			if (derivative == 0 || Double.isNaN(derivative) || Double.isInfinite(derivative)) {
+				break;
+			}
+			double step = value / derivative;
+			double next = rate - step;
+			if (!(next > low && next < high)) {
+				break;
+			}
+			if (Math.abs(step) <= getTolerance()) {
+				return new APRSolution(next, iteration);
+			}
+			rate = next;
+		}
+
+		BrentAPRSolver fallback = new BrentAPRSolver();
+		fallback.setTolerance(getTolerance());
+		fallback.setMaxIterations(getMaxIterations());
+		APRSolution solution = fallback.solve(function, low, high, rate);
+		return new APRSolution(solution.getRate(), iteration + solution.getIterations());
+	}
+
+}
@@ -0,0 +1,232 @@
+package com.imolczek.school.banking.loan.calculator.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.imolczek.school.banking.loan.calculator.LoanCalculationResults;
+import com.imolczek.school.banking.loan.calculator.LoanCalculationService;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * Runs the calculations of a calculator asynchronously on an executor, returning futures instead of blocking the caller.
+ * Concurrent requests with equal normalized parameters are coalesced: only the first one is calculated, the others
+ * wait for its result. Results are copied for every caller, so a caller changing its result does not change the others.
+ * At most a given number of distinct calculations are pending, queued or running; beyond that, requests are rejected
+ * at once with a {@link RejectedExecutionException} rather than queued, so the latency stays bounded during spikes.
+ * Failed calculations complete their futures exceptionally with the exception thrown by the calculator.
+ */
+public class AsyncLoanCalculationService {
+
+	private final LoanCalculationService calculator;
+
+	private final Executor executor;
+
+	private final boolean ownsExecutor;
+
+	private final int maximumPending;
+
+	private final Semaphore permits;
+
+	private final ConcurrentHashMap<LoanParameters, CompletableFuture<LoanCalculationResult>> fixedInstallments = new ConcurrentHashMap<LoanParameters, CompletableFuture<LoanCalculationResult>>();
+
+	private final ConcurrentHashMap<LoanParameters, CompletableFuture<LoanSummary>> summaries = new ConcurrentHashMap<LoanParameters, CompletableFuture<LoanSummary>>();
+
+	private final ConcurrentHashMap<LoanParameters, CompletableFuture<LoanCalculationResult>> fixedDurations = new ConcurrentHashMap<LoanParameters, CompletableFuture<LoanCalculationResult>>();
+
+	private final LongAdder coalescedCount = new LongAdder();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	/**
+	 * Uses an executor of its own, see {@link #newDefaultExecutor(int)}, which {@link #shutdown()} stops
+	 * @param calculator The calculator, which must be thread-safe
+	 * @param maximumPending The maximum number of distinct calculations queued or running
+	 */
+	public AsyncLoanCalculationService(LoanCalculationService calculator, int maximumPending) {
+		this(calculator, newDefaultExecutor(maximumPending), maximumPending, true);
+	}
+
+	/**
+	 * @param calculator The calculator, which must be thread-safe
+	 * @param executor The executor running the calculations, which remains owned by the caller
+	 * @param maximumPending The maximum number of distinct calculations queued or running
+	 */
+	public AsyncLoanCalculationService(LoanCalculationService calculator, Executor executor, int maximumPending) {
+		this(calculator, executor, maximumPending, false);
+	}
+
+	private AsyncLoanCalculationService(LoanCalculationService calculator, Executor executor, int maximumPending, boolean ownsExecutor) {
+		if (maximumPending <= 0) {
+			throw new IllegalArgumentException("The maximum number of pending calculations must be at least 1");
+		}
+		this.calculator = calculator;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.maximumPending = maximumPending;
+		this.permits = new Semaphore(maximumPending);
+	}
+
+	/**
+	 * A pool of daemon threads, as many as the calculations that can be pending but no more than the available processors,
+	 * the calculations being bound by the processors
+	 * @param maximumPending The maximum number of distinct calculations queued or running
+	 * @return a new executor, to be shut down by the caller
+	 */
+	public static ExecutorService newDefaultExecutor(int maximumPending) {
+		int threads = Math.max(1, Math.min(maximumPending, Runtime.getRuntime().availableProcessors()));
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "loan-calculation");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Calculate the loan for its fixed monthly installment, see {@link LoanCalculationService#calculateForFixedInstallment(LoanParameters)}
+	 * @param parameters The validated loan parameters
+	 * @return The future result of the calculation
+	 */
+	public CompletableFuture<LoanCalculationResult> calculateForFixedInstallment(LoanParameters parameters) {
+		return submit(fixedInstallments, parameters, calculator::calculateForFixedInstallment).thenApply(LoanCalculationResults::copyOf);
+	}
+
+	/**
+	 * Calculate the key figures of the loan, see {@link LoanCalculationService#calculateSummaryForFixedInstallment(LoanParameters)}
+	 * @param parameters The validated loan parameters
+	 * @return The future key figures of the loan
+	 */
+	public CompletableFuture<LoanSummary> calculateSummaryForFixedInstallment(LoanParameters parameters) {
+		// The summary cannot be changed, so it is shared between the coalesced requests, but not their future
+		return copy(submit(summaries, parameters, calculator::calculateSummaryForFixedInstallment));
+	}
+
+	/**
+	 * Calculate the loan for its number of installments, see {@link LoanCalculationService#calculateForFixedDuration(LoanParameters)}
+	 * @param parameters The validated loan parameters
+	 * @return The future result of the calculation
+	 */
+	public CompletableFuture<LoanCalculationResult> calculateForFixedDuration(LoanParameters parameters) {
+		return submit(fixedDurations, parameters, calculator::calculateForFixedDuration).thenApply(LoanCalculationResults::copyOf);
+	}
+
+	/**
+	 * @return the number of distinct calculations queued or running
+	 */
+	public int getPendingCount() {
+		return maximumPending - permits.availablePermits();
+	}
+
+	/**
+	 * @return the number of requests that waited for the result of an equal request instead of being calculated
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.sum();
+	}
+
+	/**
+	 * @return the number of requests rejected because too many calculations were pending
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+
+	/**
+	 * Stop the executor once the pending calculations are complete, if it was created by this service
+	 */
+	public void shutdown() {
+		if (ownsExecutor) {
+			((ExecutorService) executor).shutdown();
+		}
+	}
+
+	/**
+	 * Join the pending calculation of equal parameters, or start a new one if a permit is available
+	 * @param pending The pending calculations of the same kind
+	 * @param parameters The loan parameters
+	 * @param calculation The calculation
+	 * @return The future shared by all the requests coalesced with this one
+	 */
+	private <T> CompletableFuture<T> submit(ConcurrentHashMap<LoanParameters, CompletableFuture<T>> pending, LoanParameters parameters, Calculation<T> calculation) {
+		CompletableFuture<T> created = new CompletableFuture<T>();
+		CompletableFuture<T> existing = pending.putIfAbsent(parameters, created);
+		if (existing != null) {
+			coalescedCount.increment();
+			return existing;
+		}
+		if (!permits.tryAcquire()) {
+			pending.remove(parameters, created);
+			rejectedCount.increment();
+			created.completeExceptionally(new RejectedExecutionException("Too many pending loan calculations: " + maximumPending));
+			return created;
+		}
+		try {
+			executor.execute(() -> run(pending, parameters, calculation, created));
+		} catch (RejectedExecutionException e) {
+			release(pending, parameters, created);
+			rejectedCount.increment();
+			created.completeExceptionally(e);
+		}
+		return created;
+	}
+
+	/**
+	 * Do the calculation and complete its future, whatever the calculation throws
+	 */
+	private <T> void run(ConcurrentHashMap<LoanParameters, CompletableFuture<T>> pending, LoanParameters parameters, Calculation<T> calculation, CompletableFuture<T> future) {
+		try {
+			T result;
+			try {
+				result = calculation.calculate(parameters);
+			} finally {
+				// Released before completing, so that a request arriving afterwards starts a new calculation instead of joining this one
+				release(pending, parameters, future);
+			}
+			future.complete(result);
+		} catch (Throwable t) {
+			future.completeExceptionally(t);
+		}
+	}
+
+	/**
+	 * A future of its own for a caller, so that completing or cancelling it does not complete the future shared by
+	 * the coalesced requests
+	 * @param future The shared future
+	 * @return A future completed as the shared one
+	 */
+	private static <T> CompletableFuture<T> copy(CompletableFuture<T> future) {
+		CompletableFuture<T> copy = new CompletableFuture<T>();
+		future.whenComplete((result, failure) -> {
+			if (failure != null) {
+				copy.completeExceptionally(failure);
+			} else {
+				copy.complete(result);
+			}
+		});
+		return copy;
+	}
+
+	private <T> void release(ConcurrentHashMap<LoanParameters, CompletableFuture<T>> pending, LoanParameters parameters, CompletableFuture<T> future) {
+		pending.remove(parameters, future);
+		permits.release();
+	}
+
+	/**
+	 * One of the calculations of a {@link LoanCalculationService}
+	 */
+	private interface Calculation<T> {
+
+		T calculate(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException;
+
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.imolczek.school.banking.loan.calculator.batch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.imolczek.school.banking.loan.calculator.LoanCalculationService;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * Calculates many loan scenarios at once, in parallel on a dedicated ForkJoinPool.
+ * All the workers share a single stateless calculator; scenarios built from one another share their daily rates.
+ * A scenario that cannot be calculated does not stop the batch: its quote carries the exception instead of a result.
+ */
+public class BatchLoanCalculator {
+
+	private final ForkJoinPool pool;
+
+	private final LoanCalculationService calculator;
+
+	/**
+	 * Uses a standard calculator and as many workers as there are available processors
+	 */
+	public BatchLoanCalculator() {
+		this(new StandardLoanCalculator(), Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param calculator The calculator shared by all the workers
+	 * @param parallelism The number of workers
+	 */
+	public BatchLoanCalculator(LoanCalculationService calculator, int parallelism) {
+		this.calculator = calculator;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Calculate every scenario for its fixed monthly installment
+	 * @param scenarios The loan scenarios
+	 * @param order Whether the quotes are returned in the order of the scenarios
+	 * @return One quote per scenario
+	 * @throws LoanCalculationException If the batch was interrupted
+	 */
+	public List<LoanQuote> calculateForFixedInstallment(Collection<LoanParameters> scenarios, ResultOrder order) throws LoanCalculationException {
+		final List<LoanParameters> snapshot = Collections.unmodifiableList(new ArrayList<LoanParameters>(scenarios));
+		try {
+			return pool.submit(() -> quote(snapshot, order)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LoanCalculationException("The batch calculation was interrupted");
+		} catch (ExecutionException e) {
+			throw new LoanCalculationException("The batch calculation failed: " + e.getCause());
+		}
+	}
+
+	/**
+	 * Stop the workers once the running batches are complete
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	private List<LoanQuote> quote(List<LoanParameters> scenarios, ResultOrder order) {
+		Stream<LoanParameters> stream = scenarios.parallelStream();
+		if (order == ResultOrder.ORDERED) {
+			return stream.map(this::quote).collect(Collectors.toList());
+		}
+		ConcurrentLinkedQueue<LoanQuote> quotes = new ConcurrentLinkedQueue<LoanQuote>();
+		stream.unordered().forEach(parameters -> quotes.add(quote(parameters)));
+		return new ArrayList<LoanQuote>(quotes);
+	}
+
+	private LoanQuote quote(LoanParameters parameters) {
+		try {
+			return LoanQuote.success(parameters, calculator.calculateForFixedInstallment(parameters));
+		} catch (Exception e) {
+			return LoanQuote.failure(parameters, e);
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.imolczek.school.banking.loan.calculator.batch;
+
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * The outcome of the calculation of one loan scenario of a batch: either a result or the exception that prevented it
+ */
+public class LoanQuote {
+
+	private final LoanParameters parameters;
+
+	private final LoanCalculationResult result;
+
+	private final Exception exception;
+
+	private LoanQuote(LoanParameters parameters, LoanCalculationResult result, Exception exception) {
+		this.parameters = parameters;
+		this.result = result;
+		this.exception = exception;
+	}
+
+	/**
+	 * @param parameters the loan scenario
+	 * @param result the result of its calculation
+	 * @return a successful quote
+	 */
+	public static LoanQuote success(LoanParameters parameters, LoanCalculationResult result) {
+		return new LoanQuote(parameters, result, null);
+	}
+
+	/**
+	 * @param parameters the loan scenario
+	 * @param exception the reason why it could not be calculated
+	 * @return a failed quote
+	 */
+	public static LoanQuote failure(LoanParameters parameters, Exception exception) {
+		return new LoanQuote(parameters, null, exception);
+	}
+
+	/**
+	 * @return true if the scenario could be calculated
+	 */
+	public boolean isSuccessful() {
+		return exception == null;
+	}
+
+	/**
+	 * @return the parameters
+	 */
+	public LoanParameters getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * @return the result, null if the calculation failed
+	 */
+	public LoanCalculationResult getResult() {
+		return result;
+	}
+
+	/**
+	 * @return the exception, null if the calculation succeeded
+	 */
+	public Exception getException() {
+		return exception;
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.imolczek.school.banking.loan.calculator.batch;
+
+/**
+ * How the quotes of a batch are returned
+ */
+public enum ResultOrder {
+
+	/**
+	 * In the order of the loan scenarios
+	 */
+	ORDERED,
+
+	/**
+	 * In the order the calculations complete, which avoids merging the partial results of the workers in order
+	 */
+	UNORDERED
+
+}
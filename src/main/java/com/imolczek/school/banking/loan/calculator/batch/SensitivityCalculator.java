@@ -0,0 +1,133 @@
+package com.imolczek.school.banking.loan.calculator.batch;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import com.imolczek.school.banking.loan.calculator.LoanCalculator;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+
+/**
+ * Calculates how the APR and the total interest of a loan move when its annual rate and its amount are shifted.
+ * The grid of shifted scenarios is generated from one base loan, so all the scenarios share its dates, hence the payment
+ * calendar and its accruals, and the scenarios of the same annual rate share their daily rates.
+ * The base loan is calculated first, which also builds the calendar once for all the workers, then the shifted scenarios
+ * are calculated in parallel on a dedicated ForkJoinPool. Only their key figures are calculated, no amortization schedule is built.
+ * A scenario that cannot be calculated, because of a negative rate for instance, does not stop the grid: its cell carries the exception instead.
+ */
+public class SensitivityCalculator {
+
+	/**
+	 * The annual rates have 4 decimals, a basis point being the last one
+	 */
+	private static final int RATE_SCALE = 4;
+
+	private final ForkJoinPool pool;
+
+	private final LoanCalculator calculator;
+
+	/**
+	 * Uses a standard calculator and as many workers as there are available processors
+	 */
+	public SensitivityCalculator() {
+		this(new StandardLoanCalculator(), Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param calculator The calculator shared by all the workers
+	 * @param parallelism The number of workers
+	 */
+	public SensitivityCalculator(LoanCalculator calculator, int parallelism) {
+		this.calculator = calculator;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Calculate every shifted scenario for the fixed monthly installment of the base loan, the number of installments varying
+	 * @param base The validated parameters of the base loan, including the monthly installment
+	 * @param rateShifts The shifts of the annual rate in basis points
+	 * @param amountShifts The shifts of the loan amount
+	 * @return The figures of every scenario
+	 * @throws LoanSettingsException If the base loan is not valid
+	 * @throws LoanCalculationException If the base loan cannot be calculated or the grid calculation was interrupted
+	 */
+	public SensitivityGrid calculateForFixedInstallment(LoanParameters base, int[] rateShifts, BigDecimal[] amountShifts) throws LoanSettingsException, LoanCalculationException {
+		return calculate(base, rateShifts, amountShifts, false);
+	}
+
+	/**
+	 * Calculate every shifted scenario for the number of installments of the base loan, the monthly installment varying
+	 * @param base The validated parameters of the base loan, including the number of installments
+	 * @param rateShifts The shifts of the annual rate in basis points
+	 * @param amountShifts The shifts of the loan amount
+	 * @return The figures of every scenario
+	 * @throws LoanSettingsException If the base loan is not valid
+	 * @throws LoanCalculationException If the base loan cannot be calculated or the grid calculation was interrupted
+	 */
+	public SensitivityGrid calculateForFixedDuration(LoanParameters base, int[] rateShifts, BigDecimal[] amountShifts) throws LoanSettingsException, LoanCalculationException {
+		return calculate(base, rateShifts, amountShifts, true);
+	}
+
+	/**
+	 * Stop the workers once the running grids are complete
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	private SensitivityGrid calculate(LoanParameters base, int[] rateShifts, BigDecimal[] amountShifts, boolean fixedDuration) throws LoanSettingsException, LoanCalculationException {
+		SensitivityGrid grid = new SensitivityGrid(rateShifts, amountShifts);
+		calculate(base, fixedDuration, grid, grid.getBaseCell());
+
+		// One scenario per annual rate, the loan amounts being shifted from it so that they share its daily rates
+		LoanParameters[] rateScenarios = new LoanParameters[rateShifts.length];
+		Exception[] rateFailures = new Exception[rateShifts.length];
+		for (int i = 0; i < rateShifts.length; i++) {
+			try {
+				rateScenarios[i] = base.toBuilder().annualRate(base.getAnnualRate().add(BigDecimal.valueOf(rateShifts[i], RATE_SCALE))).build();
+			} catch (LoanSettingsException e) {
+				rateFailures[i] = e;
+			}
+		}
+
+		int numberOfAmountShifts = amountShifts.length;
+		try {
+			pool.submit(() -> IntStream.range(0, grid.getBaseCell()).parallel().forEach(cell -> {
+				int rateIndex = cell / numberOfAmountShifts;
+				if (rateFailures[rateIndex] != null) {
+					grid.fail(cell, rateFailures[rateIndex]);
+					return;
+				}
+				try {
+					LoanParameters scenario = rateScenarios[rateIndex].toBuilder()
+							.loanAmount(base.getLoanAmount().add(amountShifts[cell % numberOfAmountShifts]))
+							.build();
+					calculate(scenario, fixedDuration, grid, cell);
+				} catch (Exception e) {
+					grid.fail(cell, e);
+				}
+			})).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LoanCalculationException("The sensitivity calculation was interrupted");
+		} catch (ExecutionException e) {
+			throw new LoanCalculationException("The sensitivity calculation failed: " + e.getCause());
+		}
+		return grid;
+	}
+
+	private void calculate(LoanParameters parameters, boolean fixedDuration, SensitivityGrid grid, int cell) throws LoanSettingsException, LoanCalculationException {
+		LoanParameters scenario = parameters;
+		if (fixedDuration) {
+			scenario = parameters.toBuilder().monthlyInstallment(calculator.calculateInstallmentForFixedDuration(parameters)).build();
+		}
+		LoanSummary summary = calculator.calculateSummaryForFixedInstallment(scenario);
+		grid.set(cell, summary.getApr(), summary.getTotalInterest(), scenario.getMonthlyInstallment(), summary.getNumberOfInstallments());
+	}
+
+}
@@ -0,0 +1,218 @@
+package com.imolczek.school.banking.loan.calculator.batch;
+
+import java.math.BigDecimal;
+
+/**
+ * The APR, total interest, installment and number of installments of a loan for every combination of an annual rate shift
+ * and a loan amount shift, together with those of the unshifted loan the deltas are measured from.
+ * The figures are held as primitive arrays, one value per cell: APRs in units of 1/10000, amounts in cents.
+ * A cell whose scenario could not be calculated holds the exception instead, reading its figures throws an IllegalStateException.
+ */
+public class SensitivityGrid {
+
+	/**
+	 * The APRs have 4 decimals
+	 */
+	private static final int APR_SCALE = 4;
+
+	private final int[] rateShifts;
+
+	private final BigDecimal[] amountShifts;
+
+	/**
+	 * The unshifted loan is the last cell
+	 */
+	private final int baseCell;
+
+	private final long[] aprs;
+
+	private final long[] totalInterests;
+
+	private final long[] installments;
+
+	private final int[] numbersOfInstallments;
+
+	private final Exception[] failures;
+
+	/**
+	 * @param rateShifts The shifts of the annual rate in basis points, one per row
+	 * @param amountShifts The shifts of the loan amount, one per column
+	 */
+	SensitivityGrid(int[] rateShifts, BigDecimal[] amountShifts) {
+		this.rateShifts = rateShifts.clone();
+		this.amountShifts = amountShifts.clone();
+		this.baseCell = rateShifts.length * amountShifts.length;
+		this.aprs = new long[baseCell + 1];
+		this.totalInterests = new long[baseCell + 1];
+		this.installments = new long[baseCell + 1];
+		this.numbersOfInstallments = new int[baseCell + 1];
+		this.failures = new Exception[baseCell + 1];
+	}
+
+	/**
+	 * @param rateIndex The index of the rate shift
+	 * @param amountIndex The index of the amount shift
+	 * @return The index of the cell
+	 */
+	int getCell(int rateIndex, int amountIndex) {
+		if (rateIndex < 0 || rateIndex >= rateShifts.length || amountIndex < 0 || amountIndex >= amountShifts.length) {
+			throw new IndexOutOfBoundsException("There is no cell (" + rateIndex + ", " + amountIndex + ") in a grid of " + rateShifts.length + " x " + amountShifts.length);
+		}
+		return rateIndex * amountShifts.length + amountIndex;
+	}
+
+	/**
+	 * @return The index of the cell of the unshifted loan
+	 */
+	int getBaseCell() {
+		return baseCell;
+	}
+
+	void set(int cell, BigDecimal apr, BigDecimal totalInterest, BigDecimal installment, int numberOfInstallments) {
+		aprs[cell] = apr.setScale(APR_SCALE).unscaledValue().longValueExact();
+		totalInterests[cell] = totalInterest.movePointRight(2).longValueExact();
+		installments[cell] = installment.movePointRight(2).longValueExact();
+		numbersOfInstallments[cell] = numberOfInstallments;
+	}
+
+	void fail(int cell, Exception exception) {
+		failures[cell] = exception;
+	}
+
+	/**
+	 * @return the shifts of the annual rate in basis points, one per row
+	 */
+	public int[] getRateShifts() {
+		return rateShifts.clone();
+	}
+
+	/**
+	 * @return the shifts of the loan amount, one per column
+	 */
+	public BigDecimal[] getAmountShifts() {
+		return amountShifts.clone();
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public int getNumberOfRateShifts() {
+		return rateShifts.length;
+	}
+
+	/**
+	 * @return the number of columns
+	 */
+	public int getNumberOfAmountShifts() {
+		return amountShifts.length;
+	}
+
+	/**
+	 * @param rateIndex The index of the rate shift
+	 * @param amountIndex The index of the amount shift
+	 * @return true if the scenario could be calculated
+	 */
+	public boolean isCalculated(int rateIndex, int amountIndex) {
+		return failures[getCell(rateIndex, amountIndex)] == null;
+	}
+
+	/**
+	 * @param rateIndex The index of the rate shift
+	 * @param amountIndex The index of the amount shift
+	 * @return the exception, null if the scenario could be calculated
+	 */
+	public Exception getFailure(int rateIndex, int amountIndex) {
+		return failures[getCell(rateIndex, amountIndex)];
+	}
+
+	/**
+	 * @param rateIndex The index of the rate shift
+	 * @param amountIndex The index of the amount shift
+	 * @return the APR of the scenario
+	 */
+	public BigDecimal getApr(int rateIndex, int amountIndex) {
+		return BigDecimal.valueOf(aprs[getCalculatedCell(rateIndex, amountIndex)], APR_SCALE);
+	}
+
+	/**
+	 * @param rateIndex The index of the rate shift
+	 * @param amountIndex The index of the amount shift
+	 * @return the APR of the scenario minus that of the unshifted loan
+	 */
+	public BigDecimal getAprDelta(int rateIndex, int amountIndex) {
+		return BigDecimal.valueOf(aprs[getCalculatedCell(rateIndex, amountIndex)] - aprs[baseCell], APR_SCALE);
+	}
+
+	/**
+	 * @param rateIndex The index of the rate shift
+	 * @param amountIndex The index of the amount shift
+	 * @return the total interest of the scenario
+	 */
+	public BigDecimal getTotalInterest(int rateIndex, int amountIndex) {
+		return BigDecimal.valueOf(totalInterests[getCalculatedCell(rateIndex, amountIndex)], 2);
+	}
+
+	/**
+	 * @param rateIndex The index of the rate shift
+	 * @param amountIndex The index of the amount shift
+	 * @return the total interest of the scenario minus that of the unshifted loan
+	 */
+	public BigDecimal getTotalInterestDelta(int rateIndex, int amountIndex) {
+		return BigDecimal.valueOf(totalInterests[getCalculatedCell(rateIndex, amountIndex)] - totalInterests[baseCell], 2);
+	}
+
+	/**
+	 * @param rateIndex The index of the rate shift
+	 * @param amountIndex The index of the amount shift
+	 * @return the monthly installment of the scenario
+	 */
+	public BigDecimal getInstallment(int rateIndex, int amountIndex) {
+		return BigDecimal.valueOf(installments[getCalculatedCell(rateIndex, amountIndex)], 2);
+	}
+
+	/**
+	 * @param rateIndex The index of the rate shift
+	 * @param amountIndex The index of the amount shift
+	 * @return the number of installments of the scenario
+	 */
+	public int getNumberOfInstallments(int rateIndex, int amountIndex) {
+		return numbersOfInstallments[getCalculatedCell(rateIndex, amountIndex)];
+	}
+
+	/**
+	 * @return the APR of the unshifted loan
+	 */
+	public BigDecimal getBaseApr() {
+		return BigDecimal.valueOf(aprs[baseCell], APR_SCALE);
+	}
+
+	/**
+	 * @return the total interest of the unshifted loan
+	 */
+	public BigDecimal getBaseTotalInterest() {
+		return BigDecimal.valueOf(totalInterests[baseCell], 2);
+	}
+
+	/**
+	 * @return the monthly installment of the unshifted loan
+	 */
+	public BigDecimal getBaseInstallment() {
+		return BigDecimal.valueOf(installments[baseCell], 2);
+	}
+
+	/**
+	 * @return the number of installments of the unshifted loan
+	 */
+	public int getBaseNumberOfInstallments() {
+		return numbersOfInstallments[baseCell];
+	}
+
+	private int getCalculatedCell(int rateIndex, int amountIndex) {
+		int cell = getCell(rateIndex, amountIndex);
+		if (failures[cell] != null) {
+			throw new IllegalStateException("The scenario (" + rateIndex + ", " + amountIndex + ") could not be calculated: " + failures[cell].getMessage(), failures[cell]);
+		}
+		return cell;
+	}
+
+}
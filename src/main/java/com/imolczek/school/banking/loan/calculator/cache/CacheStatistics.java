@@ -0,0 +1,70 @@
+package com.imolczek.school.banking.loan.calculator.cache;
+
+/**
+ * A snapshot of the activity of a {@link CachingLoanCalculationService}
+ */
+public class CacheStatistics {
+
+	private final long hitCount;
+
+	private final long missCount;
+
+	private final long evictionCount;
+
+	private final int size;
+
+	/**
+	 * @param hitCount the number of calculations answered from the cache
+	 * @param missCount the number of calculations delegated to the calculator
+	 * @param evictionCount the number of results removed because the cache was full or they had expired
+	 * @param size the number of results currently cached
+	 */
+	public CacheStatistics(long hitCount, long missCount, long evictionCount, int size) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.size = size;
+	}
+
+	/**
+	 * @return the hitCount
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return the missCount
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return the evictionCount
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return the size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the share of the calculations answered from the cache, 0 if there was none
+	 */
+	public double getHitRate() {
+		long requestCount = hitCount + missCount;
+		return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStatistics [hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount + ", size=" + size + "]";
+	}
+
+}
@@ -0,0 +1,171 @@
+package com.imolczek.school.banking.loan.calculator.cache;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.imolczek.school.banking.loan.calculator.LoanCalculationResults;
+import com.imolczek.school.banking.loan.calculator.LoanCalculationService;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.ScheduleChange;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * Keeps the results of fixed installment calculations, keyed on their normalized parameters, so that identical quotes
+ * are only calculated once. The number of installments plays no part in a fixed installment calculation, so it is left out of the keys.
+ * The cache holds at most a given number of results, the least recently used being evicted first, and each result expires after a given time.
+ * The results are kept in an access-ordered map under a lock, only held to look them up and store them, never during a calculation.
+ * Results are copied when stored and again when returned, so a caller changing its result does not change the cached one.
+ * Failed calculations are not cached. The other calculations are delegated without caching.
+ */
+public class CachingLoanCalculationService implements LoanCalculationService {
+
+	private final LoanCalculationService calculator;
+
+	private final int maximumSize;
+
+	private final long timeToLive;
+
+	/**
+	 * Source of the current time, in nanoseconds
+	 */
+	private final LongSupplier ticker;
+
+	/**
+	 * The cached results from the least to the most recently used, guarded by itself
+	 */
+	private final LinkedHashMap<LoanParameters, CachedResult> results = new LinkedHashMap<LoanParameters, CachedResult>(16, 0.75f, true);
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * @param calculator The calculator whose results are cached
+	 * @param maximumSize The maximum number of cached results
+	 * @param timeToLive How long a result is kept
+	 * @param unit The unit of the time to live
+	 */
+	public CachingLoanCalculationService(LoanCalculationService calculator, int maximumSize, long timeToLive, TimeUnit unit) {
+		this(calculator, maximumSize, timeToLive, unit, System::nanoTime);
+	}
+
+	/**
+	 * @param calculator The calculator whose results are cached
+	 * @param maximumSize The maximum number of cached results
+	 * @param timeToLive How long a result is kept
+	 * @param unit The unit of the time to live
+	 * @param ticker The source of the current time, in nanoseconds
+	 */
+	public CachingLoanCalculationService(LoanCalculationService calculator, int maximumSize, long timeToLive, TimeUnit unit, LongSupplier ticker) {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("The maximum size of the cache must be at least 1");
+		}
+		if (timeToLive <= 0) {
+			throw new IllegalArgumentException("The time to live of the cached results must be positive");
+		}
+		this.calculator = calculator;
+		this.maximumSize = maximumSize;
+		this.timeToLive = unit.toNanos(timeToLive);
+		this.ticker = ticker;
+	}
+
+	@Override
+	public LoanCalculationResult calculateForFixedInstallment(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+		LoanParameters key = parameters.getNumberOfInstallments() == null ? parameters : parameters.toBuilder().numberOfInstallments(null).build();
+		long now = ticker.getAsLong();
+		CachedResult cached;
+		synchronized (results) {
+			cached = results.get(key);
+			if (cached != null && now - cached.createdAt >= timeToLive) {
+				results.remove(key);
+				evictionCount.increment();
+				cached = null;
+			}
+		}
+		if (cached != null) {
+			hitCount.increment();
+			return LoanCalculationResults.copyOf(cached.result);
+		}
+
+		missCount.increment();
+		LoanCalculationResult result = calculator.calculateForFixedInstallment(parameters);
+		CachedResult created = new CachedResult(LoanCalculationResults.copyOf(result), now);
+		synchronized (results) {
+			results.put(key, created);
+			Iterator<CachedResult> leastRecentlyUsed = results.values().iterator();
+			while (results.size() > maximumSize) {
+				leastRecentlyUsed.next();
+				leastRecentlyUsed.remove();
+				evictionCount.increment();
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public LoanSummary calculateSummaryForFixedInstallment(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+		return calculator.calculateSummaryForFixedInstallment(parameters);
+	}
+
+	@Override
+	public LoanCalculationResult calculateForFixedDuration(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+		return calculator.calculateForFixedDuration(parameters);
+	}
+
+	@Override
+	public LoanCalculationResult recalculateForFixedInstallment(LoanParameters parameters, LoanCalculationResult result, List<ScheduleChange> changes) throws LoanSettingsException, LoanCalculationException {
+		return calculator.recalculateForFixedInstallment(parameters, result, changes);
+	}
+
+	@Override
+	public BigDecimal calculateMaximumLoanAmount(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+		return calculator.calculateMaximumLoanAmount(parameters);
+	}
+
+	@Override
+	public BigDecimal calculateAnnualRateForAPR(LoanParameters parameters, BigDecimal targetApr) throws LoanSettingsException, LoanCalculationException {
+		return calculator.calculateAnnualRateForAPR(parameters, targetApr);
+	}
+
+	/**
+	 * @return the current statistics of the cache
+	 */
+	public CacheStatistics getStatistics() {
+		synchronized (results) {
+			return new CacheStatistics(hitCount.sum(), missCount.sum(), evictionCount.sum(), results.size());
+		}
+	}
+
+	/**
+	 * Remove all the cached results, the statistics are kept
+	 */
+	public void invalidateAll() {
+		synchronized (results) {
+			results.clear();
+		}
+	}
+
+	private static class CachedResult {
+
+		private final LoanCalculationResult result;
+
+		private final long createdAt;
+
+		private CachedResult(LoanCalculationResult result, long createdAt) {
+			this.result = result;
+			this.createdAt = createdAt;
+		}
+
+	}
+
+}
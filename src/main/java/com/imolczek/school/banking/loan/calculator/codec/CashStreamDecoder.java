@@ -0,0 +1,93 @@
+package com.imolczek.school.banking.loan.calculator.codec;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.imolczek.school.banking.loan.model.CashStream;
+
+/**
+ * Reads the cash streams of a result encoded by {@link LoanResultCodec} one at a time, straight from the buffer,
+ * so a schedule can be processed or forwarded without building its list of cash streams.
+ * The position of the buffer moves past each cash stream as it is read.
+ */
+public class CashStreamDecoder implements Iterator<CashStream> {
+
+	private final ByteBuffer buffer;
+
+	private final BigDecimal apr;
+
+	private final long size;
+
+	private long index;
+
+	private long epochDay;
+
+	private final long[] cents = new long[5];
+
+	/**
+	 * Read the header of the encoded result
+	 * @param buffer The source, positioned at the start of an encoded result
+	 * @throws IllegalArgumentException If the buffer does not hold a result of a supported version
+	 */
+	public CashStreamDecoder(ByteBuffer buffer) {
+		byte version = buffer.get();
+		if (version != LoanResultCodec.VERSION) {
+			throw new IllegalArgumentException("Unsupported encoding version: " + version);
+		}
+		this.buffer = buffer;
+		this.apr = buffer.get() == 0 ? null : BigDecimal.valueOf(LoanResultCodec.readVarLong(buffer), 4);
+		this.size = LoanResultCodec.readVarLong(buffer);
+	}
+
+	/**
+	 * @return the APR of the result, null if it was not set
+	 */
+	public BigDecimal getApr() {
+		return apr;
+	}
+
+	/**
+	 * @return the number of cash streams of the result
+	 */
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return index < size;
+	}
+
+	@Override
+	public CashStream next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		int presence = buffer.get();
+		epochDay += LoanResultCodec.readVarLong(buffer);
+		CashStream cashStream = new CashStream();
+		cashStream.setDate(LocalDate.ofEpochDay(epochDay));
+		for (int i = 0; i < cents.length; i++) {
+			if ((presence & (1 << i)) != 0) {
+				cents[i] += LoanResultCodec.readVarLong(buffer);
+			} else {
+				cents[i] = 0;
+			}
+		}
+		cashStream.setAmount(toAmount(presence, LoanResultCodec.AMOUNT, cents[0]));
+		cashStream.setInterest(toAmount(presence, LoanResultCodec.INTEREST, cents[1]));
+		cashStream.setPrincipalRepaymentAmount(toAmount(presence, LoanResultCodec.PRINCIPAL_REPAYMENT_AMOUNT, cents[2]));
+		cashStream.setFees(toAmount(presence, LoanResultCodec.FEES, cents[3]));
+		cashStream.setInsuranceCost(toAmount(presence, LoanResultCodec.INSURANCE_COST, cents[4]));
+		index++;
+		return cashStream;
+	}
+
+	private static BigDecimal toAmount(int presence, int flag, long cents) {
+		return (presence & flag) == 0 ? null : BigDecimal.valueOf(cents, 2);
+	}
+
+}
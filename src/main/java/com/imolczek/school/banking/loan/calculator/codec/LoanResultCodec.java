@@ -0,0 +1,205 @@
+package com.imolczek.school.banking.loan.calculator.codec;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.imolczek.school.banking.loan.model.CashStream;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+/**
+ * A compact binary encoding of the results of the calculations, to store them in a cache or send them to another node.
+ * <p>
+ * The encoding starts with a version byte, a flag telling whether the APR is set, the APR as a number of 1/10000
+ * and the number of cash streams. Each cash stream follows as a byte telling which of its amounts are set,
+ * then its date and its amounts. The date is the number of days since the date of the previous cash stream, the first one
+ * being an epoch day; each amount is the number of cents from the same amount of the previous cash stream, an unset
+ * amount counting as zero. Installments repeating the same amount are thus encoded with a single byte.
+ * <p>
+ * All the integers are zig-zag varints: 7 bits per byte, the smallest absolute values taking the fewest bytes.
+ * The total interest is not encoded, it is calculated again from the interests when decoding.
+ * <p>
+ * All the methods read or write at the current position of the buffer and move it past the encoded result.
+ */
+public final class LoanResultCodec {
+
+	/**
+	 * Version of the encoding, written first
+	 */
+	public static final byte VERSION = 1;
+
+	static final int AMOUNT = 1;
+
+	static final int INTEREST = 1 << 1;
+
+	static final int PRINCIPAL_REPAYMENT_AMOUNT = 1 << 2;
+
+	static final int FEES = 1 << 3;
+
+	static final int INSURANCE_COST = 1 << 4;
+
+	private static final int APR_SCALE = 4;
+
+	private LoanResultCodec() {
+	}
+
+	/**
+	 * @param result The result to encode
+	 * @return A new buffer holding the encoded result, ready to be read
+	 * @throws ArithmeticException If an amount has more than 2 decimals or the APR more than 4
+	 */
+	public static ByteBuffer encode(LoanCalculationResult result) {
+		ByteBuffer buffer = ByteBuffer.allocate(getEncodedSize(result));
+		encode(result, buffer);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * @param result The result to encode
+	 * @param buffer The destination, which must have {@link #getEncodedSize(LoanCalculationResult)} bytes remaining
+	 * @throws ArithmeticException If an amount has more than 2 decimals or the APR more than 4
+	 * @throws java.nio.BufferOverflowException If the buffer is too small
+	 */
+	public static void encode(LoanCalculationResult result, ByteBuffer buffer) {
+		List<CashStream> cashStreams = result.getAmortizationSchedule().getCashStreamList();
+		buffer.put(VERSION);
+		if (result.getApr() == null) {
+			buffer.put((byte) 0);
+		} else {
+			buffer.put((byte) 1);
+			writeVarLong(buffer, toUnits(result.getApr(), APR_SCALE));
+		}
+		writeVarLong(buffer, cashStreams.size());
+
+		long previousEpochDay = 0;
+		long[] previous = new long[5];
+		long[] current = new long[5];
+		for (CashStream cashStream : cashStreams) {
+			int presence = read(cashStream, current);
+			buffer.put((byte) presence);
+			long epochDay = cashStream.getDate().toEpochDay();
+			writeVarLong(buffer, epochDay - previousEpochDay);
+			previousEpochDay = epochDay;
+			for (int i = 0; i < current.length; i++) {
+				if ((presence & (1 << i)) != 0) {
+					writeVarLong(buffer, current[i] - previous[i]);
+				}
+				previous[i] = current[i];
+			}
+		}
+	}
+
+	/**
+	 * @param result The result to encode
+	 * @return The number of bytes of the encoded result
+	 * @throws ArithmeticException If an amount has more than 2 decimals or the APR more than 4
+	 */
+	public static int getEncodedSize(LoanCalculationResult result) {
+		List<CashStream> cashStreams = result.getAmortizationSchedule().getCashStreamList();
+		int size = 2 + (result.getApr() == null ? 0 : getVarLongSize(toUnits(result.getApr(), APR_SCALE))) + getVarLongSize(cashStreams.size());
+		long previousEpochDay = 0;
+		long[] previous = new long[5];
+		long[] current = new long[5];
+		for (CashStream cashStream : cashStreams) {
+			int presence = read(cashStream, current);
+			long epochDay = cashStream.getDate().toEpochDay();
+			size += 1 + getVarLongSize(epochDay - previousEpochDay);
+			previousEpochDay = epochDay;
+			for (int i = 0; i < current.length; i++) {
+				if ((presence & (1 << i)) != 0) {
+					size += getVarLongSize(current[i] - previous[i]);
+				}
+				previous[i] = current[i];
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Decode a whole result
+	 * @param buffer The source, positioned at the start of an encoded result
+	 * @return The decoded result, with its total interest calculated
+	 * @throws IllegalArgumentException If the buffer does not hold a result of a supported version
+	 */
+	public static LoanCalculationResult decode(ByteBuffer buffer) {
+		CashStreamDecoder decoder = new CashStreamDecoder(buffer);
+		LoanCalculationResult result = new LoanCalculationResult();
+		List<CashStream> cashStreams = result.getAmortizationSchedule().getCashStreamList();
+		while (decoder.hasNext()) {
+			cashStreams.add(decoder.next());
+		}
+		result.setApr(decoder.getApr());
+		result.calculateTotalInterest();
+		return result;
+	}
+
+	/**
+	 * Decode the cash streams of a result one at a time, without building the amortization schedule
+	 * @param buffer The source, positioned at the start of an encoded result
+	 * @return A decoder positioned before the first cash stream
+	 * @throws IllegalArgumentException If the buffer does not hold a result of a supported version
+	 */
+	public static CashStreamDecoder stream(ByteBuffer buffer) {
+		return new CashStreamDecoder(buffer);
+	}
+
+	/**
+	 * Read the amounts of a cash stream in cents
+	 * @param cashStream The cash stream
+	 * @param cents Receives the amounts, zero when not set
+	 * @return The flags of the amounts that are set
+	 */
+	private static int read(CashStream cashStream, long[] cents) {
+		return read(cashStream.getAmount(), cents, 0)
+				| read(cashStream.getInterest(), cents, 1)
+				| read(cashStream.getPrincipalRepaymentAmount(), cents, 2)
+				| read(cashStream.getFees(), cents, 3)
+				| read(cashStream.getInsuranceCost(), cents, 4);
+	}
+
+	private static int read(BigDecimal amount, long[] cents, int index) {
+		if (amount == null) {
+			cents[index] = 0;
+			return 0;
+		}
+		cents[index] = toUnits(amount, 2);
+		return 1 << index;
+	}
+
+	private static long toUnits(BigDecimal value, int scale) {
+		return value.movePointRight(scale).longValueExact();
+	}
+
+	static void writeVarLong(ByteBuffer buffer, long value) {
+		long zigZag = (value << 1) ^ (value >> 63);
+		while ((zigZag & ~0x7FL) != 0) {
+			buffer.put((byte) ((zigZag & 0x7F) | 0x80));
+			zigZag >>>= 7;
+		}
+		buffer.put((byte) zigZag);
+	}
+
+	static long readVarLong(ByteBuffer buffer) {
+		long zigZag = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			zigZag |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return (zigZag >>> 1) ^ -(zigZag & 1);
+			}
+		}
+		throw new IllegalArgumentException("Malformed variable length integer");
+	}
+
+	static int getVarLongSize(long value) {
+		long zigZag = (value << 1) ^ (value >> 63);
+		int size = 1;
+		while ((zigZag & ~0x7FL) != 0) {
+			zigZag >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+}
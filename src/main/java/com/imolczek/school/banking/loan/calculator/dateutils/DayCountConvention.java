@@ -0,0 +1,86 @@
+package com.imolczek.school.banking.loan.calculator.dateutils;
+
+import java.time.LocalDate;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * How the fraction of a year between two dates is counted to apply an annual rate.
+ * The fraction is an integer accrual, in units of 1/{@link #getYearLength()} of a year, so that interests
+ * can be calculated exactly on long numbers.
+ */
+public enum DayCountConvention {
+
+	/**
+	 * Every month has 30 days and a year 360 days, the 31st of a month counting as the 30th (bond basis)
+	 */
+	THIRTY_360(360, 1) {
+		@Override
+		public long getAccrual(LoanDateUtil dateUtil, LocalDate start, LocalDate end) throws LoanCalculationException {
+			if (start.isAfter(end)) {
+				throw new LoanCalculationException("Start cannot be after end");
+			}
+			int startDay = Math.min(start.getDayOfMonth(), 30);
+			int endDay = end.getDayOfMonth() == 31 && startDay == 30 ? 30 : end.getDayOfMonth();
+			return 360L * (end.getYear() - start.getYear()) + 30 * (end.getMonthValue() - start.getMonthValue()) + endDay - startDay;
+		}
+	},
+
+	/**
+	 * The actual number of days, a year having 360 days
+	 */
+	ACTUAL_360(360, 365.25 / 360) {
+		@Override
+		public long getAccrual(LoanDateUtil dateUtil, LocalDate start, LocalDate end) throws LoanCalculationException {
+			if (start.isAfter(end)) {
+				throw new LoanCalculationException("Start cannot be after end");
+			}
+			return end.toEpochDay() - start.toEpochDay();
+		}
+	},
+
+	/**
+	 * The actual number of days, the days in a standard year counting for 1/365 and those in a leap year for 1/366 (ISDA)
+	 */
+	ACTUAL_ACTUAL(365 * 366, 1) {
+		@Override
+		public long getAccrual(LoanDateUtil dateUtil, LocalDate start, LocalDate end) throws LoanCalculationException {
+			long daysOfInterest = dateUtil.getNumberOfDaysBetweenDates(start, end);
+			return 366 * LoanDateUtil.getDays365(daysOfInterest) + 365 * LoanDateUtil.getDays366(daysOfInterest);
+		}
+	};
+
+	private final long yearLength;
+
+	private final double yearsPerCalendarYear;
+
+	private DayCountConvention(long yearLength, double yearsPerCalendarYear) {
+		this.yearLength = yearLength;
+		this.yearsPerCalendarYear = yearsPerCalendarYear;
+	}
+
+	/**
+	 * Determine the fraction of a year between both days
+	 * @param dateUtil The day-count engine
+	 * @param start
+	 * @param end
+	 * @return The accrual, in units of 1/{@link #getYearLength()} of a year
+	 * @throws LoanCalculationException
+	 */
+	public abstract long getAccrual(LoanDateUtil dateUtil, LocalDate start, LocalDate end) throws LoanCalculationException;
+
+	/**
+	 * @return the accrual of a whole year
+	 */
+	public long getYearLength() {
+		return yearLength;
+	}
+
+	/**
+	 * @return the number of years accrued over a calendar year, on average over four years
+	 */
+	public double getYearsPerCalendarYear() {
+		return yearsPerCalendarYear;
+	}
+
+}
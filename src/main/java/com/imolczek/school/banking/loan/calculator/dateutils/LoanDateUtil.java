@@ -1,12 +1,31 @@
 package com.imolczek.school.banking.loan.calculator.dateutils;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
 
+/**
+ * Splits the days between two dates into days belonging to standard years and days belonging to leap years.
+ * The first day is included and the last day excluded.
+ * The split is computed in constant time from epoch days: the number of days belonging to leap years that precede
+ * a given day follows from the count of leap years before its year, so no date is created nor any year iterated.
+ * Both counts are returned packed into a single long by {@link #getNumberOfDaysBetweenDates(LocalDate, LocalDate)},
+ * use {@link #getDays365(long)} and {@link #getDays366(long)} to read them.
+ */
 public class LoanDateUtil {
 
+	/**
+	 * Epoch day of 0000-01-01 in the proleptic ISO calendar, negated
+	 */
+	private static final long DAYS_0000_TO_1970 = 719528L;
+
+	/**
+	 * Number of days in a 400 years cycle
+	 */
+	private static final long DAYS_PER_CYCLE = 146097L;
+
+	private static final long DAYS_365_MASK = 0xFFFFFFFFL;
+
 	/**
 	 * Determine the number of days in a standard year between both days
 	 * @param start
@@ -15,37 +34,7 @@ public class LoanDateUtil {
 	 * @throws LoanCalculationException
 	 */
 	public long getNumberOfDays365BetweenDates(LocalDate start, LocalDate end) throws LoanCalculationException {
-		if (start.isAfter(end)) {
-			throw new LoanCalculationException("Start cannot be after end");
-		}
-		if (end.getYear() - start.getYear() > 1) {
-			long fullYearsDayCount = 0;
-			int middleYearBegin = start.getYear() + 1;
-			int middleYearEnd = end.getYear() - 1;
-			for(int i = middleYearBegin; i <= middleYearEnd; i++) {
-				if(!LocalDate.of(i, 1, 1).isLeapYear()) {
-					fullYearsDayCount += 365;
-				}
-			}
-			long before = getNumberOfDays365BetweenDates(start, LocalDate.of(start.getYear(), 12, 31));
-			long after = getNumberOfDays365BetweenDates(LocalDate.of(end.getYear(), 1, 1), end);
-			return before + fullYearsDayCount + after;
-		}
-		long days;
-		if (start.isLeapYear()) {
-			if (end.isLeapYear()) {
-				days = 0;
-			} else {
-				LocalDate startOfNonLeapYear = LocalDate.of(end.getYear(), 1, 1);
-				days = ChronoUnit.DAYS.between(startOfNonLeapYear, end);
-			}
-		} else if (end.isLeapYear()) {
-			LocalDate endOfNonLeapYear = LocalDate.of(start.getYear(), 12, 31);
-			days = ChronoUnit.DAYS.between(start, endOfNonLeapYear) + 1;
-		} else {
-			days = ChronoUnit.DAYS.between(start, end);
-		}
-		return days;
+		return getDays365(getNumberOfDaysBetweenDates(start, end));
 	}
 
 	/**
@@ -56,38 +45,107 @@ public class LoanDateUtil {
 	 * @throws LoanCalculationException
 	 */
 	public long getNumberOfDays366BetweenDates(LocalDate start, LocalDate end) throws LoanCalculationException {
+		return getDays366(getNumberOfDaysBetweenDates(start, end));
+	}
+
+	/**
+	 * Determine both the number of days in a standard year and in a leap year between both days
+	 * @param start
+	 * @param end
+	 * @return Both counts packed into a long, see {@link #getDays365(long)} and {@link #getDays366(long)}
+	 * @throws LoanCalculationException
+	 */
+	public long getNumberOfDaysBetweenDates(LocalDate start, LocalDate end) throws LoanCalculationException {
 		if (start.isAfter(end)) {
 			throw new LoanCalculationException("Start cannot be after end");
 		}
-		if (end.getYear() - start.getYear() > 1) {
-			long fullYearsDayCount = 0;
-			int middleYearBegin = start.getYear() + 1;
-			int middleYearEnd = end.getYear() - 1;
-			for(int i = middleYearBegin; i <= middleYearEnd; i++) {
-				if(LocalDate.of(i, 1, 1).isLeapYear()) {
-					fullYearsDayCount += 366;
-				}
-			}
-			long before = getNumberOfDays366BetweenDates(start, LocalDate.of(start.getYear(), 12, 31));
-			long after = getNumberOfDays366BetweenDates(LocalDate.of(end.getYear(), 1, 1), end);
-			return before + fullYearsDayCount + after;
+		long days = end.toEpochDay() - start.toEpochDay();
+		long days366 = getLeapDaysBefore(end.getYear(), end.getDayOfYear()) - getLeapDaysBefore(start.getYear(), start.getDayOfYear());
+		return pack(days - days366, days366);
+	}
+
+	/**
+	 * Determine both the number of days in a standard year and in a leap year between both epoch days
+	 * @param startEpochDay
+	 * @param endEpochDay
+	 * @return Both counts packed into a long, see {@link #getDays365(long)} and {@link #getDays366(long)}
+	 * @throws LoanCalculationException
+	 */
+	public long getNumberOfDaysBetweenEpochDays(long startEpochDay, long endEpochDay) throws LoanCalculationException {
+		if (startEpochDay > endEpochDay) {
+			throw new LoanCalculationException("Start cannot be after end");
 		}
-		long days;
-		if (start.isLeapYear()) {
-			if (end.isLeapYear()) {
-				days = ChronoUnit.DAYS.between(start, end);
-			} else {
-				LocalDate endOfLeapYear = LocalDate.of(start.getYear(), 12, 31);
-				days = ChronoUnit.DAYS.between(start, endOfLeapYear) + 1;
-			}
-		} else if (end.isLeapYear()) {
-			LocalDate startOfLeapYear = LocalDate.of(end.getYear(), 1, 1);
-			days = ChronoUnit.DAYS.between(startOfLeapYear, end);
+		long days366 = getLeapDaysBefore(endEpochDay) - getLeapDaysBefore(startEpochDay);
+		return pack(endEpochDay - startEpochDay - days366, days366);
+	}
+
+	/**
+	 * @param dayCount Both counts as returned by {@link #getNumberOfDaysBetweenDates(LocalDate, LocalDate)}
+	 * @return the number of days in a standard year
+	 */
+	public static long getDays365(long dayCount) {
+		return dayCount & DAYS_365_MASK;
+	}
+
+	/**
+	 * @param dayCount Both counts as returned by {@link #getNumberOfDaysBetweenDates(LocalDate, LocalDate)}
+	 * @return the number of days in a leap year
+	 */
+	public static long getDays366(long dayCount) {
+		return dayCount >>> 32;
+	}
+
+	private static long pack(long days365, long days366) {
+		return days366 << 32 | days365;
+	}
+
+	/**
+	 * Number of days belonging to a leap year from 0000-01-01 (included) to the given epoch day (excluded)
+	 * @param epochDay
+	 * @return
+	 */
+	private static long getLeapDaysBefore(long epochDay) {
+		// Estimate the year, then correct the estimation which can be one year off
+		long year = Math.floorDiv((epochDay + DAYS_0000_TO_1970) * 400, DAYS_PER_CYCLE);
+		long firstDayOfYear = getFirstEpochDayOfYear(year);
+		if (firstDayOfYear > epochDay) {
+			year--;
+			firstDayOfYear = getFirstEpochDayOfYear(year);
 		} else {
-			days = 0;
+			long firstDayOfNextYear = getFirstEpochDayOfYear(year + 1);
+			if (firstDayOfNextYear <= epochDay) {
+				year++;
+				firstDayOfYear = firstDayOfNextYear;
+			}
 		}
-		return days;
+		return 366 * getLeapYearsBefore(year) + (isLeapYear(year) ? epochDay - firstDayOfYear : 0);
+	}
+
+	/**
+	 * Number of days belonging to a leap year from 0000-01-01 (included) to the given day (excluded)
+	 * @param year
+	 * @param dayOfYear Day of the year, starting at 1
+	 * @return
+	 */
+	private static long getLeapDaysBefore(long year, int dayOfYear) {
+		return 366 * getLeapYearsBefore(year) + (isLeapYear(year) ? dayOfYear - 1 : 0);
+	}
+
+	/**
+	 * Number of leap years from year 0 (included) to the given year (excluded)
+	 * @param year
+	 * @return
+	 */
+	private static long getLeapYearsBefore(long year) {
+		return Math.floorDiv(year + 3, 4) - Math.floorDiv(year + 99, 100) + Math.floorDiv(year + 399, 400);
+	}
+
+	private static long getFirstEpochDayOfYear(long year) {
+		return 365 * year + getLeapYearsBefore(year) - DAYS_0000_TO_1970;
+	}
+
+	private static boolean isLeapYear(long year) {
+		return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
 	}
 
-	
 }
@@ -0,0 +1,147 @@
+package com.imolczek.school.banking.loan.calculator.dateutils;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * The reimbursement dates following a first reimbursement date at a given frequency, one per month on the same day
+ * of the month unless specified otherwise, together with the days of interest between consecutive dates and their
+ * accrual according to a {@link DayCountConvention}, computed for the whole calendar the first time the convention is requested.
+ * All the loans with the same first reimbursement date share these periods, only their first one depends on the
+ * loan start date. A calendar is immutable and can be shared between any number of calculations, see {@link PaymentCalendars}.
+ */
+public final class PaymentCalendar {
+
+	private final LoanDateUtil dateUtil;
+
+	private final LocalDate firstReimbursementDate;
+
+	private final PaymentFrequency frequency;
+
+	private final LocalDate[] dates;
+
+	/**
+	 * Days of interest between the previous date and each date, packed as by {@link LoanDateUtil#getNumberOfDaysBetweenDates(LocalDate, LocalDate)}
+	 */
+	private final long[] daysOfInterest;
+
+	/**
+	 * Accrual from the previous date to each date, by day-count convention, null until requested
+	 */
+	private final AtomicReferenceArray<long[]> accruals = new AtomicReferenceArray<long[]>(DayCountConvention.values().length);
+
+	/**
+	 * @param dateUtil The day-count engine
+	 * @param firstReimbursementDate The first reimbursement date, its day of the month must be between 1 and 28
+	 * @param horizon The number of reimbursement dates
+	 * @throws LoanCalculationException
+	 */
+	public PaymentCalendar(LoanDateUtil dateUtil, LocalDate firstReimbursementDate, int horizon) throws LoanCalculationException {
+		this(dateUtil, firstReimbursementDate, PaymentFrequency.MONTHLY, horizon);
+	}
+
+	/**
+	 * @param dateUtil The day-count engine
+	 * @param firstReimbursementDate The first reimbursement date, its day of the month must be between 1 and 28
+	 * unless the installments are weekly
+	 * @param frequency The frequency of the installments
+	 * @param horizon The number of reimbursement dates
+	 * @throws LoanCalculationException
+	 */
+	public PaymentCalendar(LoanDateUtil dateUtil, LocalDate firstReimbursementDate, PaymentFrequency frequency, int horizon) throws LoanCalculationException {
+		this.dateUtil = dateUtil;
+		this.firstReimbursementDate = firstReimbursementDate;
+		this.frequency = frequency;
+		this.dates = new LocalDate[horizon];
+		this.daysOfInterest = new long[horizon];
+
+		long previousEpochDay = firstReimbursementDate.toEpochDay();
+		for (int i = 0; i < horizon; i++) {
+			dates[i] = frequency.getDate(firstReimbursementDate, i);
+			long epochDay = dates[i].toEpochDay();
+			daysOfInterest[i] = dateUtil.getNumberOfDaysBetweenEpochDays(previousEpochDay, epochDay);
+			previousEpochDay = epochDay;
+		}
+	}
+
+	/**
+	 * Determines the position of the reimbursement following a date in a monthly calendar, see {@link PaymentFrequency#getIndexAfter(LocalDate, LocalDate)}
+	 * @param firstReimbursementDate The first reimbursement date
+	 * @param date Any date
+	 * @return The index, in any monthly calendar starting at the first reimbursement date, of the reimbursement following the date
+	 */
+	public static int getIndexAfter(LocalDate firstReimbursementDate, LocalDate date) {
+		return PaymentFrequency.MONTHLY.getIndexAfter(firstReimbursementDate, date);
+	}
+
+	/**
+	 * @return the firstReimbursementDate
+	 */
+	public LocalDate getFirstReimbursementDate() {
+		return firstReimbursementDate;
+	}
+
+	/**
+	 * @return the frequency of the installments
+	 */
+	public PaymentFrequency getFrequency() {
+		return frequency;
+	}
+
+	/**
+	 * @return the number of reimbursement dates
+	 */
+	public int getHorizon() {
+		return dates.length;
+	}
+
+	/**
+	 * @param index The index of the reimbursement, 0 for the first one
+	 * @return the date of the reimbursement
+	 */
+	public LocalDate getDate(int index) {
+		return dates[index];
+	}
+
+	/**
+	 * @param index The index of the reimbursement, 0 for the first one
+	 * @return the days of interest from the previous reimbursement, both counts packed as by {@link LoanDateUtil#getNumberOfDaysBetweenDates(LocalDate, LocalDate)},
+	 * none for the first reimbursement
+	 */
+	public long getDaysOfInterest(int index) {
+		return daysOfInterest[index];
+	}
+
+	/**
+	 * @param convention The day-count convention
+	 * @param index The index of the reimbursement, 0 for the first one
+	 * @return the accrual from the previous reimbursement, as returned by {@link DayCountConvention#getAccrual(LoanDateUtil, LocalDate, LocalDate)},
+	 * none for the first reimbursement
+	 * @throws LoanCalculationException
+	 */
+	public long getAccrual(DayCountConvention convention, int index) throws LoanCalculationException {
+		long[] accrual = accruals.get(convention.ordinal());
+		if (accrual == null) {
+			accrual = computeAccruals(convention);
+		}
+		return accrual[index];
+	}
+
+	/**
+	 * Computes the accruals of the whole calendar for a convention, the first computation to finish being kept
+	 * @param convention The day-count convention
+	 * @return The accrual from the previous date to each date
+	 * @throws LoanCalculationException
+	 */
+	private long[] computeAccruals(DayCountConvention convention) throws LoanCalculationException {
+		long[] accrual = new long[dates.length];
+		for (int i = 1; i < dates.length; i++) {
+			accrual[i] = convention.getAccrual(dateUtil, dates[i - 1], dates[i]);
+		}
+		accruals.compareAndSet(convention.ordinal(), null, accrual);
+		return accruals.get(convention.ordinal());
+	}
+
+}
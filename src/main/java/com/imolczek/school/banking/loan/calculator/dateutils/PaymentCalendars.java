@@ -0,0 +1,140 @@
+package com.imolczek.school.banking.loan.calculator.dateutils;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+/**
+ * Shares payment calendars between calculations, one per first reimbursement date and frequency.
+ * A calendar too short for a loan is replaced by a longer one, at least twice as long, so a calendar is built
+ * only a few times whatever the durations of the loans. Once the maximum number of calendars is reached,
+ * the least recently used one is evicted. The calendars are kept in an access-ordered map under a lock,
+ * which is never held while a calendar is built.
+ */
+public class PaymentCalendars {
+
+	/**
+	 * Default maximum number of calendars kept
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+	/**
+	 * Horizon of the shortest calendar built, 10 years of monthly installments
+	 */
+	private static final int MINIMUM_HORIZON = 120;
+
+	private final LoanDateUtil dateUtil;
+
+	private final int maximumSize;
+
+	/**
+	 * The calendars from the least to the most recently used, guarded by itself
+	 */
+	private final LinkedHashMap<Key, PaymentCalendar> calendars;
+
+	/**
+	 * @param dateUtil The day-count engine
+	 */
+	public PaymentCalendars(LoanDateUtil dateUtil) {
+		this(dateUtil, DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * @param dateUtil The day-count engine
+	 * @param maximumSize The maximum number of calendars kept
+	 */
+	public PaymentCalendars(LoanDateUtil dateUtil, int maximumSize) {
+		this.dateUtil = dateUtil;
+		this.maximumSize = maximumSize;
+		this.calendars = new LinkedHashMap<Key, PaymentCalendar>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, PaymentCalendar> eldest) {
+				return size() > PaymentCalendars.this.maximumSize;
+			}
+
+		};
+	}
+
+	/**
+	 * @param firstReimbursementDate The first reimbursement date
+	 * @param horizon The minimum number of reimbursement dates
+	 * @return A monthly calendar starting at the first reimbursement date with at least the given number of dates
+	 * @throws LoanCalculationException
+	 */
+	public PaymentCalendar get(LocalDate firstReimbursementDate, int horizon) throws LoanCalculationException {
+		return get(firstReimbursementDate, PaymentFrequency.MONTHLY, horizon);
+	}
+
+	/**
+	 * A calendar that cannot be kept, because the maximum size is 0 or it is evicted at once by other calculations,
+	 * is built again on every call: callers walking past the horizon of a calendar should ask for twice its horizon.
+	 * @param firstReimbursementDate The first reimbursement date
+	 * @param frequency The frequency of the installments
+	 * @param horizon The minimum number of reimbursement dates
+	 * @return A calendar starting at the first reimbursement date with at least the given number of dates
+	 * @throws LoanCalculationException
+	 */
+	public PaymentCalendar get(LocalDate firstReimbursementDate, PaymentFrequency frequency, int horizon) throws LoanCalculationException {
+		Key key = new Key(firstReimbursementDate, frequency);
+		PaymentCalendar calendar;
+		synchronized (calendars) {
+			calendar = calendars.get(key);
+		}
+		if (calendar != null && calendar.getHorizon() >= horizon) {
+			return calendar;
+		}
+
+		int newHorizon = Math.max(horizon, MINIMUM_HORIZON);
+		if (calendar != null) {
+			newHorizon = Math.max(newHorizon, 2 * calendar.getHorizon());
+		}
+		PaymentCalendar newCalendar = new PaymentCalendar(dateUtil, firstReimbursementDate, frequency, newHorizon);
+		synchronized (calendars) {
+			calendars.merge(key, newCalendar, (current, created) -> current.getHorizon() >= created.getHorizon() ? current : created);
+		}
+		return newCalendar;
+	}
+
+	/**
+	 * @return the number of calendars kept
+	 */
+	public int size() {
+		synchronized (calendars) {
+			return calendars.size();
+		}
+	}
+
+	private static final class Key {
+
+		private final LocalDate firstReimbursementDate;
+
+		private final PaymentFrequency frequency;
+
+		private Key(LocalDate firstReimbursementDate, PaymentFrequency frequency) {
+			this.firstReimbursementDate = firstReimbursementDate;
+			this.frequency = frequency;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return firstReimbursementDate.equals(other.firstReimbursementDate) && frequency == other.frequency;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(firstReimbursementDate, frequency);
+		}
+
+	}
+
+}
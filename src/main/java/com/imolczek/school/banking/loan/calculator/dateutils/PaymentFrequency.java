@@ -0,0 +1,90 @@
+package com.imolczek.school.banking.loan.calculator.dateutils;
+
+import java.time.LocalDate;
+
+/**
+ * How often the installments of a loan are paid.
+ * The reimbursement dates follow the first one by a whole number of periods: on the same day of the month for
+ * monthly and quarterly installments, on the same day of the week for weekly installments.
+ */
+public enum PaymentFrequency {
+
+	/**
+	 * Every 7 days
+	 */
+	WEEKLY(0, 7, 52),
+
+	/**
+	 * Every month
+	 */
+	MONTHLY(1, 0, 12),
+
+	/**
+	 * Every 3 months
+	 */
+	QUARTERLY(3, 0, 4);
+
+	/**
+	 * Length of a period in months, 0 if it is counted in days
+	 */
+	private final int months;
+
+	/**
+	 * Length of a period in days, 0 if it is counted in months
+	 */
+	private final int days;
+
+	private final int periodsPerYear;
+
+	private PaymentFrequency(int months, int days, int periodsPerYear) {
+		this.months = months;
+		this.days = days;
+		this.periodsPerYear = periodsPerYear;
+	}
+
+	/**
+	 * @return true if the reimbursements fall on the same day of the month, whose day must then be between 1 and 28
+	 */
+	public boolean isMonthBased() {
+		return months > 0;
+	}
+
+	/**
+	 * @param firstReimbursementDate The first reimbursement date
+	 * @param index The index of the reimbursement, 0 for the first one
+	 * @return the date of the reimbursement
+	 */
+	public LocalDate getDate(LocalDate firstReimbursementDate, int index) {
+		if (months > 0) {
+			return firstReimbursementDate.plusMonths((long) months * index);
+		}
+		return firstReimbursementDate.plusDays((long) days * index);
+	}
+
+	/**
+	 * Determines the position of the reimbursement following a date: the first reimbursement date if the date is before it,
+	 * otherwise the reimbursement ending the period following the one the date falls in, periods being counted
+	 * in calendar months, or in weeks, from the first reimbursement date
+	 * @param firstReimbursementDate The first reimbursement date
+	 * @param date Any date
+	 * @return The index, in any calendar starting at the first reimbursement date, of the reimbursement following the date
+	 */
+	public int getIndexAfter(LocalDate firstReimbursementDate, LocalDate date) {
+		if (date.isBefore(firstReimbursementDate)) {
+			return 0;
+		}
+		if (months > 0) {
+			int elapsedMonths = (date.getYear() - firstReimbursementDate.getYear()) * 12 + date.getMonthValue() - firstReimbursementDate.getMonthValue();
+			return elapsedMonths / months + 1;
+		}
+		return (int) ((date.toEpochDay() - firstReimbursementDate.toEpochDay()) / days) + 1;
+	}
+
+	/**
+	 * @return the number of installments paid in a year
+	 */
+	public int getPeriodsPerYear() {
+		return periodsPerYear;
+	}
+
+}
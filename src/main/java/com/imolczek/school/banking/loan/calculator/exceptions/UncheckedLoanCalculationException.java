@@ -0,0 +1,28 @@
+package com.imolczek.school.banking.loan.calculator.exceptions;
+
+/**
+ * Wraps a LoanCalculationException where a checked exception cannot be thrown, such as in an Iterator or a Stream
+ */
+public class UncheckedLoanCalculationException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 3818406424207366126L;
+
+	/**
+	 * @param cause the wrapped exception
+	 */
+	public UncheckedLoanCalculationException(LoanCalculationException cause) {
+		super(cause.getMessage(), cause);
+	}
+
+	/**
+	 * @return the wrapped exception
+	 */
+	@Override
+	public LoanCalculationException getCause() {
+		return (LoanCalculationException) super.getCause();
+	}
+
+}
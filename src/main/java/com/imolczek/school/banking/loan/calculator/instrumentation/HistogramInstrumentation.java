@@ -0,0 +1,92 @@
+package com.imolczek.school.banking.loan.calculator.instrumentation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps histograms of all the measurements, and counts the failures by exception class
+ */
+public class HistogramInstrumentation implements Instrumentation {
+
+	private final Histogram validationTimes = new Histogram();
+
+	private final Histogram scheduleTimes = new Histogram();
+
+	private final Histogram scheduleLengths = new Histogram();
+
+	private final Histogram aprTimes = new Histogram();
+
+	private final Histogram aprIterations = new Histogram();
+
+	private final ConcurrentHashMap<String, LongAdder> failures = new ConcurrentHashMap<String, LongAdder>();
+
+	@Override
+	public void validated(long durationNanos) {
+		validationTimes.record(durationNanos);
+	}
+
+	@Override
+	public void scheduleCalculated(int numberOfInstallments, long durationNanos) {
+		scheduleTimes.record(durationNanos);
+		scheduleLengths.record(numberOfInstallments);
+	}
+
+	@Override
+	public void aprCalculated(int iterations, long durationNanos) {
+		aprTimes.record(durationNanos);
+		aprIterations.record(iterations);
+	}
+
+	@Override
+	public void failed(Exception exception) {
+		failures.computeIfAbsent(exception.getClass().getName(), name -> new LongAdder()).increment();
+	}
+
+	/**
+	 * @return the durations of the validations in nanoseconds
+	 */
+	public Histogram getValidationTimes() {
+		return validationTimes;
+	}
+
+	/**
+	 * @return the durations of the schedule calculations in nanoseconds
+	 */
+	public Histogram getScheduleTimes() {
+		return scheduleTimes;
+	}
+
+	/**
+	 * @return the numbers of installments of the schedules
+	 */
+	public Histogram getScheduleLengths() {
+		return scheduleLengths;
+	}
+
+	/**
+	 * @return the durations of the APR calculations in nanoseconds
+	 */
+	public Histogram getAprTimes() {
+		return aprTimes;
+	}
+
+	/**
+	 * @return the numbers of iterations of the APR solver
+	 */
+	public Histogram getAprIterations() {
+		return aprIterations;
+	}
+
+	/**
+	 * @return the number of failures by exception class name
+	 */
+	public Map<String, Long> getFailures() {
+		Map<String, Long> snapshot = new TreeMap<String, Long>();
+		failures.forEach((name, count) -> snapshot.put(name, count.sum()));
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+}
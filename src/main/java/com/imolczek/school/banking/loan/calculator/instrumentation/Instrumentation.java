@@ -0,0 +1,48 @@
+package com.imolczek.school.banking.loan.calculator.instrumentation;
+
+/**
+ * Receives measurements from the calculators.
+ * Every method is called on the calculation thread, so implementations must be thread-safe and fast.
+ * All the methods do nothing by default, an implementation only overrides those it is interested in.
+ * Calculators registered as OSGi services pick up an Instrumentation service when one is registered.
+ */
+public interface Instrumentation {
+
+	/**
+	 * Instrumentation that ignores all the measurements, used when none is set
+	 */
+	Instrumentation NO_OP = new Instrumentation() {
+	};
+
+	/**
+	 * The inputs of a calculation were validated: the controls specific to the calculation,
+	 * preceded by the building of the loan parameters for the inputs set on a calculator
+	 * @param durationNanos The duration of the validation in nanoseconds
+	 */
+	default void validated(long durationNanos) {
+	}
+
+	/**
+	 * The installments of a loan were calculated, whether or not an amortization schedule was built
+	 * @param numberOfInstallments The number of installments
+	 * @param durationNanos The duration of the calculation in nanoseconds
+	 */
+	default void scheduleCalculated(int numberOfInstallments, long durationNanos) {
+	}
+
+	/**
+	 * The APR of a loan was determined
+	 * @param iterations The number of iterations of the solver
+	 * @param durationNanos The duration of the search, verification included, in nanoseconds
+	 */
+	default void aprCalculated(int iterations, long durationNanos) {
+	}
+
+	/**
+	 * A calculation failed
+	 * @param exception The exception thrown to the caller
+	 */
+	default void failed(Exception exception) {
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.imolczek.school.banking.loan.calculator.portfolio;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Pattern;
+
+/**
+ * Converts delimited text loan files into the binary loans files read by the {@link PortfolioRunner}.
+ * The first line is a header. The following lines hold, in this order: the loan identifier, the annual rate (0.05 for 5%),
+ * the loan amount, the balloon (may be empty), the monthly installment, the loan start date and the first reimbursement date,
+ * dates being formatted as 2019-12-05.
+ * Lines are converted one at a time, so the whole file is never held in memory.
+ */
+public class LoanFileConverter {
+
+	private static final int RECORDS_PER_WRITE = 1024;
+
+	private static final int NUMBER_OF_FIELDS = 7;
+
+	private final Pattern separator;
+
+	/**
+	 * Values are separated by semicolons
+	 */
+	public LoanFileConverter() {
+		this(';');
+	}
+
+	/**
+	 * @param separator The character separating the values of a line
+	 */
+	public LoanFileConverter(char separator) {
+		this.separator = Pattern.compile(Pattern.quote(String.valueOf(separator)));
+	}
+
+	/**
+	 * @param textFile The delimited text loans file
+	 * @param loanFile The binary loans file, replaced if it exists
+	 * @return The number of loans converted
+	 * @throws IOException If a file cannot be read or written, or a line is malformed
+	 */
+	public long convert(Path textFile, Path loanFile) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(RECORDS_PER_WRITE * LoanRecordFormat.LOAN_RECORD_SIZE);
+		long count = 0;
+		try (BufferedReader reader = Files.newBufferedReader(textFile, StandardCharsets.UTF_8);
+				FileChannel channel = FileChannel.open(loanFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			reader.readLine();
+			long lineNumber = 1;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				if (buffer.remaining() < LoanRecordFormat.LOAN_RECORD_SIZE) {
+					flush(buffer, channel);
+				}
+				convertLine(line, lineNumber, buffer);
+				count++;
+			}
+			flush(buffer, channel);
+		}
+		return count;
+	}
+
+	private void convertLine(String line, long lineNumber, ByteBuffer buffer) throws IOException {
+		String[] fields = separator.split(line, -1);
+		if (fields.length != NUMBER_OF_FIELDS) {
+			throw new IOException("Line " + lineNumber + " has " + fields.length + " values instead of " + NUMBER_OF_FIELDS);
+		}
+		try {
+			String balloon = fields[3].trim();
+			LoanRecordFormat.writeLoan(buffer,
+					Long.parseLong(fields[0].trim()),
+					new BigDecimal(fields[1].trim()),
+					new BigDecimal(fields[2].trim()),
+					balloon.isEmpty() ? BigDecimal.ZERO : new BigDecimal(balloon),
+					new BigDecimal(fields[4].trim()),
+					LocalDate.parse(fields[5].trim()),
+					LocalDate.parse(fields[6].trim()));
+		} catch (NumberFormatException | DateTimeParseException | ArithmeticException e) {
+			throw new IOException("Line " + lineNumber + " is malformed: " + e.getMessage(), e);
+		}
+	}
+
+	private void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.imolczek.school.banking.loan.calculator.portfolio;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+
+/**
+ * The fixed-width binary records of the portfolio files, big-endian, without any header.
+ * Rates are numbers of 1/10000, amounts numbers of cents and dates epoch days.
+ * <p>
+ * A loan record holds, in this order: the loan identifier (long), the annual rate (int), the loan amount (long),
+ * the balloon (long), the monthly installment (long), the loan start date (int) and the first reimbursement date (int).
+ * <p>
+ * A result record holds, in this order: the loan identifier (long), the status (int, see {@link ResultStatus}),
+ * the number of installments (int), the APR (int), the total interest (long), the last installment (long)
+ * and the last reimbursement date (int). All the figures are zero if the loan could not be calculated.
+ * <p>
+ * All the methods read or write at the current position of the buffer and move it past the record.
+ */
+public final class LoanRecordFormat {
+
+	/**
+	 * Size of a loan record in bytes
+	 */
+	public static final int LOAN_RECORD_SIZE = 8 + 4 + 8 + 8 + 8 + 4 + 4;
+
+	/**
+	 * Size of a result record in bytes
+	 */
+	public static final int RESULT_RECORD_SIZE = 8 + 4 + 4 + 4 + 8 + 8 + 4;
+
+	private LoanRecordFormat() {
+	}
+
+	/**
+	 * @param buffer The destination
+	 * @param loanId The identifier of the loan
+	 * @param parameters The loan parameters, including the monthly installment
+	 */
+	public static void writeLoan(ByteBuffer buffer, long loanId, LoanParameters parameters) {
+		writeLoan(buffer, loanId, parameters.getAnnualRate(), parameters.getLoanAmount(), parameters.getBalloon(),
+				parameters.getMonthlyInstallment(), parameters.getLoanStartDate(), parameters.getFirstReimbursementDate());
+	}
+
+	/**
+	 * Write the values of a loan as they are: they are only validated when the loan is calculated
+	 * @param buffer The destination
+	 * @param loanId The identifier of the loan
+	 * @param annualRate The annual rate, rounded to 4 decimals
+	 * @param loanAmount The loan amount, rounded to the cent
+	 * @param balloon The balloon, rounded to the cent
+	 * @param monthlyInstallment The monthly installment, rounded to the cent
+	 * @param loanStartDate The loan start date
+	 * @param firstReimbursementDate The first reimbursement date
+	 * @throws ArithmeticException If a value does not fit in its field
+	 */
+	public static void writeLoan(ByteBuffer buffer, long loanId, BigDecimal annualRate, BigDecimal loanAmount, BigDecimal balloon,
+			BigDecimal monthlyInstallment, LocalDate loanStartDate, LocalDate firstReimbursementDate) {
+		buffer.putLong(loanId);
+		buffer.putInt(annualRate.setScale(4, BigDecimal.ROUND_HALF_UP).unscaledValue().intValueExact());
+		buffer.putLong(toCents(loanAmount));
+		buffer.putLong(toCents(balloon));
+		buffer.putLong(toCents(monthlyInstallment));
+		buffer.putInt(Math.toIntExact(loanStartDate.toEpochDay()));
+		buffer.putInt(Math.toIntExact(firstReimbursementDate.toEpochDay()));
+	}
+
+	/**
+	 * Read the identifier of a loan, the parameters following it must be read next
+	 * @param buffer The source
+	 * @return The identifier of the loan
+	 */
+	public static long readLoanId(ByteBuffer buffer) {
+		return buffer.getLong();
+	}
+
+	/**
+	 * Read the parameters of a loan, following its identifier
+	 * @param buffer The source
+	 * @return A builder holding the parameters, not validated yet
+	 */
+	public static LoanParameters.Builder readParameters(ByteBuffer buffer) {
+		return LoanParameters.builder()
+				.annualRate(BigDecimal.valueOf(buffer.getInt(), 4))
+				.loanAmount(BigDecimal.valueOf(buffer.getLong(), 2))
+				.balloon(BigDecimal.valueOf(buffer.getLong(), 2))
+				.monthlyInstallment(BigDecimal.valueOf(buffer.getLong(), 2))
+				.loanStartDate(LocalDate.ofEpochDay(buffer.getInt()))
+				.firstReimbursementDate(LocalDate.ofEpochDay(buffer.getInt()));
+	}
+
+	/**
+	 * @param buffer The destination
+	 * @param loanId The identifier of the loan
+	 * @param summary The key figures of the loan
+	 */
+	public static void writeResult(ByteBuffer buffer, long loanId, LoanSummary summary) {
+		buffer.putLong(loanId);
+		buffer.putInt(ResultStatus.CALCULATED.ordinal());
+		buffer.putInt(summary.getNumberOfInstallments());
+		buffer.putInt(summary.getApr().setScale(4, BigDecimal.ROUND_HALF_UP).unscaledValue().intValueExact());
+		buffer.putLong(toCents(summary.getTotalInterest()));
+		if (summary.getNumberOfInstallments() > 0) {
+			buffer.putLong(toCents(summary.getLastInstallment()));
+			buffer.putInt(Math.toIntExact(summary.getLastReimbursementDate().toEpochDay()));
+		} else {
+			buffer.putLong(0);
+			buffer.putInt(0);
+		}
+	}
+
+	/**
+	 * @param buffer The destination
+	 * @param loanId The identifier of the loan
+	 * @param status Why the loan could not be calculated
+	 */
+	public static void writeFailure(ByteBuffer buffer, long loanId, ResultStatus status) {
+		buffer.putLong(loanId);
+		buffer.putInt(status.ordinal());
+		buffer.putInt(0);
+		buffer.putInt(0);
+		buffer.putLong(0);
+		buffer.putLong(0);
+		buffer.putInt(0);
+	}
+
+	/**
+	 * @param buffer The source
+	 * @return The result
+	 */
+	public static PortfolioResult readResult(ByteBuffer buffer) {
+		long loanId = buffer.getLong();
+		ResultStatus status = ResultStatus.values()[buffer.getInt()];
+		int numberOfInstallments = buffer.getInt();
+		BigDecimal apr = BigDecimal.valueOf(buffer.getInt(), 4);
+		BigDecimal totalInterest = BigDecimal.valueOf(buffer.getLong(), 2);
+		BigDecimal lastInstallment = BigDecimal.valueOf(buffer.getLong(), 2);
+		LocalDate lastReimbursementDate = LocalDate.ofEpochDay(buffer.getInt());
+		if (status != ResultStatus.CALCULATED) {
+			return new PortfolioResult(loanId, status, null);
+		}
+		if (numberOfInstallments == 0) {
+			return new PortfolioResult(loanId, status, new LoanSummary(apr, totalInterest, 0, null, null));
+		}
+		return new PortfolioResult(loanId, status, new LoanSummary(apr, totalInterest, numberOfInstallments, lastInstallment, lastReimbursementDate));
+	}
+
+	private static long toCents(BigDecimal amount) {
+		return amount.setScale(2, BigDecimal.ROUND_HALF_UP).unscaledValue().longValueExact();
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.imolczek.school.banking.loan.calculator.portfolio;
+
+/**
+ * The outcome of a portfolio run
+ */
+public class PortfolioReport {
+
+	private final long numberOfLoans;
+
+	private final long numberOfFailures;
+
+	/**
+	 * @param numberOfLoans the number of loans of the portfolio
+	 * @param numberOfFailures the number of loans that could not be calculated
+	 */
+	public PortfolioReport(long numberOfLoans, long numberOfFailures) {
+		this.numberOfLoans = numberOfLoans;
+		this.numberOfFailures = numberOfFailures;
+	}
+
+	/**
+	 * @return the numberOfLoans
+	 */
+	public long getNumberOfLoans() {
+		return numberOfLoans;
+	}
+
+	/**
+	 * @return the numberOfFailures
+	 */
+	public long getNumberOfFailures() {
+		return numberOfFailures;
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.imolczek.school.banking.loan.calculator.portfolio;
+
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+
+/**
+ * A record of a result file, as written by the {@link PortfolioRunner}
+ */
+public class PortfolioResult {
+
+	private final long loanId;
+
+	private final ResultStatus status;
+
+	private final LoanSummary summary;
+
+	/**
+	 * @param loanId the identifier of the loan
+	 * @param status the outcome of the calculation
+	 * @param summary the key figures of the loan, null if it could not be calculated
+	 */
+	public PortfolioResult(long loanId, ResultStatus status, LoanSummary summary) {
+		this.loanId = loanId;
+		this.status = status;
+		this.summary = summary;
+	}
+
+	/**
+	 * @return the loanId
+	 */
+	public long getLoanId() {
+		return loanId;
+	}
+
+	/**
+	 * @return the status
+	 */
+	public ResultStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the summary, null if the loan could not be calculated
+	 */
+	public LoanSummary getSummary() {
+		return summary;
+	}
+
+}
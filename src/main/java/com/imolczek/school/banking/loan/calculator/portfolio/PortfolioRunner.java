@@ -0,0 +1,143 @@
+package com.imolczek.school.banking.loan.calculator.portfolio;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+import com.imolczek.school.banking.loan.calculator.CalculationEngine;
+import com.imolczek.school.banking.loan.calculator.DailyRates;
+import com.imolczek.school.banking.loan.calculator.LoanCalculationService;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+
+/**
+ * Calculates the APR, the total interest and the last installment of every loan of a binary loans file,
+ * see {@link LoanRecordFormat}, and writes one result record per loan, in the same order, to a binary results file.
+ * Both files are memory-mapped one chunk of loans at a time and the chunks are calculated in parallel on a dedicated ForkJoinPool.
+ * No amortization schedule is built and nothing is kept from one loan to the next, so the heap used does not depend
+ * on the size of the portfolio. A loan that cannot be calculated does not stop the run: its result record carries the reason.
+ */
+public class PortfolioRunner {
+
+	/**
+	 * Default number of loans per chunk
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 16384;
+
+	private final ForkJoinPool pool;
+
+	private final LoanCalculationService calculator;
+
+	private final int chunkSize;
+
+	/**
+	 * Uses a standard calculator working on long numbers of cents and as many workers as there are available processors
+	 */
+	public PortfolioRunner() {
+		this(new StandardLoanCalculator(CalculationEngine.LONG_CENTS), Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param calculator The calculator shared by all the workers
+	 * @param parallelism The number of workers
+	 * @param chunkSize The number of loans mapped and calculated at once by a worker
+	 */
+	public PortfolioRunner(LoanCalculationService calculator, int parallelism, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("The chunk size must be at least 1");
+		}
+		this.calculator = calculator;
+		this.pool = new ForkJoinPool(parallelism);
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Calculate every loan of the loans file
+	 * @param loanFile The binary loans file
+	 * @param resultFile The binary results file, replaced if it exists
+	 * @return The number of loans and of failures
+	 * @throws IOException If a file cannot be read or written
+	 * @throws LoanCalculationException If the run was interrupted
+	 */
+	public PortfolioReport run(Path loanFile, Path resultFile) throws IOException, LoanCalculationException {
+		try (FileChannel loans = FileChannel.open(loanFile, StandardOpenOption.READ);
+				FileChannel results = FileChannel.open(resultFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = loans.size();
+			if (size % LoanRecordFormat.LOAN_RECORD_SIZE != 0) {
+				throw new IOException("The size of the loans file is not a multiple of " + LoanRecordFormat.LOAN_RECORD_SIZE + " bytes");
+			}
+			long numberOfLoans = size / LoanRecordFormat.LOAN_RECORD_SIZE;
+			if (numberOfLoans > 0) {
+				// Size the results file once, so that the workers only map existing regions
+				results.write(ByteBuffer.allocate(1), numberOfLoans * LoanRecordFormat.RESULT_RECORD_SIZE - 1);
+			}
+
+			long numberOfChunks = (numberOfLoans + chunkSize - 1) / chunkSize;
+			LongAdder numberOfFailures = new LongAdder();
+			try {
+				pool.submit(() -> LongStream.range(0, numberOfChunks).parallel()
+						.forEach(chunk -> run(loans, results, chunk, numberOfLoans, numberOfFailures))).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new LoanCalculationException("The portfolio run was interrupted");
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof UncheckedIOException) {
+					throw ((UncheckedIOException) e.getCause()).getCause();
+				}
+				throw new LoanCalculationException("The portfolio run failed: " + e.getCause());
+			}
+			return new PortfolioReport(numberOfLoans, numberOfFailures.sum());
+		}
+	}
+
+	/**
+	 * Stop the workers once the running portfolios are complete
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	private void run(FileChannel loans, FileChannel results, long chunk, long numberOfLoans, LongAdder numberOfFailures) {
+		long firstLoan = chunk * chunkSize;
+		int count = (int) Math.min(chunkSize, numberOfLoans - firstLoan);
+		try {
+			MappedByteBuffer loanBuffer = loans.map(FileChannel.MapMode.READ_ONLY, firstLoan * LoanRecordFormat.LOAN_RECORD_SIZE, (long) count * LoanRecordFormat.LOAN_RECORD_SIZE);
+			MappedByteBuffer resultBuffer = results.map(FileChannel.MapMode.READ_WRITE, firstLoan * LoanRecordFormat.RESULT_RECORD_SIZE, (long) count * LoanRecordFormat.RESULT_RECORD_SIZE);
+
+			// Consecutive loans often have the same rate, they share their daily rates
+			DailyRates dailyRates = null;
+			for (int i = 0; i < count; i++) {
+				// A failure may leave a record partly read or written
+				loanBuffer.position(i * LoanRecordFormat.LOAN_RECORD_SIZE);
+				resultBuffer.position(i * LoanRecordFormat.RESULT_RECORD_SIZE);
+				long loanId = LoanRecordFormat.readLoanId(loanBuffer);
+				try {
+					LoanParameters parameters = LoanRecordFormat.readParameters(loanBuffer).dailyRates(dailyRates).build();
+					dailyRates = parameters.getDailyRates();
+					LoanRecordFormat.writeResult(resultBuffer, loanId, calculator.calculateSummaryForFixedInstallment(parameters));
+				} catch (LoanSettingsException e) {
+					LoanRecordFormat.writeFailure(resultBuffer, loanId, ResultStatus.INVALID_SETTINGS);
+					numberOfFailures.increment();
+				} catch (LoanCalculationException | RuntimeException e) {
+					resultBuffer.position(i * LoanRecordFormat.RESULT_RECORD_SIZE);
+					LoanRecordFormat.writeFailure(resultBuffer, loanId, ResultStatus.CALCULATION_FAILED);
+					numberOfFailures.increment();
+				}
+			}
+			resultBuffer.force();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.imolczek.school.banking.loan.calculator.portfolio;
+
+/**
+ * The outcome of the calculation of one loan of a portfolio
+ */
+public enum ResultStatus {
+
+	/**
+	 * The loan was calculated
+	 */
+	CALCULATED,
+
+	/**
+	 * The parameters of the loan are not valid
+	 */
+	INVALID_SETTINGS,
+
+	/**
+	 * The calculation of the loan failed
+	 */
+	CALCULATION_FAILED
+
+}
@@ -0,0 +1,141 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.imolczek.school.banking.loan.calculator.APRCalculator;
+import com.imolczek.school.banking.loan.calculator.DayCountLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.apr.APRCashFlows;
+import com.imolczek.school.banking.loan.calculator.apr.BrentAPRSolver;
+import com.imolczek.school.banking.loan.calculator.apr.NetPresentValues;
+import com.imolczek.school.banking.loan.calculator.dateutils.DayCountConvention;
+import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentFrequency;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+import junit.framework.TestCase;
+
+public class APRCalculatorTest extends TestCase {
+
+	private LoanCalculationResult calculate() throws Exception {
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		calculator.setAnnualRate(new BigDecimal("0.0365"));
+		calculator.setLoanStartDate(LocalDate.of(2017, 1, 12));
+		calculator.setFirstReimbursementDate(LocalDate.of(2017, 2, 7));
+		calculator.setLoanAmount(new BigDecimal(10000));
+		calculator.setMonthlyInstallment(new BigDecimal(500));
+		return calculator.calculateForFixedInstallment();
+	}
+
+	public void testAPR() throws Exception {
+		LoanCalculationResult result = calculate();
+		// A daily rate of 0.0001 compounded at every monthly installment
+		assertEquals(new BigDecimal("0.0371"), result.getApr());
+	}
+
+	public void testBalloonAPR() throws Exception {
+		DayCountLoanCalculator calculator = new DayCountLoanCalculator(DayCountConvention.THIRTY_360, PaymentFrequency.MONTHLY);
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.12"))
+				.loanStartDate(LocalDate.of(2023, 1, 15))
+				.firstReimbursementDate(LocalDate.of(2023, 2, 15))
+				.loanAmount(new BigDecimal(10000))
+				.balloon(new BigDecimal(9000))
+				.numberOfInstallments(1)
+				.build();
+		LoanCalculationResult result = calculator.calculateForFixedDuration(parameters);
+		// 1000 of principal and 10000 x 12% / 12 of interests, then the balloon of 9000 the same day
+		assertEquals(new BigDecimal("1100.00"), result.getAmortizationSchedule().getCashStreamList().get(1).getAmount());
+		// 10100 repaid 31 days after 10000 was lent: 1.01 ^ (365 / 31) - 1
+		assertEquals(new BigDecimal("0.1243"), result.getApr());
+		assertEquals(result.getApr(), calculator.calculateSummaryForFixedInstallment(parameters.toBuilder().monthlyInstallment(new BigDecimal("1100")).build()).getApr());
+		new APRCalculator().calculateAPR(result);
+		assertEquals(new BigDecimal("0.1243"), result.getApr());
+
+		// A balloon equal to the loan amount leaves no installment, nothing is charged
+		LoanParameters balloonOnly = parameters.toBuilder().balloon(parameters.getLoanAmount()).build();
+		assertEquals(new BigDecimal("0.0000"), calculator.calculateForFixedDuration(balloonOnly).getApr());
+		// So does an empty loan
+		LoanParameters empty = parameters.toBuilder().loanAmount(BigDecimal.ZERO).balloon(BigDecimal.ZERO).build();
+		assertEquals(new BigDecimal("0.0000"), calculator.calculateForFixedDuration(empty).getApr());
+	}
+
+	public void testOneSidedCashFlows() throws Exception {
+		try {
+			new APRCalculator().calculateAPR(new APRCashFlows(new double[] { -1000, 0 }, new double[] { 0, 1 }));
+			fail("Nothing is repaid");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+	public void testSolversAgree() throws Exception {
+		LoanCalculationResult result = calculate();
+		BigDecimal newtonAPR = result.getApr();
+		new APRCalculator(new BrentAPRSolver()).calculateAPR(result);
+		assertEquals(newtonAPR, result.getApr());
+	}
+
+	public void testSolversAgreeOnRandomLoans() throws Exception {
+		APRCalculator newton = new APRCalculator();
+		APRCalculator brent = new APRCalculator(new BrentAPRSolver());
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		LoanDateUtil dateUtil = new LoanDateUtil();
+		LoanScenarioGenerator generator = new LoanScenarioGenerator(20170112L);
+		for (int i = 0; i < 200; i++) {
+			LoanCalculationResult result = calculator.calculateForFixedInstallment(generator.next());
+			APRCashFlows cashFlows = APRCashFlows.compile(result.getAmortizationSchedule(), dateUtil);
+			assertEquals("Loan " + i, result.getApr(), newton.calculateAPR(cashFlows));
+			assertEquals("Loan " + i, result.getApr(), brent.calculateAPR(cashFlows));
+		}
+	}
+
+	public void testNetPresentValues() throws Exception {
+		LoanCalculationResult result = calculate();
+		APRCashFlows cashFlows = APRCashFlows.compile(result.getAmortizationSchedule(), new LoanDateUtil());
+		double[] rates = new double[41];
+		for (int j = 0; j < rates.length; j++) {
+			rates[j] = j * 0.0025;
+		}
+		NetPresentValues values = NetPresentValues.evaluate(cashFlows, rates);
+		assertEquals(rates.length, values.size());
+		for (int j = 0; j < rates.length; j++) {
+			assertEquals(rates[j], values.getRate(j), 0);
+			assertEquals(cashFlows.valueAt(rates[j]), values.getValue(j), 1e-9);
+			assertEquals(cashFlows.derivativeAt(rates[j]), values.getDerivative(j), 1e-9);
+		}
+		// The APR of 3.71% lies between 3.50% and 3.75%
+		assertEquals(14, values.findBracket());
+
+		double[] onlyValues = new double[rates.length];
+		cashFlows.evaluate(rates, onlyValues, null);
+		assertEquals(values.getValue(20), onlyValues[20], 0);
+	}
+
+	public void testArraysAreCopied() throws Exception {
+		double[] amounts = { -1000, 1050 };
+		double[] exponents = { 0, 1 };
+		APRCashFlows cashFlows = new APRCashFlows(amounts, exponents);
+		// The caller reuses its buffers for another loan
+		amounts[1] = 2000;
+		exponents[1] = 2;
+		assertEquals(0, cashFlows.valueAt(0.05), 1e-9);
+		assertEquals(0.05, new APRCalculator().calculateAPR(cashFlows).doubleValue(), 0);
+	}
+
+	public void testIterationCap() throws Exception {
+		LoanCalculationResult result = calculate();
+		BrentAPRSolver solver = new BrentAPRSolver();
+		solver.setMaxIterations(1);
+		try {
+			new APRCalculator(solver).calculateAPR(result);
+			fail("The APR cannot converge in a single iteration");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.imolczek.school.banking.loan.calculator.LoanCalculationService;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.ScheduleChange;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.async.AsyncLoanCalculationService;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+import junit.framework.TestCase;
+
+public class AsyncLoanCalculationServiceTest extends TestCase {
+
+	public void testCoalescing() throws Exception {
+		BlockingCalculator calculator = new BlockingCalculator();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			AsyncLoanCalculationService service = new AsyncLoanCalculationService(calculator, executor, 10);
+			List<CompletableFuture<LoanCalculationResult>> futures = new ArrayList<CompletableFuture<LoanCalculationResult>>();
+			for (int i = 0; i < 5; i++) {
+				// Equal parameters built separately, with values normalized the same way
+				futures.add(service.calculateForFixedInstallment(parameters(i % 2 == 0 ? "500" : "500.00")));
+			}
+			assertTrue(calculator.started.await(10, TimeUnit.SECONDS));
+			assertEquals(1, service.getPendingCount());
+			assertEquals(4, service.getCoalescedCount());
+			calculator.release.countDown();
+
+			LoanCalculationResult first = futures.get(0).get(10, TimeUnit.SECONDS);
+			for (CompletableFuture<LoanCalculationResult> future : futures) {
+				LoanCalculationResult result = future.get(10, TimeUnit.SECONDS);
+				assertEquals(first.getApr(), result.getApr());
+				assertEquals(first.getAmortizationSchedule().getCashStreamList().size(), result.getAmortizationSchedule().getCashStreamList().size());
+			}
+			// Every caller has a copy of its own
+			assertNotSame(first, futures.get(1).get());
+			assertEquals(1, calculator.calls.get());
+			assertEquals(0, service.getPendingCount());
+
+			// Once complete, an equal request is calculated again
+			service.calculateForFixedInstallment(parameters("500")).get(10, TimeUnit.SECONDS);
+			assertEquals(2, calculator.calls.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testBackpressure() throws Exception {
+		BlockingCalculator calculator = new BlockingCalculator();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			AsyncLoanCalculationService service = new AsyncLoanCalculationService(calculator, executor, 1);
+			CompletableFuture<LoanCalculationResult> running = service.calculateForFixedInstallment(parameters("500"));
+			CompletableFuture<LoanCalculationResult> rejected = service.calculateForFixedInstallment(parameters("600"));
+			try {
+				rejected.get(10, TimeUnit.SECONDS);
+				fail("A single calculation can be pending");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RejectedExecutionException);
+			}
+			assertEquals(1, service.getRejectedCount());
+
+			calculator.release.countDown();
+			assertNotNull(running.get(10, TimeUnit.SECONDS));
+			assertNotNull(service.calculateForFixedInstallment(parameters("600")).get(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testErrorReleasesThePermit() throws Exception {
+		BlockingCalculator calculator = new BlockingCalculator();
+		calculator.error = new StackOverflowError();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			AsyncLoanCalculationService service = new AsyncLoanCalculationService(calculator, executor, 1);
+			List<CompletableFuture<LoanCalculationResult>> futures = new ArrayList<CompletableFuture<LoanCalculationResult>>();
+			futures.add(service.calculateForFixedInstallment(parameters("500")));
+			futures.add(service.calculateForFixedInstallment(parameters("500")));
+			calculator.release.countDown();
+			for (CompletableFuture<LoanCalculationResult> future : futures) {
+				try {
+					future.get(10, TimeUnit.SECONDS);
+					fail("The calculation failed");
+				} catch (ExecutionException e) {
+					assertSame(calculator.error, e.getCause());
+				}
+			}
+			assertEquals(0, service.getPendingCount());
+
+			calculator.error = null;
+			assertNotNull(service.calculateForFixedInstallment(parameters("500")).get(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testDefaultExecutor() throws Exception {
+		AsyncLoanCalculationService service = new AsyncLoanCalculationService(new StandardLoanCalculator(), 100);
+		try {
+			LoanSummary summary = service.calculateSummaryForFixedInstallment(parameters("500")).get(10, TimeUnit.SECONDS);
+			assertEquals(new BigDecimal("0.0371"), summary.getApr());
+
+			LoanParameters withoutInstallment = LoanParameters.builder()
+					.annualRate(new BigDecimal("0.0365"))
+					.loanStartDate(LocalDate.of(2017, 1, 12))
+					.firstReimbursementDate(LocalDate.of(2017, 2, 7))
+					.loanAmount(new BigDecimal(10000))
+					.build();
+			try {
+				service.calculateForFixedInstallment(withoutInstallment).get(10, TimeUnit.SECONDS);
+				fail("The monthly installment is missing");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof LoanSettingsException);
+			}
+			assertEquals(0, service.getPendingCount());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	private static LoanParameters parameters(String monthlyInstallment) throws LoanSettingsException {
+		return LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0365"))
+				.loanStartDate(LocalDate.of(2017, 1, 12))
+				.firstReimbursementDate(LocalDate.of(2017, 2, 7))
+				.loanAmount(new BigDecimal(10000))
+				.monthlyInstallment(new BigDecimal(monthlyInstallment))
+				.build();
+	}
+
+	/**
+	 * Holds the calculations until released
+	 */
+	private static class BlockingCalculator implements LoanCalculationService {
+
+		private final StandardLoanCalculator calculator = new StandardLoanCalculator();
+
+		private final CountDownLatch started = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private volatile Error error;
+
+		@Override
+		public LoanCalculationResult calculateForFixedInstallment(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+			calls.incrementAndGet();
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new LoanCalculationException("Interrupted");
+			}
+			if (error != null) {
+				throw error;
+			}
+			return calculator.calculateForFixedInstallment(parameters);
+		}
+
+		@Override
+		public LoanSummary calculateSummaryForFixedInstallment(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+			return calculator.calculateSummaryForFixedInstallment(parameters);
+		}
+
+		@Override
+		public LoanCalculationResult calculateForFixedDuration(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+			return calculator.calculateForFixedDuration(parameters);
+		}
+
+		@Override
+		public LoanCalculationResult recalculateForFixedInstallment(LoanParameters parameters, LoanCalculationResult result, List<ScheduleChange> changes) throws LoanSettingsException, LoanCalculationException {
+			return calculator.recalculateForFixedInstallment(parameters, result, changes);
+		}
+
+		@Override
+		public BigDecimal calculateMaximumLoanAmount(LoanParameters parameters) throws LoanSettingsException, LoanCalculationException {
+			return calculator.calculateMaximumLoanAmount(parameters);
+		}
+
+		@Override
+		public BigDecimal calculateAnnualRateForAPR(LoanParameters parameters, BigDecimal targetApr) throws LoanSettingsException, LoanCalculationException {
+			return calculator.calculateAnnualRateForAPR(parameters, targetApr);
+		}
+
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.batch.BatchLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.batch.LoanQuote;
+import com.imolczek.school.banking.loan.calculator.batch.ResultOrder;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+import junit.framework.TestCase;
+
+public class BatchLoanCalculatorTest extends TestCase {
+
+	private List<LoanParameters> getScenarios() throws Exception {
+		List<LoanParameters> scenarios = new ArrayList<LoanParameters>();
+		for (int rate = 0; rate <= 1000; rate += 250) {
+			for (int amount = 5000; amount <= 20000; amount += 5000) {
+				scenarios.add(LoanParameters.builder()
+						.annualRate(new BigDecimal(rate).movePointLeft(4))
+						.loanAmount(new BigDecimal(amount))
+						.monthlyInstallment(new BigDecimal(450))
+						.loanStartDate(LocalDate.of(2019, 11, 20))
+						.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+						.build());
+			}
+		}
+		return scenarios;
+	}
+
+	public void testOrderedBatch() throws Exception {
+		List<LoanParameters> scenarios = getScenarios();
+		BatchLoanCalculator batch = new BatchLoanCalculator(new StandardLoanCalculator(), 4);
+		List<LoanQuote> quotes = batch.calculateForFixedInstallment(scenarios, ResultOrder.ORDERED);
+		batch.shutdown();
+
+		assertEquals(scenarios.size(), quotes.size());
+		for (int i = 0; i < scenarios.size(); i++) {
+			LoanQuote quote = quotes.get(i);
+			assertSame(scenarios.get(i), quote.getParameters());
+			assertTrue(quote.isSuccessful());
+
+			LoanCalculationResult expected = new StandardLoanCalculator().calculateForFixedInstallment(scenarios.get(i));
+			assertEquals(expected.getApr(), quote.getResult().getApr());
+			assertEquals(expected.getAmortizationSchedule().getCashStreamList().size(), quote.getResult().getAmortizationSchedule().getCashStreamList().size());
+		}
+	}
+
+	public void testUnorderedBatchWithFailure() throws Exception {
+		List<LoanParameters> scenarios = getScenarios();
+		scenarios.add(scenarios.get(0).toBuilder().monthlyInstallment(null).build());
+		BatchLoanCalculator batch = new BatchLoanCalculator(new StandardLoanCalculator(), 2);
+		List<LoanQuote> quotes = batch.calculateForFixedInstallment(scenarios, ResultOrder.UNORDERED);
+		batch.shutdown();
+
+		assertEquals(scenarios.size(), quotes.size());
+		int failures = 0;
+		for (LoanQuote quote : quotes) {
+			if (!quote.isSuccessful()) {
+				failures++;
+				assertNull(quote.getResult());
+				assertNotNull(quote.getException());
+			}
+		}
+		assertEquals(1, failures);
+	}
+
+}
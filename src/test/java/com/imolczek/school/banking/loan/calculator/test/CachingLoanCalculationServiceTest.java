@@ -0,0 +1,127 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.cache.CacheStatistics;
+import com.imolczek.school.banking.loan.calculator.cache.CachingLoanCalculationService;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+import junit.framework.TestCase;
+
+public class CachingLoanCalculationServiceTest extends TestCase {
+
+	public void testSameResultsAsCalculator() throws Exception {
+		CachingLoanCalculationService cache = new CachingLoanCalculationService(new StandardLoanCalculator(), 100, 1, TimeUnit.HOURS);
+		assertTrue(new DifferentialRunner(new StandardLoanCalculator(), 200).run(cache) >= 200);
+	}
+
+	public void testHitsAndCopies() throws Exception {
+		CachingLoanCalculationService cache = new CachingLoanCalculationService(new StandardLoanCalculator(), 10, 1, TimeUnit.HOURS);
+
+		LoanCalculationResult first = cache.calculateForFixedInstallment(parameters("500"));
+		// Equal parameters built separately, with values normalized the same way
+		LoanCalculationResult second = cache.calculateForFixedInstallment(parameters("500.000"));
+		CacheStatistics statistics = cache.getStatistics();
+		assertEquals(1, statistics.getHitCount());
+		assertEquals(1, statistics.getMissCount());
+		assertEquals(0.5, statistics.getHitRate(), 0);
+
+		assertNotSame(first, second);
+		assertEquals(first.getApr(), second.getApr());
+		assertEquals(first.getAmortizationSchedule().getCashStreamList().size(), second.getAmortizationSchedule().getCashStreamList().size());
+
+		// Changing a returned result does not change the cached one
+		second.setApr(BigDecimal.ONE);
+		second.getAmortizationSchedule().getCashStreamList().get(1).setAmount(BigDecimal.ONE);
+		second.getAmortizationSchedule().getCashStreamList().clear();
+		LoanCalculationResult third = cache.calculateForFixedInstallment(parameters("500"));
+		assertEquals(first.getApr(), third.getApr());
+		assertEquals(first.getTotalInterest(), third.getTotalInterest());
+		assertEquals(first.getAmortizationSchedule().getCashStreamList().size(), third.getAmortizationSchedule().getCashStreamList().size());
+		assertEquals(new BigDecimal("500.00"), third.getAmortizationSchedule().getCashStreamList().get(1).getAmount());
+	}
+
+	public void testSizeEviction() throws Exception {
+		CachingLoanCalculationService cache = new CachingLoanCalculationService(new StandardLoanCalculator(), 2, 1, TimeUnit.HOURS);
+		cache.calculateForFixedInstallment(parameters("500"));
+		cache.calculateForFixedInstallment(parameters("600"));
+		cache.calculateForFixedInstallment(parameters("700"));
+		assertEquals(2, cache.getStatistics().getSize());
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+
+		// The oldest result was evicted
+		cache.calculateForFixedInstallment(parameters("700"));
+		cache.calculateForFixedInstallment(parameters("500"));
+		assertEquals(1, cache.getStatistics().getHitCount());
+		assertEquals(4, cache.getStatistics().getMissCount());
+		assertEquals(2, cache.getStatistics().getSize());
+
+		// The least recently used result is evicted, 700 being used after 500 was stored
+		cache.calculateForFixedInstallment(parameters("700"));
+		cache.calculateForFixedInstallment(parameters("600"));
+		cache.calculateForFixedInstallment(parameters("700"));
+		assertEquals(3, cache.getStatistics().getHitCount());
+		assertEquals(5, cache.getStatistics().getMissCount());
+		assertEquals(3, cache.getStatistics().getEvictionCount());
+	}
+
+	public void testNumberOfInstallmentsIsIgnored() throws Exception {
+		CachingLoanCalculationService cache = new CachingLoanCalculationService(new StandardLoanCalculator(), 10, 1, TimeUnit.HOURS);
+		LoanCalculationResult first = cache.calculateForFixedInstallment(parameters("500"));
+		LoanCalculationResult second = cache.calculateForFixedInstallment(parameters("500").toBuilder().numberOfInstallments(240).build());
+		assertEquals(1, cache.getStatistics().getHitCount());
+		assertEquals(1, cache.getStatistics().getSize());
+		assertEquals(first.getTotalInterest(), second.getTotalInterest());
+	}
+
+	public void testTimeEviction() throws Exception {
+		AtomicLong now = new AtomicLong();
+		CachingLoanCalculationService cache = new CachingLoanCalculationService(new StandardLoanCalculator(), 10, 1, TimeUnit.MINUTES, now::get);
+		cache.calculateForFixedInstallment(parameters("500"));
+		now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+		cache.calculateForFixedInstallment(parameters("500"));
+		assertEquals(1, cache.getStatistics().getHitCount());
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		cache.calculateForFixedInstallment(parameters("500"));
+		assertEquals(1, cache.getStatistics().getHitCount());
+		assertEquals(2, cache.getStatistics().getMissCount());
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+		assertEquals(1, cache.getStatistics().getSize());
+
+		cache.invalidateAll();
+		assertEquals(0, cache.getStatistics().getSize());
+	}
+
+	public void testFailuresAreNotCached() throws Exception {
+		CachingLoanCalculationService cache = new CachingLoanCalculationService(new StandardLoanCalculator(), 10, 1, TimeUnit.HOURS);
+		LoanParameters withoutInstallment = parameters("500").toBuilder().monthlyInstallment(null).build();
+		for (int i = 0; i < 2; i++) {
+			try {
+				cache.calculateForFixedInstallment(withoutInstallment);
+				fail("The monthly installment is missing");
+			} catch (LoanSettingsException e) {
+				// expected
+			}
+		}
+		assertEquals(2, cache.getStatistics().getMissCount());
+		assertEquals(0, cache.getStatistics().getSize());
+	}
+
+	private LoanParameters parameters(String monthlyInstallment) throws LoanSettingsException {
+		return LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("10000"))
+				.monthlyInstallment(new BigDecimal(monthlyInstallment))
+				.build();
+	}
+
+}
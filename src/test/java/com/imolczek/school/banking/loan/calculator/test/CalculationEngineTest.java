@@ -0,0 +1,54 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.imolczek.school.banking.loan.calculator.CalculationEngine;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+
+import junit.framework.TestCase;
+
+public class CalculationEngineTest extends TestCase {
+
+	private static final int SCENARIOS = 2000;
+
+	public void testEnginesAgree() throws Exception {
+		DifferentialRunner runner = new DifferentialRunner(new StandardLoanCalculator(CalculationEngine.BIG_DECIMAL), SCENARIOS);
+		assertTrue(runner.run(new StandardLoanCalculator(CalculationEngine.LONG_CENTS)) >= SCENARIOS);
+	}
+
+	public void testLongCentsOverflow() throws Exception {
+		// 10^19 cents do not fit in a long
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.05"))
+				.loanStartDate(LocalDate.of(2017, 1, 12))
+				.firstReimbursementDate(LocalDate.of(2017, 2, 7))
+				.loanAmount(new BigDecimal("1E+17"))
+				.monthlyInstallment(new BigDecimal("1E+16"))
+				.build();
+		StandardLoanCalculator calculator = new StandardLoanCalculator(CalculationEngine.LONG_CENTS);
+		try {
+			calculator.calculateForFixedInstallment(parameters);
+			fail("The loan amount exceeds the capacity of the long cents engine");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+		try {
+			calculator.calculateSummaryForFixedInstallment(parameters);
+			fail("The loan amount exceeds the capacity of the long cents engine");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+		try {
+			new StandardLoanCalculator(CalculationEngine.BIG_DECIMAL).calculateColumnarScheduleForFixedInstallment(parameters);
+			fail("The loan amount exceeds the capacity of the columnar schedule");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+		// The BigDecimal engine is not limited
+		assertNotNull(new StandardLoanCalculator(CalculationEngine.BIG_DECIMAL).calculateForFixedInstallment(parameters).getApr());
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.imolczek.school.banking.loan.calculator.CalculationEngine;
+import com.imolczek.school.banking.loan.calculator.ColumnarAmortizationSchedule;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.model.CashStream;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+import junit.framework.TestCase;
+
+public class ColumnarAmortizationScheduleTest extends TestCase {
+
+	public void testColumnarSchedule() throws Exception {
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("150000"))
+				.balloon(new BigDecimal("15000"))
+				.monthlyInstallment(new BigDecimal("950"))
+				.build();
+		LoanCalculationResult result = new StandardLoanCalculator().calculateForFixedInstallment(parameters);
+		List<CashStream> expected = result.getAmortizationSchedule().getCashStreamList();
+
+		for (CalculationEngine engine : CalculationEngine.values()) {
+			ColumnarAmortizationSchedule schedule = new StandardLoanCalculator(engine).calculateColumnarScheduleForFixedInstallment(parameters);
+			assertEquals(expected.size(), schedule.size());
+			assertEquals(-15000000, schedule.getAmountCents(0));
+			assertEquals(parameters.getLoanStartDate(), schedule.getDate(0));
+			for (int row = 1; row < expected.size(); row++) {
+				CashStream cashStream = expected.get(row);
+				assertEquals(cashStream.getDate().toEpochDay(), schedule.getEpochDay(row));
+				assertEquals(cashStream.getAmount().movePointRight(2).longValueExact(), schedule.getAmountCents(row));
+				assertEquals(cashStream.getInterest().movePointRight(2).longValueExact(), schedule.getInterestCents(row));
+				assertEquals(cashStream.getPrincipalRepaymentAmount().movePointRight(2).longValueExact(), schedule.getPrincipalRepaymentAmountCents(row));
+				assertEquals(0, schedule.getFeesCents(row));
+				assertEquals(0, schedule.getInsuranceCostCents(row));
+			}
+			assertEquals(result.getTotalInterest().movePointRight(2).longValueExact(), schedule.getTotalInterestCents());
+			assertEquals(15000000 - 1500000 + schedule.getTotalInterestCents(), schedule.getTotalReimbursedCents());
+
+			// The cash stream view holds the same values as the full calculation
+			List<CashStream> cashStreams = schedule.asCashStreamList();
+			assertEquals(expected.size(), cashStreams.size());
+			for (int row = 0; row < expected.size(); row++) {
+				assertEquals(expected.get(row).getDate(), cashStreams.get(row).getDate());
+				assertEquals(expected.get(row).getAmount(), cashStreams.get(row).getAmount());
+				assertEquals(expected.get(row).getInterest(), cashStreams.get(row).getInterest());
+				assertEquals(expected.get(row).getPrincipalRepaymentAmount(), cashStreams.get(row).getPrincipalRepaymentAmount());
+			}
+			assertEquals(expected.size(), schedule.toAmortizationSchedule().getCashStreamList().size());
+
+			try {
+				schedule.getAmountCents(schedule.size());
+				fail("There is no such row");
+			} catch (IndexOutOfBoundsException e) {
+				assertNotNull(e.getMessage());
+			}
+		}
+	}
+
+}
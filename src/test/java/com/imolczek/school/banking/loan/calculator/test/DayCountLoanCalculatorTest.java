@@ -0,0 +1,175 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.imolczek.school.banking.loan.calculator.DayCountLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.ScheduleChange;
+import com.imolczek.school.banking.loan.calculator.dateutils.DayCountConvention;
+import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentCalendar;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentCalendars;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentFrequency;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.model.CashStream;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+import junit.framework.TestCase;
+
+public class DayCountLoanCalculatorTest extends TestCase {
+
+	public void testDayCountConventions() throws Exception {
+		LoanDateUtil dateUtil = new LoanDateUtil();
+		assertEquals(28, DayCountConvention.THIRTY_360.getAccrual(dateUtil, LocalDate.of(2019, 1, 31), LocalDate.of(2019, 2, 28)));
+		assertEquals(60, DayCountConvention.THIRTY_360.getAccrual(dateUtil, LocalDate.of(2019, 1, 30), LocalDate.of(2019, 3, 31)));
+		assertEquals(31, DayCountConvention.THIRTY_360.getAccrual(dateUtil, LocalDate.of(2019, 1, 15), LocalDate.of(2019, 2, 16)));
+		assertEquals(360, DayCountConvention.THIRTY_360.getAccrual(dateUtil, LocalDate.of(2019, 12, 5), LocalDate.of(2020, 12, 5)));
+		assertEquals(31, DayCountConvention.ACTUAL_360.getAccrual(dateUtil, LocalDate.of(2019, 12, 15), LocalDate.of(2020, 1, 15)));
+		// 17 days in 2019 and 14 days in 2020
+		assertEquals(366 * 17 + 365 * 14, DayCountConvention.ACTUAL_ACTUAL.getAccrual(dateUtil, LocalDate.of(2019, 12, 15), LocalDate.of(2020, 1, 15)));
+		assertEquals(DayCountConvention.ACTUAL_ACTUAL.getYearLength(), DayCountConvention.ACTUAL_ACTUAL.getAccrual(dateUtil, LocalDate.of(2020, 1, 1), LocalDate.of(2021, 1, 1)));
+		try {
+			DayCountConvention.ACTUAL_360.getAccrual(dateUtil, LocalDate.of(2020, 1, 15), LocalDate.of(2019, 12, 15));
+			fail("Start cannot be after end");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+	public void testPaymentFrequencies() throws Exception {
+		LocalDate firstReimbursementDate = LocalDate.of(2019, 12, 5);
+		assertEquals(LocalDate.of(2019, 12, 26), PaymentFrequency.WEEKLY.getDate(firstReimbursementDate, 3));
+		assertEquals(LocalDate.of(2020, 6, 5), PaymentFrequency.QUARTERLY.getDate(firstReimbursementDate, 2));
+		for (PaymentFrequency frequency : PaymentFrequency.values()) {
+			assertEquals(0, frequency.getIndexAfter(firstReimbursementDate, LocalDate.of(2019, 11, 20)));
+			assertEquals(1, frequency.getIndexAfter(firstReimbursementDate, firstReimbursementDate));
+			for (int index = 1; index < 10; index++) {
+				assertEquals(index + 1, frequency.getIndexAfter(firstReimbursementDate, frequency.getDate(firstReimbursementDate, index)));
+			}
+		}
+		assertEquals(2, PaymentFrequency.WEEKLY.getIndexAfter(firstReimbursementDate, LocalDate.of(2019, 12, 13)));
+		assertEquals(1, PaymentFrequency.QUARTERLY.getIndexAfter(firstReimbursementDate, LocalDate.of(2020, 2, 29)));
+		assertEquals(2, PaymentFrequency.QUARTERLY.getIndexAfter(firstReimbursementDate, LocalDate.of(2020, 3, 20)));
+
+		LoanDateUtil dateUtil = new LoanDateUtil();
+		PaymentCalendars calendars = new PaymentCalendars(dateUtil);
+		PaymentCalendar monthly = calendars.get(firstReimbursementDate, 12);
+		for (PaymentFrequency frequency : PaymentFrequency.values()) {
+			PaymentCalendar calendar = calendars.get(firstReimbursementDate, frequency, 100);
+			assertEquals(frequency, calendar.getFrequency());
+			assertSame(calendar, calendars.get(firstReimbursementDate, frequency, 100));
+			for (int i = 1; i < 100; i++) {
+				assertEquals(frequency.getDate(firstReimbursementDate, i), calendar.getDate(i));
+				assertEquals(dateUtil.getNumberOfDaysBetweenDates(calendar.getDate(i - 1), calendar.getDate(i)), calendar.getDaysOfInterest(i));
+				for (DayCountConvention convention : DayCountConvention.values()) {
+					assertEquals(convention.getAccrual(dateUtil, calendar.getDate(i - 1), calendar.getDate(i)), calendar.getAccrual(convention, i));
+				}
+			}
+		}
+		assertSame(monthly, calendars.get(firstReimbursementDate, PaymentFrequency.MONTHLY, 12));
+		assertEquals(3, calendars.size());
+
+		// Only the month-based frequencies need the first reimbursement by the 28th
+		LoanParameters after28th = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.05"))
+				.loanStartDate(LocalDate.of(2019, 12, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 30))
+				.loanAmount(new BigDecimal(10000))
+				.monthlyInstallment(new BigDecimal(100))
+				.build();
+		for (PaymentFrequency frequency : PaymentFrequency.values()) {
+			DayCountLoanCalculator calculator = new DayCountLoanCalculator(DayCountConvention.ACTUAL_360, frequency);
+			try {
+				List<CashStream> cashStreams = calculator.calculateForFixedInstallment(after28th).getAmortizationSchedule().getCashStreamList();
+				assertEquals(PaymentFrequency.WEEKLY, frequency);
+				assertEquals(LocalDate.of(2020, 1, 6), cashStreams.get(2).getDate());
+			} catch (LoanSettingsException e) {
+				assertTrue(frequency.isMonthBased());
+			}
+		}
+	}
+
+	public void testCalculators() throws Exception {
+		LoanDateUtil dateUtil = new LoanDateUtil();
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("150000"))
+				.balloon(new BigDecimal("15000"))
+				.numberOfInstallments(60)
+				.build();
+		for (DayCountConvention convention : DayCountConvention.values()) {
+			for (PaymentFrequency frequency : PaymentFrequency.values()) {
+				DayCountLoanCalculator calculator = new DayCountLoanCalculator(convention, frequency);
+				String name = convention + " " + frequency;
+
+				// The lowest installment reimbursing the loan in the desired number of installments
+				LoanCalculationResult result = calculator.calculateForFixedDuration(parameters);
+				List<CashStream> cashStreams = result.getAmortizationSchedule().getCashStreamList();
+				assertEquals(name, 61, cashStreams.size());
+				BigDecimal installment = cashStreams.get(1).getAmount();
+				LoanParameters withInstallment = parameters.toBuilder().monthlyInstallment(installment).build();
+				LoanParameters oneCentLess = parameters.toBuilder().monthlyInstallment(installment.subtract(new BigDecimal("0.01"))).build();
+				assertTrue(name, calculator.calculateForFixedInstallment(oneCentLess).getAmortizationSchedule().getCashStreamList().size() > 61);
+
+				// Every period applies the annual rate to its fraction of a year
+				BigDecimal remainingBalance = parameters.getLoanAmount();
+				BigDecimal totalInterest = BigDecimal.ZERO;
+				for (int row = 1; row < cashStreams.size(); row++) {
+					CashStream cashStream = cashStreams.get(row);
+					assertEquals(name, frequency.getDate(parameters.getFirstReimbursementDate(), row - 1), cashStream.getDate());
+					long accrual = convention.getAccrual(dateUtil, cashStreams.get(row - 1).getDate(), cashStream.getDate());
+					BigDecimal interest = remainingBalance.multiply(parameters.getAnnualRate()).multiply(BigDecimal.valueOf(accrual))
+							.divide(BigDecimal.valueOf(convention.getYearLength()), 2, RoundingMode.HALF_UP);
+					assertEquals(name + " " + row, interest, cashStream.getInterest());
+					assertEquals(name + " " + row, cashStream.getAmount().subtract(interest), cashStream.getPrincipalRepaymentAmount());
+					remainingBalance = remainingBalance.subtract(cashStream.getPrincipalRepaymentAmount());
+					totalInterest = totalInterest.add(interest);
+				}
+				assertEquals(name, parameters.getBalloon(), remainingBalance);
+				assertEquals(name, totalInterest, result.getTotalInterest());
+
+				LoanSummary summary = calculator.calculateSummaryForFixedInstallment(withInstallment);
+				assertEquals(name, result.getApr(), summary.getApr());
+				assertEquals(name, result.getTotalInterest(), summary.getTotalInterest());
+				assertEquals(name, 60, summary.getNumberOfInstallments());
+				assertEquals(name, cashStreams.get(60).getDate(), summary.getLastReimbursementDate());
+
+				// A prepayment shortens the loan
+				LoanCalculationResult prepaid = calculator.recalculateForFixedInstallment(withInstallment, result, ScheduleChange.prepayment(10, new BigDecimal("20000")));
+				assertTrue(name, prepaid.getAmortizationSchedule().getCashStreamList().size() < 61);
+				assertEquals(name, cashStreams.get(9).getDate(), prepaid.getAmortizationSchedule().getCashStreamList().get(9).getDate());
+
+				BigDecimal maximumLoanAmount = calculator.calculateMaximumLoanAmount(withInstallment);
+				assertTrue(name, maximumLoanAmount.compareTo(parameters.getLoanAmount()) >= 0);
+				assertTrue(name, maximumLoanAmount.compareTo(parameters.getLoanAmount().add(installment)) < 0);
+
+				// The balloon is repaid with the last installment, so the APR stays close to the annual rate
+				assertTrue(name, result.getApr().subtract(parameters.getAnnualRate()).abs().compareTo(new BigDecimal("0.005")) < 0);
+				assertEquals(name, parameters.getAnnualRate(), calculator.calculateAnnualRateForAPR(parameters, result.getApr()));
+			}
+		}
+
+		// 150000 x 4.5% x 31 / 360 and 150000 x 4.5% / 12
+		LoanParameters monthly = parameters.toBuilder().loanStartDate(LocalDate.of(2019, 11, 4)).monthlyInstallment(new BigDecimal("1000")).build();
+		assertEquals(new BigDecimal("581.25"), new DayCountLoanCalculator(DayCountConvention.ACTUAL_360, PaymentFrequency.MONTHLY)
+				.calculateForFixedInstallment(monthly).getAmortizationSchedule().getCashStreamList().get(1).getInterest());
+		assertEquals(new BigDecimal("562.50"), new DayCountLoanCalculator(DayCountConvention.THIRTY_360, PaymentFrequency.MONTHLY)
+				.calculateForFixedInstallment(monthly.toBuilder().loanStartDate(LocalDate.of(2019, 11, 5)).build()).getAmortizationSchedule().getCashStreamList().get(1).getInterest());
+
+		// An installment below the interests of a period never reimburses the loan
+		try {
+			new DayCountLoanCalculator(DayCountConvention.THIRTY_360, PaymentFrequency.QUARTERLY).calculateForFixedInstallment(parameters.toBuilder().monthlyInstallment(new BigDecimal("1500")).build());
+			fail("The loan is never reimbursed");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.imolczek.school.banking.loan.calculator.LoanCalculationService;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.apr.APRCashFlows;
+import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.model.CashStream;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares an alternative implementation of the calculations with the reference one on the loans of a {@link LoanScenarioGenerator}:
+ * every cash stream, the APR and the total interest of the fixed installment and fixed duration calculations,
+ * and the summary against the full calculation. The results of the reference are also checked against the
+ * properties any amortization schedule and its APR have.
+ * The seed and the number of loans are fixed so that the test suite is reproducible and checks as much on any machine.
+ * The seed can be overridden with the loan.differential.seed system property, and more loans can be compared for a given
+ * time with the loan.differential.millis system property, to explore further.
+ * The failure messages give the seed and the scenario.
+ */
+public class DifferentialRunner {
+
+	public static final String SEED_PROPERTY = "loan.differential.seed";
+
+	public static final String BUDGET_PROPERTY = "loan.differential.millis";
+
+	private static final long DEFAULT_SEED = 20191120L;
+
+	private static final long DEFAULT_BUDGET_MILLIS = 0;
+
+	private static final BigDecimal APR_HALF_UNIT = new BigDecimal("0.00005");
+
+	/**
+	 * Allowance for the rounding of the interests to the cent and of the APR to 4 decimals
+	 */
+	private static final BigDecimal APR_TOLERANCE = new BigDecimal("0.0005");
+
+	private static final LoanDateUtil DATE_UTIL = new LoanDateUtil();
+
+	private final LoanCalculationService reference;
+
+	private final int minimumScenarios;
+
+	private final long seed;
+
+	private final long budgetMillis;
+
+	/**
+	 * @param reference The implementation the others are compared with
+	 * @param minimumScenarios The number of loans always compared, more being compared until the time budget runs out
+	 */
+	public DifferentialRunner(LoanCalculationService reference, int minimumScenarios) {
+		this.reference = reference;
+		this.minimumScenarios = minimumScenarios;
+		this.seed = Long.getLong(SEED_PROPERTY, DEFAULT_SEED);
+		this.budgetMillis = Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MILLIS);
+	}
+
+	/**
+	 * Compare the alternative implementation with the reference one, on the minimum number of loans then on as many
+	 * as the time budget allows
+	 * @param alternative The implementation under test
+	 * @return the number of loans compared
+	 * @throws Exception
+	 */
+	public int run(LoanCalculationService alternative) throws Exception {
+		LoanScenarioGenerator generator = new LoanScenarioGenerator(seed);
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+		int scenarios = 0;
+		while (scenarios < minimumScenarios || System.nanoTime() < deadline) {
+			LoanParameters parameters = generator.next();
+			compare(alternative, parameters, "Seed " + seed + ", scenario " + scenarios + ", " + parameters);
+			scenarios++;
+		}
+		return scenarios;
+	}
+
+	private void compare(LoanCalculationService alternative, LoanParameters parameters, String scenario) throws Exception {
+		LoanCalculationResult expected = reference.calculateForFixedInstallment(parameters);
+		checkProperties(parameters, expected, scenario);
+		LoanCalculationResult actual = alternative.calculateForFixedInstallment(parameters);
+		assertSameResult(expected, actual, scenario);
+
+		assertSameSummary(expected, reference.calculateSummaryForFixedInstallment(parameters), scenario + ", reference summary");
+		assertSameSummary(expected, alternative.calculateSummaryForFixedInstallment(parameters), scenario + ", summary");
+
+		String fixedDuration = scenario + ", fixed duration";
+		LoanCalculationResult expectedForDuration = reference.calculateForFixedDuration(parameters);
+		checkProperties(parameters, expectedForDuration, fixedDuration);
+		// When the interests nearly match the installment, one cent more may reimburse the loan a few installments earlier
+		TestCase.assertTrue(fixedDuration + ": too many installments", expectedForDuration.getAmortizationSchedule().getCashStreamList().size() <= parameters.getNumberOfInstallments() + 1);
+		assertSameResult(expectedForDuration, alternative.calculateForFixedDuration(parameters), fixedDuration);
+	}
+
+	/**
+	 * The schedule starts with the disbursement, the installments follow each other every month,
+	 * each one being the sum of its interest and of its principal, and the principal is reimbursed down to the balloon.
+	 * The net present value of the cash streams, the balloon included, changes sign within half a unit of the APR,
+	 * and the APR is at least the yearly interest of the daily rates, as they are compounded with every installment.
+	 */
+	private static void checkProperties(LoanParameters parameters, LoanCalculationResult result, String scenario) throws LoanCalculationException {
+		List<CashStream> cashStreams = result.getAmortizationSchedule().getCashStreamList();
+		TestCase.assertEquals(scenario, parameters.getLoanStartDate(), cashStreams.get(0).getDate());
+		assertAmountEquals(scenario, parameters.getLoanAmount().negate(), cashStreams.get(0).getAmount());
+		BigDecimal principal = BigDecimal.ZERO;
+		BigDecimal interest = BigDecimal.ZERO;
+		for (int row = 1; row < cashStreams.size(); row++) {
+			CashStream cashStream = cashStreams.get(row);
+			String message = scenario + ", row " + row;
+			TestCase.assertEquals(message, parameters.getFirstReimbursementDate().plusMonths(row - 1), cashStream.getDate());
+			TestCase.assertTrue(message + ": negative interest", cashStream.getInterest().signum() >= 0);
+			assertAmountEquals(message, cashStream.getAmount(), cashStream.getInterest().add(cashStream.getPrincipalRepaymentAmount()));
+			principal = principal.add(cashStream.getPrincipalRepaymentAmount());
+			interest = interest.add(cashStream.getInterest());
+		}
+		assertAmountEquals(scenario + ", principal", parameters.getLoanAmount().subtract(parameters.getBalloon()), principal);
+		assertAmountEquals(scenario + ", total interest", interest, result.getTotalInterest());
+
+		BigDecimal apr = result.getApr();
+		APRCashFlows cashFlows = APRCashFlows.compile(result.getAmortizationSchedule(), DATE_UTIL);
+		TestCase.assertTrue(scenario + ": the APR " + apr + " is too high", cashFlows.valueAt(apr.subtract(APR_HALF_UNIT).doubleValue()) >= 0);
+		TestCase.assertTrue(scenario + ": the APR " + apr + " is too low", cashFlows.valueAt(apr.add(APR_HALF_UNIT).doubleValue()) < 0);
+		if (cashStreams.size() > 1 && parameters.getAnnualRate().signum() >= 0) {
+			BigDecimal yearlyInterest = parameters.getDailyRates().getRate365().multiply(new BigDecimal(365))
+					.min(parameters.getDailyRates().getRate366().multiply(new BigDecimal(366)));
+			TestCase.assertTrue(scenario + ": the APR " + apr + " is below the yearly interest " + yearlyInterest,
+					apr.compareTo(yearlyInterest.subtract(APR_TOLERANCE)) >= 0);
+		}
+	}
+
+	private static void assertSameResult(LoanCalculationResult expected, LoanCalculationResult actual, String scenario) {
+		List<CashStream> expectedCashStreams = expected.getAmortizationSchedule().getCashStreamList();
+		List<CashStream> actualCashStreams = actual.getAmortizationSchedule().getCashStreamList();
+		TestCase.assertEquals(scenario, expectedCashStreams.size(), actualCashStreams.size());
+		for (int row = 0; row < expectedCashStreams.size(); row++) {
+			CashStream expectedCashStream = expectedCashStreams.get(row);
+			CashStream actualCashStream = actualCashStreams.get(row);
+			String message = scenario + ", row " + row;
+			TestCase.assertEquals(message, expectedCashStream.getDate(), actualCashStream.getDate());
+			assertAmountEquals(message, expectedCashStream.getAmount(), actualCashStream.getAmount());
+			assertAmountEquals(message, expectedCashStream.getInterest(), actualCashStream.getInterest());
+			assertAmountEquals(message, expectedCashStream.getPrincipalRepaymentAmount(), actualCashStream.getPrincipalRepaymentAmount());
+			assertAmountEquals(message, expectedCashStream.getFees(), actualCashStream.getFees());
+			assertAmountEquals(message, expectedCashStream.getInsuranceCost(), actualCashStream.getInsuranceCost());
+		}
+		TestCase.assertEquals(scenario, expected.getApr(), actual.getApr());
+		assertAmountEquals(scenario, expected.getTotalInterest(), actual.getTotalInterest());
+	}
+
+	private static void assertSameSummary(LoanCalculationResult expected, LoanSummary summary, String scenario) {
+		List<CashStream> cashStreams = expected.getAmortizationSchedule().getCashStreamList();
+		CashStream last = cashStreams.get(cashStreams.size() - 1);
+		TestCase.assertEquals(scenario, expected.getApr(), summary.getApr());
+		assertAmountEquals(scenario, expected.getTotalInterest(), summary.getTotalInterest());
+		TestCase.assertEquals(scenario, cashStreams.size() - 1, summary.getNumberOfInstallments());
+		assertAmountEquals(scenario, last.getAmount(), summary.getLastInstallment());
+		TestCase.assertEquals(scenario, last.getDate(), summary.getLastReimbursementDate());
+	}
+
+	private static void assertAmountEquals(String message, BigDecimal expected, BigDecimal actual) {
+		if (expected == null || actual == null) {
+			TestCase.assertEquals(message, expected, actual);
+		} else {
+			TestCase.assertEquals(message + ": expected " + expected + " but was " + actual, 0, expected.compareTo(actual));
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.calculator.instrumentation.Histogram;
+import com.imolczek.school.banking.loan.calculator.instrumentation.HistogramInstrumentation;
+import com.imolczek.school.banking.loan.calculator.instrumentation.Instrumentation;
+
+import junit.framework.TestCase;
+
+public class InstrumentationTest extends TestCase {
+
+	public void testHistogram() {
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		for (long value = 1; value <= 1000; value++) {
+			histogram.record(value);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000, histogram.getMax());
+		assertEquals(500.5, histogram.getMean(), 1e-9);
+		assertEquals(1, histogram.getValueAtPercentile(0));
+		assertEquals(7, histogram.getValueAtPercentile(0.7));
+		// Within the 12.5% precision of the buckets
+		long median = histogram.getValueAtPercentile(50);
+		assertTrue(median >= 500 && median <= 500 * 1.125);
+		long p99 = histogram.getValueAtPercentile(99);
+		assertTrue(p99 >= 990 && p99 <= 1000);
+		assertEquals(1000, histogram.getValueAtPercentile(100));
+
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+
+	public void testCalculatorInstrumentation() throws Exception {
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		assertSame(Instrumentation.NO_OP, calculator.getInstrumentation());
+		HistogramInstrumentation instrumentation = new HistogramInstrumentation();
+		calculator.setInstrumentation(instrumentation);
+
+		calculator.setAnnualRate(new BigDecimal("0.0450"));
+		calculator.setLoanStartDate(LocalDate.of(2017, 1, 12));
+		calculator.setFirstReimbursementDate(LocalDate.of(2017, 2, 7));
+		calculator.setLoanAmount(new BigDecimal(10000));
+		calculator.setMonthlyInstallment(new BigDecimal(500));
+		int numberOfInstallments = calculator.calculateForFixedInstallment().getAmortizationSchedule().getCashStreamList().size() - 1;
+		calculator.calculateSummaryForFixedInstallment();
+
+		assertEquals(2, instrumentation.getValidationTimes().getCount());
+		assertEquals(2, instrumentation.getScheduleTimes().getCount());
+		assertEquals(numberOfInstallments, instrumentation.getScheduleLengths().getMax());
+		assertEquals(2, instrumentation.getAprTimes().getCount());
+		assertTrue(instrumentation.getAprIterations().getMax() > 0);
+		assertTrue(instrumentation.getFailures().isEmpty());
+
+		LoanParameters withoutInstallment = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2017, 1, 12))
+				.firstReimbursementDate(LocalDate.of(2017, 2, 7))
+				.loanAmount(new BigDecimal(10000))
+				.build();
+		try {
+			calculator.calculateForFixedInstallment(withoutInstallment);
+			fail("The monthly installment is missing");
+		} catch (LoanSettingsException e) {
+			assertEquals(Long.valueOf(1), instrumentation.getFailures().get(LoanSettingsException.class.getName()));
+		}
+		assertEquals(2, instrumentation.getValidationTimes().getCount());
+
+		// The controls of the calculations of loan parameters are measured as well
+		calculator.calculateSummaryForFixedInstallment(calculator.getParameters());
+		calculator.calculateInstallmentForFixedDuration(withoutInstallment.toBuilder().numberOfInstallments(24).build());
+		assertEquals(4, instrumentation.getValidationTimes().getCount());
+		long scheduleCount = instrumentation.getScheduleTimes().getCount();
+
+		calculator.setInstrumentation(null);
+		assertSame(Instrumentation.NO_OP, calculator.getInstrumentation());
+		calculator.calculateForFixedInstallment();
+		assertEquals(scheduleCount, instrumentation.getScheduleTimes().getCount());
+	}
+
+}
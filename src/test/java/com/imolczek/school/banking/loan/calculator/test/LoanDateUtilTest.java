@@ -1,8 +1,10 @@
 package com.imolczek.school.banking.loan.calculator.test;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
 import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
 
 import junit.framework.TestCase;
 
@@ -20,5 +22,42 @@ public class LoanDateUtilTest extends TestCase {
 		assertEquals(9, dateUtil.getNumberOfDays365BetweenDates(LocalDate.of(2020, 12, 31), LocalDate.of(2021, 1, 10)));
 		assertEquals(1, dateUtil.getNumberOfDays366BetweenDates(LocalDate.of(2020, 12, 31), LocalDate.of(2021, 1, 10)));
 	}
-	
+
+	public void testEquivalenceWithLegacyImplementation() throws Exception {
+		LegacyLoanDateUtil legacy = new LegacyLoanDateUtil();
+		int[] longSpans = { 365, 366, 400, 731, 1000, 1461, 3653, 10000 };
+		for (LocalDate start = LocalDate.of(1896, 1, 1); start.getYear() < 2105; start = start.plusDays(1)) {
+			for (int offset = 0; offset < 70 + longSpans.length; offset++) {
+				LocalDate end = start.plusDays(offset < 70 ? offset : longSpans[offset - 70]);
+				long dayCount = dateUtil.getNumberOfDaysBetweenDates(start, end);
+				long days365 = LoanDateUtil.getDays365(dayCount);
+				long days366 = LoanDateUtil.getDays366(dayCount);
+				assertEquals(ChronoUnit.DAYS.between(start, end), days365 + days366);
+				assertEquals(dayCount, dateUtil.getNumberOfDaysBetweenEpochDays(start.toEpochDay(), end.toEpochDay()));
+
+				long legacyDays365 = legacy.getNumberOfDays365BetweenDates(start, end);
+				long legacyDays366 = legacy.getNumberOfDays366BetweenDates(start, end);
+				if (end.getYear() - start.getYear() > 1) {
+					// The legacy implementation skipped the 31st of December of the start year
+					if (start.isLeapYear()) {
+						legacyDays366++;
+					} else {
+						legacyDays365++;
+					}
+				}
+				assertEquals(start + " - " + end, legacyDays365, days365);
+				assertEquals(start + " - " + end, legacyDays366, days366);
+			}
+		}
+	}
+
+	public void testStartAfterEnd() throws Exception {
+		try {
+			dateUtil.getNumberOfDaysBetweenDates(LocalDate.of(2020, 1, 2), LocalDate.of(2020, 1, 1));
+			fail("Start cannot be after end");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
 }
@@ -0,0 +1,111 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.imolczek.school.banking.loan.calculator.CalculationEngine;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.codec.CashStreamDecoder;
+import com.imolczek.school.banking.loan.calculator.codec.LoanResultCodec;
+import com.imolczek.school.banking.loan.model.CashStream;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+import junit.framework.TestCase;
+
+public class LoanResultCodecTest extends TestCase {
+
+	public void testRoundTrip() throws Exception {
+		LoanScenarioGenerator generator = new LoanScenarioGenerator(20171212L);
+		for (CalculationEngine engine : CalculationEngine.values()) {
+			StandardLoanCalculator calculator = new StandardLoanCalculator(engine);
+			for (int i = 0; i < 100; i++) {
+				LoanCalculationResult result = calculator.calculateForFixedInstallment(generator.next());
+				ByteBuffer buffer = LoanResultCodec.encode(result);
+				assertEquals(LoanResultCodec.getEncodedSize(result), buffer.remaining());
+				assertSameResult(result, LoanResultCodec.decode(buffer));
+				assertEquals(0, buffer.remaining());
+			}
+		}
+	}
+
+	public void testStreamingAndDirectBuffers() throws Exception {
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("150000"))
+				.balloon(new BigDecimal("15000"))
+				.monthlyInstallment(new BigDecimal("950"))
+				.build();
+		LoanCalculationResult result = new StandardLoanCalculator().calculateForFixedInstallment(parameters);
+		List<CashStream> expected = result.getAmortizationSchedule().getCashStreamList();
+
+		// Two results one after the other in a direct buffer
+		ByteBuffer buffer = ByteBuffer.allocateDirect(2 * LoanResultCodec.getEncodedSize(result));
+		LoanResultCodec.encode(result, buffer);
+		LoanResultCodec.encode(result, buffer);
+		buffer.flip();
+		// A few bytes per cash stream, instead of a long for the date and each of the five amounts
+		assertTrue(buffer.remaining() < 2 * 16 * expected.size());
+
+		for (int copy = 0; copy < 2; copy++) {
+			CashStreamDecoder decoder = LoanResultCodec.stream(buffer);
+			assertEquals(result.getApr(), decoder.getApr());
+			assertEquals(expected.size(), decoder.size());
+			int row = 0;
+			while (decoder.hasNext()) {
+				assertSameCashStream(expected.get(row), decoder.next());
+				row++;
+			}
+			assertEquals(expected.size(), row);
+		}
+		assertEquals(0, buffer.remaining());
+
+		// The disbursement has no interest, and an APR may not be set
+		LoanCalculationResult withoutApr = new LoanCalculationResult();
+		withoutApr.getAmortizationSchedule().getCashStreamList().add(expected.get(0));
+		LoanCalculationResult decoded = LoanResultCodec.decode(LoanResultCodec.encode(withoutApr));
+		assertNull(decoded.getApr());
+		assertNull(decoded.getAmortizationSchedule().getCashStreamList().get(0).getInterest());
+
+		ByteBuffer unknownVersion = ByteBuffer.wrap(new byte[] { 99, 0, 0 });
+		try {
+			LoanResultCodec.decode(unknownVersion);
+			fail("The version is not supported");
+		} catch (IllegalArgumentException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+	private void assertSameResult(LoanCalculationResult expected, LoanCalculationResult actual) {
+		List<CashStream> expectedCashStreams = expected.getAmortizationSchedule().getCashStreamList();
+		List<CashStream> actualCashStreams = actual.getAmortizationSchedule().getCashStreamList();
+		assertEquals(expectedCashStreams.size(), actualCashStreams.size());
+		for (int row = 0; row < expectedCashStreams.size(); row++) {
+			assertSameCashStream(expectedCashStreams.get(row), actualCashStreams.get(row));
+		}
+		assertEquals(expected.getApr(), actual.getApr());
+		assertAmountEquals(expected.getTotalInterest(), actual.getTotalInterest());
+	}
+
+	private void assertSameCashStream(CashStream expected, CashStream actual) {
+		assertEquals(expected.getDate(), actual.getDate());
+		assertAmountEquals(expected.getAmount(), actual.getAmount());
+		assertAmountEquals(expected.getInterest(), actual.getInterest());
+		assertAmountEquals(expected.getPrincipalRepaymentAmount(), actual.getPrincipalRepaymentAmount());
+		assertAmountEquals(expected.getFees(), actual.getFees());
+		assertAmountEquals(expected.getInsuranceCost(), actual.getInsuranceCost());
+	}
+
+	private void assertAmountEquals(BigDecimal expected, BigDecimal actual) {
+		if (expected == null || actual == null) {
+			assertEquals(expected, actual);
+		} else {
+			assertEquals("expected " + expected + " but was " + actual, 0, expected.compareTo(actual));
+		}
+	}
+
+}
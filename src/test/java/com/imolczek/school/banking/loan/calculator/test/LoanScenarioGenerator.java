@@ -0,0 +1,72 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+
+import com.imolczek.school.banking.loan.calculator.DailyRates;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+
+/**
+ * Draws random loans from a seed, favouring the cases where optimized implementations are the most likely to diverge:
+ * periods crossing into a leap year, balloons, reimbursements on the 28th and long horizons.
+ * The loans carry both a monthly installment and the number of installments it was drawn for,
+ * so they can be calculated for a fixed installment as well as for a fixed duration.
+ */
+public class LoanScenarioGenerator {
+
+	private final Random random;
+
+	/**
+	 * @param seed The same seed always draws the same loans
+	 */
+	public LoanScenarioGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * The installment is the annuity reimbursing the loan in the drawn number of months at the rounded daily rate
+	 * over 31 days months, plus a margin, so that every loan terminates in at most that number of months
+	 * @return the next loan
+	 * @throws LoanSettingsException
+	 */
+	public LoanParameters next() throws LoanSettingsException {
+		BigDecimal annualRate = random.nextInt(10) == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(1 + random.nextInt(1500), 4);
+		BigDecimal loanAmount = BigDecimal.valueOf(100000 + (long) (random.nextDouble() * 49900000), 2);
+		BigDecimal balloon = BigDecimal.ZERO;
+		if (random.nextInt(4) == 0) {
+			balloon = loanAmount.multiply(BigDecimal.valueOf(5 + random.nextInt(26), 2)).setScale(2, BigDecimal.ROUND_DOWN);
+		}
+		int months = random.nextInt(4) == 0 ? 360 + random.nextInt(241) : 1 + random.nextInt(360);
+
+		LocalDate loanStartDate;
+		if (random.nextInt(4) == 0) {
+			// From November to February before the 29th of February of a leap year
+			int leapYear = 1904 + 4 * random.nextInt(49);
+			loanStartDate = LocalDate.of(leapYear - 1, 11, 1).plusDays(random.nextInt(120));
+		} else {
+			loanStartDate = LocalDate.of(1990, 1, 1).plusDays(random.nextInt(365 * 50));
+		}
+		int dayOfMonth = random.nextInt(4) == 0 ? 28 : 1 + random.nextInt(28);
+		LocalDate firstReimbursementDate = loanStartDate.plusMonths(1).withDayOfMonth(dayOfMonth);
+
+		double monthlyRate = new DailyRates(annualRate).getRate366().doubleValue() * 31;
+		double principal = loanAmount.subtract(balloon).doubleValue();
+		double annuity = monthlyRate == 0 ? principal / months : principal * monthlyRate / (1 - Math.pow(1 + monthlyRate, -months));
+		double interestOnBalloon = balloon.doubleValue() * monthlyRate;
+		double firstInterest = loanAmount.doubleValue() * monthlyRate * 2;
+		BigDecimal monthlyInstallment = BigDecimal.valueOf(Math.max(annuity + interestOnBalloon, firstInterest) * 1.05 + 1).setScale(2, BigDecimal.ROUND_UP);
+
+		return LoanParameters.builder()
+				.annualRate(annualRate)
+				.loanAmount(loanAmount)
+				.balloon(balloon)
+				.monthlyInstallment(monthlyInstallment)
+				.numberOfInstallments(months)
+				.loanStartDate(loanStartDate)
+				.firstReimbursementDate(firstReimbursementDate)
+				.build();
+	}
+
+}
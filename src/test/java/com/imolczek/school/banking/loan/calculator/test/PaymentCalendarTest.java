@@ -0,0 +1,107 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.imolczek.school.banking.loan.calculator.APRCalculator;
+import com.imolczek.school.banking.loan.calculator.CalculationEngine;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.dateutils.LoanDateUtil;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentCalendar;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentCalendars;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+import junit.framework.TestCase;
+
+public class PaymentCalendarTest extends TestCase {
+
+	public void testPaymentCalendar() throws Exception {
+		LoanDateUtil dateUtil = new LoanDateUtil();
+		LocalDate firstReimbursementDate = LocalDate.of(2019, 12, 5);
+		PaymentCalendar calendar = new PaymentCalendar(dateUtil, firstReimbursementDate, 480);
+		assertEquals(480, calendar.getHorizon());
+		assertEquals(0, calendar.getDaysOfInterest(0));
+
+		// Same dates as moving from one month to the next
+		int day = firstReimbursementDate.getDayOfMonth();
+		int month = firstReimbursementDate.getMonthValue();
+		int year = firstReimbursementDate.getYear();
+		LocalDate previousDate = firstReimbursementDate;
+		for (int i = 0; i < calendar.getHorizon(); i++) {
+			LocalDate date = LocalDate.of(year, month, day);
+			assertEquals(date, calendar.getDate(i));
+			if (i > 0) {
+				assertEquals(dateUtil.getNumberOfDaysBetweenDates(previousDate, date), calendar.getDaysOfInterest(i));
+			}
+			previousDate = date;
+			month++;
+			if (month == 13) {
+				month = 1;
+				year++;
+			}
+		}
+
+		assertEquals(0, PaymentCalendar.getIndexAfter(firstReimbursementDate, LocalDate.of(2019, 11, 20)));
+		assertEquals(1, PaymentCalendar.getIndexAfter(firstReimbursementDate, firstReimbursementDate));
+		assertEquals(1, PaymentCalendar.getIndexAfter(firstReimbursementDate, LocalDate.of(2019, 12, 31)));
+		assertEquals(13, PaymentCalendar.getIndexAfter(firstReimbursementDate, LocalDate.of(2020, 12, 5)));
+	}
+
+	public void testPaymentCalendars() throws Exception {
+		PaymentCalendars calendars = new PaymentCalendars(new LoanDateUtil(), 2);
+		LocalDate firstReimbursementDate = LocalDate.of(2019, 12, 5);
+		PaymentCalendar calendar = calendars.get(firstReimbursementDate, 12);
+		assertTrue(calendar.getHorizon() >= 12);
+		assertSame(calendar, calendars.get(firstReimbursementDate, 12));
+		assertSame(calendar, calendars.get(firstReimbursementDate, calendar.getHorizon()));
+
+		// A longer calendar replaces the shorter one
+		PaymentCalendar longer = calendars.get(firstReimbursementDate, calendar.getHorizon() + 1);
+		assertTrue(longer.getHorizon() >= 2 * calendar.getHorizon());
+		assertSame(longer, calendars.get(firstReimbursementDate, 12));
+
+		// The least recently used calendar is evicted once the maximum size is reached
+		PaymentCalendar sixth = calendars.get(LocalDate.of(2019, 12, 6), 12);
+		assertSame(longer, calendars.get(firstReimbursementDate, 12));
+		PaymentCalendar seventh = calendars.get(LocalDate.of(2019, 12, 7), 12);
+		assertEquals(LocalDate.of(2019, 12, 7), seventh.getFirstReimbursementDate());
+		assertEquals(2, calendars.size());
+		assertSame(longer, calendars.get(firstReimbursementDate, 12));
+		assertSame(seventh, calendars.get(LocalDate.of(2019, 12, 7), 12));
+		assertNotSame(sixth, calendars.get(LocalDate.of(2019, 12, 6), 12));
+	}
+
+	public void testCalendarsNotKept() throws Exception {
+		// Counts the days of interest calculated by the calendars
+		AtomicInteger count = new AtomicInteger();
+		LoanDateUtil dateUtil = new LoanDateUtil() {
+			@Override
+			public long getNumberOfDaysBetweenEpochDays(long startEpochDay, long endEpochDay) throws LoanCalculationException {
+				count.incrementAndGet();
+				return super.getNumberOfDaysBetweenEpochDays(startEpochDay, endEpochDay);
+			}
+		};
+		PaymentCalendars calendars = new PaymentCalendars(dateUtil, 0);
+		StandardLoanCalculator calculator = new StandardLoanCalculator(dateUtil, new APRCalculator(), CalculationEngine.BIG_DECIMAL, calendars);
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("150000"))
+				.numberOfInstallments(360)
+				.build();
+		LoanCalculationResult expected = new StandardLoanCalculator().calculateForFixedDuration(parameters);
+		count.set(0);
+		LoanCalculationResult result = calculator.calculateForFixedDuration(parameters);
+		assertEquals(0, calendars.size());
+		assertEquals(expected.getApr(), result.getApr());
+		assertEquals(expected.getTotalInterest(), result.getTotalInterest());
+		assertEquals(361, result.getAmortizationSchedule().getCashStreamList().size());
+		// The calendar of the schedule doubles its horizon instead of being built again for every installment past 120
+		assertTrue(count.get() < 4 * 360);
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.io.BufferedWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.imolczek.school.banking.loan.calculator.CalculationEngine;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.portfolio.LoanFileConverter;
+import com.imolczek.school.banking.loan.calculator.portfolio.LoanRecordFormat;
+import com.imolczek.school.banking.loan.calculator.portfolio.PortfolioReport;
+import com.imolczek.school.banking.loan.calculator.portfolio.PortfolioResult;
+import com.imolczek.school.banking.loan.calculator.portfolio.PortfolioRunner;
+import com.imolczek.school.banking.loan.calculator.portfolio.ResultStatus;
+
+import junit.framework.TestCase;
+
+public class PortfolioRunnerTest extends TestCase {
+
+	public void testPortfolio() throws Exception {
+		Path directory = Files.createTempDirectory("portfolio");
+		Path textFile = directory.resolve("loans.csv");
+		Path loanFile = directory.resolve("loans.bin");
+		Path resultFile = directory.resolve("results.bin");
+		PortfolioRunner runner = new PortfolioRunner(new StandardLoanCalculator(CalculationEngine.LONG_CENTS), 2, 7);
+		try {
+			List<LoanParameters> loans = new ArrayList<LoanParameters>();
+			Random random = new Random(42);
+			try (BufferedWriter writer = Files.newBufferedWriter(textFile, StandardCharsets.UTF_8)) {
+				writer.write("loanId;annualRate;loanAmount;balloon;monthlyInstallment;loanStartDate;firstReimbursementDate\n");
+				for (int i = 0; i < 50; i++) {
+					LoanParameters parameters = LoanParameters.builder()
+							.annualRate(BigDecimal.valueOf(random.nextInt(800), 4))
+							.loanAmount(BigDecimal.valueOf(1000000 + random.nextInt(10000000), 2))
+							.balloon(i % 5 == 0 ? new BigDecimal("1000") : null)
+							.monthlyInstallment(BigDecimal.valueOf(100000 + random.nextInt(100000), 2))
+							.loanStartDate(LocalDate.of(2019, 11, 20).plusDays(i))
+							.firstReimbursementDate(LocalDate.of(2020, 1, 1 + i % 28))
+							.build();
+					loans.add(parameters);
+					writer.write(1000 + i + ";" + parameters.getAnnualRate() + ";" + parameters.getLoanAmount() + ";"
+							+ (i % 5 == 0 ? parameters.getBalloon() : "") + ";" + parameters.getMonthlyInstallment() + ";"
+							+ parameters.getLoanStartDate() + ";" + parameters.getFirstReimbursementDate() + "\n");
+				}
+				// Not a valid loan: the first reimbursement is after the 28th
+				writer.write("2000;0.05;10000;;500;2019-11-20;2019-12-29\n");
+			}
+
+			assertEquals(51, new LoanFileConverter().convert(textFile, loanFile));
+			assertEquals(51 * LoanRecordFormat.LOAN_RECORD_SIZE, Files.size(loanFile));
+
+			PortfolioReport report = runner.run(loanFile, resultFile);
+			assertEquals(51, report.getNumberOfLoans());
+			assertEquals(1, report.getNumberOfFailures());
+
+			StandardLoanCalculator calculator = new StandardLoanCalculator();
+			ByteBuffer results = ByteBuffer.wrap(Files.readAllBytes(resultFile));
+			for (int i = 0; i < loans.size(); i++) {
+				PortfolioResult result = LoanRecordFormat.readResult(results);
+				LoanSummary expected = calculator.calculateSummaryForFixedInstallment(loans.get(i));
+				assertEquals(1000 + i, result.getLoanId());
+				assertEquals(ResultStatus.CALCULATED, result.getStatus());
+				assertEquals(expected.getApr(), result.getSummary().getApr());
+				assertEquals(expected.getTotalInterest(), result.getSummary().getTotalInterest());
+				assertEquals(expected.getNumberOfInstallments(), result.getSummary().getNumberOfInstallments());
+				assertEquals(expected.getLastInstallment(), result.getSummary().getLastInstallment());
+				assertEquals(expected.getLastReimbursementDate(), result.getSummary().getLastReimbursementDate());
+			}
+			PortfolioResult failure = LoanRecordFormat.readResult(results);
+			assertEquals(2000, failure.getLoanId());
+			assertEquals(ResultStatus.INVALID_SETTINGS, failure.getStatus());
+			assertNull(failure.getSummary());
+			assertFalse(results.hasRemaining());
+		} finally {
+			runner.shutdown();
+			Files.deleteIfExists(textFile);
+			Files.deleteIfExists(loanFile);
+			Files.deleteIfExists(resultFile);
+			Files.deleteIfExists(directory);
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.imolczek.school.banking.loan.calculator.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.imolczek.school.banking.loan.calculator.DayCountLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.LoanCalculator;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.batch.SensitivityCalculator;
+import com.imolczek.school.banking.loan.calculator.batch.SensitivityGrid;
+import com.imolczek.school.banking.loan.calculator.dateutils.DayCountConvention;
+import com.imolczek.school.banking.loan.calculator.dateutils.PaymentFrequency;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.model.LoanCalculationResult;
+
+import junit.framework.TestCase;
+
+public class SensitivityCalculatorTest extends TestCase {
+
+	private static final int[] RATE_SHIFTS = { -500, -50, -10, -1, 0, 1, 10, 50 };
+
+	private static final BigDecimal[] AMOUNT_SHIFTS = { new BigDecimal("-10000"), BigDecimal.ZERO, new BigDecimal("10000") };
+
+	private LoanParameters getBase() throws Exception {
+		return LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("150000"))
+				.monthlyInstallment(new BigDecimal("950"))
+				.numberOfInstallments(240)
+				.build();
+	}
+
+	private LoanParameters shift(LoanParameters base, int rateIndex, int amountIndex) throws Exception {
+		return base.toBuilder()
+				.annualRate(base.getAnnualRate().add(BigDecimal.valueOf(RATE_SHIFTS[rateIndex], 4)))
+				.loanAmount(base.getLoanAmount().add(AMOUNT_SHIFTS[amountIndex]))
+				.build();
+	}
+
+	public void testFixedInstallmentGrid() throws Exception {
+		LoanParameters base = getBase();
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		SensitivityCalculator sensitivity = new SensitivityCalculator(calculator, 4);
+		SensitivityGrid grid = sensitivity.calculateForFixedInstallment(base, RATE_SHIFTS, AMOUNT_SHIFTS);
+		sensitivity.shutdown();
+
+		LoanSummary baseSummary = calculator.calculateSummaryForFixedInstallment(base);
+		assertEquals(baseSummary.getApr(), grid.getBaseApr());
+		assertEquals(baseSummary.getTotalInterest(), grid.getBaseTotalInterest());
+		assertEquals(baseSummary.getNumberOfInstallments(), grid.getBaseNumberOfInstallments());
+		assertEquals(base.getMonthlyInstallment(), grid.getBaseInstallment());
+		assertEquals(RATE_SHIFTS.length, grid.getNumberOfRateShifts());
+		assertEquals(AMOUNT_SHIFTS.length, grid.getNumberOfAmountShifts());
+
+		// A negative annual rate is not a valid loan
+		for (int amountIndex = 0; amountIndex < AMOUNT_SHIFTS.length; amountIndex++) {
+			assertFalse(grid.isCalculated(0, amountIndex));
+			assertTrue(grid.getFailure(0, amountIndex) instanceof LoanSettingsException);
+			try {
+				grid.getApr(0, amountIndex);
+				fail("The scenario could not be calculated");
+			} catch (IllegalStateException e) {
+				assertSame(grid.getFailure(0, amountIndex), e.getCause());
+			}
+		}
+
+		for (int rateIndex = 1; rateIndex < RATE_SHIFTS.length; rateIndex++) {
+			for (int amountIndex = 0; amountIndex < AMOUNT_SHIFTS.length; amountIndex++) {
+				assertTrue(grid.isCalculated(rateIndex, amountIndex));
+				LoanSummary expected = calculator.calculateSummaryForFixedInstallment(shift(base, rateIndex, amountIndex));
+				assertEquals(expected.getApr(), grid.getApr(rateIndex, amountIndex));
+				assertEquals(expected.getTotalInterest(), grid.getTotalInterest(rateIndex, amountIndex));
+				assertEquals(expected.getNumberOfInstallments(), grid.getNumberOfInstallments(rateIndex, amountIndex));
+				assertEquals(expected.getApr().subtract(baseSummary.getApr()), grid.getAprDelta(rateIndex, amountIndex));
+				assertEquals(expected.getTotalInterest().subtract(baseSummary.getTotalInterest()), grid.getTotalInterestDelta(rateIndex, amountIndex));
+				// The daily rates of the standard calculator have 4 decimals, so the smallest shifts may not move them
+				if (rateIndex > 1) {
+					assertTrue(grid.getAprDelta(rateIndex, amountIndex).compareTo(grid.getAprDelta(rateIndex - 1, amountIndex)) >= 0);
+					assertTrue(grid.getTotalInterestDelta(rateIndex, amountIndex).compareTo(grid.getTotalInterestDelta(rateIndex - 1, amountIndex)) >= 0);
+				}
+			}
+		}
+		assertEquals(0, grid.getAprDelta(4, 1).signum());
+		assertEquals(0, grid.getTotalInterestDelta(4, 1).signum());
+
+		try {
+			grid.getApr(RATE_SHIFTS.length, 0);
+			fail("There is no such cell");
+		} catch (IndexOutOfBoundsException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+	public void testFixedDurationGrid() throws Exception {
+		LoanParameters base = getBase();
+		LoanCalculator[] calculators = { new StandardLoanCalculator(), new DayCountLoanCalculator(DayCountConvention.ACTUAL_360, PaymentFrequency.QUARTERLY) };
+		for (LoanCalculator calculator : calculators) {
+			SensitivityCalculator sensitivity = new SensitivityCalculator(calculator, 3);
+			SensitivityGrid grid = sensitivity.calculateForFixedDuration(base, RATE_SHIFTS, AMOUNT_SHIFTS);
+			sensitivity.shutdown();
+
+			LoanCalculationResult baseResult = calculator.calculateForFixedDuration(base);
+			assertEquals(baseResult.getApr(), grid.getBaseApr());
+			assertEquals(baseResult.getTotalInterest(), grid.getBaseTotalInterest());
+			assertEquals(baseResult.getAmortizationSchedule().getCashStreamList().get(1).getAmount(), grid.getBaseInstallment());
+			assertEquals(240, grid.getBaseNumberOfInstallments());
+
+			for (int rateIndex = 1; rateIndex < RATE_SHIFTS.length; rateIndex++) {
+				for (int amountIndex = 0; amountIndex < AMOUNT_SHIFTS.length; amountIndex++) {
+					LoanCalculationResult expected = calculator.calculateForFixedDuration(shift(base, rateIndex, amountIndex));
+					assertEquals(expected.getApr(), grid.getApr(rateIndex, amountIndex));
+					assertEquals(expected.getTotalInterest(), grid.getTotalInterest(rateIndex, amountIndex));
+					assertEquals(expected.getAmortizationSchedule().getCashStreamList().get(1).getAmount(), grid.getInstallment(rateIndex, amountIndex));
+					assertEquals(240, grid.getNumberOfInstallments(rateIndex, amountIndex));
+					if (calculator instanceof DayCountLoanCalculator && rateIndex > 1) {
+						assertTrue(grid.getTotalInterestDelta(rateIndex, amountIndex).compareTo(grid.getTotalInterestDelta(rateIndex - 1, amountIndex)) > 0);
+					}
+				}
+			}
+		}
+	}
+
+	public void testInvalidBase() throws Exception {
+		SensitivityCalculator sensitivity = new SensitivityCalculator(new StandardLoanCalculator(), 2);
+		try {
+			sensitivity.calculateForFixedInstallment(getBase().toBuilder().monthlyInstallment(null).build(), RATE_SHIFTS, AMOUNT_SHIFTS);
+			fail("The monthly installment is missing");
+		} catch (LoanSettingsException e) {
+			assertNotNull(e.getMessage());
+		} finally {
+			sensitivity.shutdown();
+		}
+	}
+
+}
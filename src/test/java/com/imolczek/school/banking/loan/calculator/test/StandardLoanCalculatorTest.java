@@ -1,9 +1,28 @@
 package com.imolczek.school.banking.loan.calculator.test;
 
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
+import com.imolczek.school.banking.loan.calculator.APRCalculator;
+import com.imolczek.school.banking.loan.calculator.AmortizationScheduleWriter;
+import com.imolczek.school.banking.loan.calculator.CalculationContext;
+import com.imolczek.school.banking.loan.calculator.CalculationEngine;
+import com.imolczek.school.banking.loan.calculator.LoanParameters;
+import com.imolczek.school.banking.loan.calculator.LoanSummary;
+import com.imolczek.school.banking.loan.calculator.ScheduleChange;
 import com.imolczek.school.banking.loan.calculator.StandardLoanCalculator;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanCalculationException;
+import com.imolczek.school.banking.loan.calculator.exceptions.LoanSettingsException;
+import com.imolczek.school.banking.loan.model.CashStream;
 import com.imolczek.school.banking.loan.model.LoanCalculationResult;
 
 import junit.framework.TestCase;
@@ -22,5 +41,486 @@ public class StandardLoanCalculatorTest extends TestCase {
 		assertEquals(21,  result.getAmortizationSchedule().getCashStreamList().size());
 		assertEquals(new BigDecimal(500).setScale(2, BigDecimal.ROUND_HALF_UP), result.getAmortizationSchedule().getCashStreamList().get(20).getAmount());
 	}
+
+	public void testFixedDuration() throws Exception {
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		calculator.setAnnualRate(BigDecimal.ZERO);
+		calculator.setLoanStartDate(LocalDate.of(2017, 1, 12));
+		calculator.setFirstReimbursementDate(LocalDate.of(2017, 2, 7));
+		calculator.setLoanAmount(new BigDecimal(10000));
+		calculator.setNumberOfInstallments(20);
+		LoanCalculationResult result = calculator.calculateForFixedDuration();
+		assertEquals(21, result.getAmortizationSchedule().getCashStreamList().size());
+		assertEquals(new BigDecimal(500).setScale(2, BigDecimal.ROUND_HALF_UP), result.getAmortizationSchedule().getCashStreamList().get(1).getAmount());
+
+		int[] durations = { 1, 12, 60, 240 };
+		for (int numberOfInstallments : durations) {
+			LoanParameters parameters = LoanParameters.builder()
+					.annualRate(new BigDecimal("0.0450"))
+					.loanStartDate(LocalDate.of(2019, 11, 20))
+					.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+					.loanAmount(new BigDecimal("150000"))
+					.balloon(new BigDecimal("20000"))
+					.numberOfInstallments(numberOfInstallments)
+					.build();
+			result = calculator.calculateForFixedDuration(parameters);
+			assertEquals(numberOfInstallments + 1, result.getAmortizationSchedule().getCashStreamList().size());
+
+			// One cent less does not reimburse the loan in time
+			BigDecimal installment = result.getAmortizationSchedule().getCashStreamList().get(1).getAmount();
+			LoanParameters lower = parameters.toBuilder().monthlyInstallment(installment.subtract(new BigDecimal("0.01"))).build();
+			assertEquals(numberOfInstallments + 2, calculator.calculateForFixedInstallment(lower).getAmortizationSchedule().getCashStreamList().size());
+		}
+	}
+
+	public void testSummary() throws Exception {
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		String[] rates = { "0", "0.0199", "0.0450", "0.0850" };
+		for (String rate : rates) {
+			LoanParameters parameters = LoanParameters.builder()
+					.annualRate(new BigDecimal(rate))
+					.loanStartDate(LocalDate.of(2019, 11, 20))
+					.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+					.loanAmount(new BigDecimal("150000"))
+					.balloon(new BigDecimal("15000"))
+					.monthlyInstallment(new BigDecimal("1234.56"))
+					.build();
+			LoanCalculationResult result = calculator.calculateForFixedInstallment(parameters);
+			LoanSummary summary = calculator.calculateSummaryForFixedInstallment(parameters);
+			List<CashStream> cashStreamList = result.getAmortizationSchedule().getCashStreamList();
+			CashStream lastCashStream = cashStreamList.get(cashStreamList.size() - 1);
+			assertEquals(result.getApr(), summary.getApr());
+			assertEquals(0, result.getTotalInterest().compareTo(summary.getTotalInterest()));
+			assertEquals(cashStreamList.size() - 1, summary.getNumberOfInstallments());
+			assertEquals(lastCashStream.getAmount(), summary.getLastInstallment());
+			assertEquals(lastCashStream.getDate(), summary.getLastReimbursementDate());
+		}
+	}
+
+	public void testLazySchedule() throws Exception {
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("150000"))
+				.monthlyInstallment(new BigDecimal("950"))
+				.build();
+		List<CashStream> expected = calculator.calculateForFixedInstallment(parameters).getAmortizationSchedule().getCashStreamList();
+
+		Iterator<CashStream> iterator = calculator.iterateAmortizationSchedule(parameters);
+		for (CashStream cashStream : expected) {
+			assertTrue(iterator.hasNext());
+			CashStream lazyCashStream = iterator.next();
+			assertEquals(cashStream.getDate(), lazyCashStream.getDate());
+			assertEquals(cashStream.getAmount(), lazyCashStream.getAmount());
+			assertEquals(cashStream.getInterest(), lazyCashStream.getInterest());
+			assertEquals(cashStream.getPrincipalRepaymentAmount(), lazyCashStream.getPrincipalRepaymentAmount());
+		}
+		assertFalse(iterator.hasNext());
+
+		List<CashStream> firstYear = calculator.streamAmortizationSchedule(parameters).limit(13).collect(Collectors.toList());
+		assertEquals(13, firstYear.size());
+		assertEquals(expected.get(12).getAmount(), firstYear.get(12).getAmount());
+
+		StringWriter writer = new StringWriter();
+		assertEquals(expected.size(), new AmortizationScheduleWriter().write(calculator.iterateAmortizationSchedule(parameters), writer));
+		assertEquals(expected.size() + 1, writer.toString().split("\n").length);
+	}
+
+	public void testConcurrentCalculations() throws Exception {
+		final StandardLoanCalculator calculator = new StandardLoanCalculator();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<LoanCalculationResult>> futures = new ArrayList<Future<LoanCalculationResult>>();
+		for (int i = 0; i < 40; i++) {
+			final LoanParameters parameters = LoanParameters.builder()
+					.annualRate(new BigDecimal("0.0365"))
+					.loanStartDate(LocalDate.of(2017, 1, 12))
+					.firstReimbursementDate(LocalDate.of(2017, 2, 7))
+					.loanAmount(new BigDecimal(10000 + 1000 * (i % 4)))
+					.monthlyInstallment(new BigDecimal(500))
+					.build();
+			futures.add(executor.submit(new Callable<LoanCalculationResult>() {
+				@Override
+				public LoanCalculationResult call() throws Exception {
+					return calculator.calculateForFixedInstallment(parameters);
+				}
+			}));
+		}
+		for (int i = 0; i < futures.size(); i++) {
+			LoanCalculationResult result = futures.get(i).get();
+			LoanCalculationResult expected = futures.get(i % 4).get();
+			assertEquals(expected.getApr(), result.getApr());
+			assertEquals(expected.getAmortizationSchedule().getCashStreamList().size(), result.getAmortizationSchedule().getCashStreamList().size());
+		}
+		executor.shutdown();
+	}
+
+	public void testRecalculation() throws Exception {
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("150000"))
+				.monthlyInstallment(new BigDecimal("950"))
+				.build();
+		LoanCalculationResult result = calculator.calculateForFixedInstallment(parameters);
+		List<CashStream> cashStreamList = result.getAmortizationSchedule().getCashStreamList();
+		int numberOfCashStreams = cashStreamList.size();
+
+		// A rate change from the first installment is a new loan
+		LoanCalculationResult changed = calculator.recalculateForFixedInstallment(parameters, result, ScheduleChange.rateChange(1, new BigDecimal("0.03")));
+		assertSameResult(calculator.calculateForFixedInstallment(parameters.toBuilder().annualRate(new BigDecimal("0.03")).build()), changed);
+
+		// Changing nothing changes nothing
+		changed = calculator.recalculateForFixedInstallment(parameters, result, ScheduleChange.rateChange(37, new BigDecimal("0.0450")));
+		assertSameResult(result, changed);
+
+		LoanCalculationResult prepaid = calculator.recalculateForFixedInstallment(parameters, result, ScheduleChange.prepayment(18, new BigDecimal("2000")));
+		List<CashStream> prepaidCashStreamList = prepaid.getAmortizationSchedule().getCashStreamList();
+		for (int i = 0; i < 18; i++) {
+			assertEquals(cashStreamList.get(i).getAmount(), prepaidCashStreamList.get(i).getAmount());
+		}
+		assertEquals(new BigDecimal("2950.00"), prepaidCashStreamList.get(18).getAmount());
+		assertTrue(prepaidCashStreamList.size() < numberOfCashStreams);
+		assertTrue(prepaid.getTotalInterest().compareTo(result.getTotalInterest()) < 0);
+		BigDecimal principal = BigDecimal.ZERO;
+		for (int i = 1; i < prepaidCashStreamList.size(); i++) {
+			principal = principal.add(prepaidCashStreamList.get(i).getPrincipalRepaymentAmount());
+		}
+		assertEquals(0, parameters.getLoanAmount().compareTo(principal));
+		// The original result is left as it was
+		assertEquals(numberOfCashStreams, cashStreamList.size());
+		assertEquals(new BigDecimal("950.00"), cashStreamList.get(18).getAmount());
+
+		// Both engines resume the same way
+		StandardLoanCalculator longCentsCalculator = new StandardLoanCalculator(CalculationEngine.LONG_CENTS);
+		assertSameResult(prepaid, longCentsCalculator.recalculateForFixedInstallment(parameters, result, ScheduleChange.prepayment(18, new BigDecimal("2000"))));
+
+		// The prepayment is limited to what remains to be reimbursed
+		prepaid = calculator.recalculateForFixedInstallment(parameters, result, ScheduleChange.prepayment(18, new BigDecimal("1000000")));
+		assertEquals(19, prepaid.getAmortizationSchedule().getCashStreamList().size());
+
+		try {
+			calculator.recalculateForFixedInstallment(parameters, result, ScheduleChange.prepayment(numberOfCashStreams, new BigDecimal("2000")));
+			fail("The loan has no such installment");
+		} catch (LoanSettingsException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+	public void testChainedRecalculation() throws Exception {
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("150000"))
+				.monthlyInstallment(new BigDecimal("950"))
+				.build();
+		for (CalculationEngine engine : CalculationEngine.values()) {
+			StandardLoanCalculator calculator = new StandardLoanCalculator(engine);
+			LoanCalculationResult result = calculator.calculateForFixedInstallment(parameters);
+			List<ScheduleChange> changes = new ArrayList<ScheduleChange>();
+			changes.add(ScheduleChange.rateChange(10, new BigDecimal("0.08")));
+			changes.add(ScheduleChange.prepayment(30, new BigDecimal("2000")));
+			LoanCalculationResult changed = calculator.recalculateForFixedInstallment(parameters, result, changes);
+			List<CashStream> changedCashStreamList = changed.getAmortizationSchedule().getCashStreamList();
+
+			// Up to the prepayment, the schedule is that of the rate change alone
+			List<CashStream> rateChangedCashStreamList = calculator.recalculateForFixedInstallment(parameters, result, changes.get(0)).getAmortizationSchedule().getCashStreamList();
+			for (int i = 0; i < 30; i++) {
+				assertEquals(rateChangedCashStreamList.get(i).getAmount(), changedCashStreamList.get(i).getAmount());
+				assertEquals(rateChangedCashStreamList.get(i).getInterest(), changedCashStreamList.get(i).getInterest());
+			}
+			assertEquals(new BigDecimal("2950.00"), changedCashStreamList.get(30).getAmount());
+
+			// After it, the schedule is that of a new loan of the balance left, at the new rate
+			BigDecimal remainingBalance = parameters.getLoanAmount();
+			for (int i = 1; i <= 30; i++) {
+				remainingBalance = remainingBalance.subtract(changedCashStreamList.get(i).getPrincipalRepaymentAmount());
+			}
+			LoanParameters rest = parameters.toBuilder()
+					.annualRate(new BigDecimal("0.08"))
+					.loanStartDate(changedCashStreamList.get(30).getDate())
+					.firstReimbursementDate(changedCashStreamList.get(31).getDate())
+					.loanAmount(remainingBalance)
+					.build();
+			List<CashStream> restCashStreamList = calculator.calculateForFixedInstallment(rest).getAmortizationSchedule().getCashStreamList();
+			assertEquals(changedCashStreamList.size(), 30 + restCashStreamList.size());
+			for (int i = 1; i < restCashStreamList.size(); i++) {
+				assertEquals(restCashStreamList.get(i).getDate(), changedCashStreamList.get(30 + i).getDate());
+				assertEquals(restCashStreamList.get(i).getAmount(), changedCashStreamList.get(30 + i).getAmount());
+				assertEquals(restCashStreamList.get(i).getInterest(), changedCashStreamList.get(30 + i).getInterest());
+			}
+		}
+
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		LoanCalculationResult result = calculator.calculateForFixedInstallment(parameters);
+		List<ScheduleChange> unordered = new ArrayList<ScheduleChange>();
+		unordered.add(ScheduleChange.prepayment(30, new BigDecimal("2000")));
+		unordered.add(ScheduleChange.rateChange(10, new BigDecimal("0.08")));
+		try {
+			calculator.recalculateForFixedInstallment(parameters, result, unordered);
+			fail("The changes are not ordered");
+		} catch (LoanSettingsException e) {
+			assertNotNull(e.getMessage());
+		}
+		List<ScheduleChange> tooLate = new ArrayList<ScheduleChange>();
+		tooLate.add(ScheduleChange.prepayment(30, new BigDecimal("1000000")));
+		tooLate.add(ScheduleChange.rateChange(40, new BigDecimal("0.08")));
+		try {
+			calculator.recalculateForFixedInstallment(parameters, result, tooLate);
+			fail("The loan is reimbursed by the first prepayment");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+	private void assertSameResult(LoanCalculationResult expected, LoanCalculationResult actual) {
+		List<CashStream> expectedCashStreamList = expected.getAmortizationSchedule().getCashStreamList();
+		List<CashStream> actualCashStreamList = actual.getAmortizationSchedule().getCashStreamList();
+		assertEquals(expectedCashStreamList.size(), actualCashStreamList.size());
+		for (int i = 0; i < expectedCashStreamList.size(); i++) {
+			assertEquals(expectedCashStreamList.get(i).getDate(), actualCashStreamList.get(i).getDate());
+			assertEquals(expectedCashStreamList.get(i).getAmount(), actualCashStreamList.get(i).getAmount());
+			assertEquals(expectedCashStreamList.get(i).getInterest(), actualCashStreamList.get(i).getInterest());
+			assertEquals(expectedCashStreamList.get(i).getPrincipalRepaymentAmount(), actualCashStreamList.get(i).getPrincipalRepaymentAmount());
+		}
+		assertEquals(expected.getApr(), actual.getApr());
+		assertEquals(expected.getTotalInterest(), actual.getTotalInterest());
+	}
+
+	public void testMaximumLoanAmount() throws Exception {
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		int[] durations = { 1, 12, 60, 240 };
+		for (int numberOfInstallments : durations) {
+			LoanParameters parameters = LoanParameters.builder()
+					.annualRate(new BigDecimal("0.0450"))
+					.loanStartDate(LocalDate.of(2019, 11, 20))
+					.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+					.monthlyInstallment(new BigDecimal("450"))
+					.numberOfInstallments(numberOfInstallments)
+					.buildWithoutLoanAmount();
+			assertNull(parameters.getLoanAmount());
+			BigDecimal loanAmount = calculator.calculateMaximumLoanAmount(parameters);
+
+			// The loan is reimbursed in time, one cent more is not
+			LoanParameters maximum = parameters.toBuilder().loanAmount(loanAmount).build();
+			assertTrue(calculator.calculateForFixedInstallment(maximum).getAmortizationSchedule().getCashStreamList().size() <= numberOfInstallments + 1);
+			LoanParameters higher = parameters.toBuilder().loanAmount(loanAmount.add(new BigDecimal("0.01"))).build();
+			assertEquals(numberOfInstallments + 2, calculator.calculateForFixedInstallment(higher).getAmortizationSchedule().getCashStreamList().size());
+		}
+
+		LoanParameters tooLow = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.balloon(new BigDecimal("150000"))
+				.monthlyInstallment(new BigDecimal("450"))
+				.numberOfInstallments(60)
+				.buildWithoutLoanAmount();
+		try {
+			calculator.calculateMaximumLoanAmount(tooLow);
+			fail("The installment does not even pay the interests of the balloon");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+
+		// A loan amount set anyway is ignored, and parameters without loan amount only serve this calculation
+		LoanParameters withoutLoanAmount = tooLow.toBuilder().balloon(BigDecimal.ZERO).buildWithoutLoanAmount();
+		BigDecimal loanAmount = calculator.calculateMaximumLoanAmount(withoutLoanAmount);
+		assertEquals(loanAmount, calculator.calculateMaximumLoanAmount(withoutLoanAmount.toBuilder().loanAmount(new BigDecimal("1000")).build()));
+		try {
+			calculator.calculateForFixedInstallment(withoutLoanAmount);
+			fail("The loan amount is missing");
+		} catch (LoanSettingsException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+	public void testAnnualRateForAPR() throws Exception {
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		LoanParameters parameters = LoanParameters.builder()
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("25000"))
+				.numberOfInstallments(60)
+				.buildWithoutAnnualRate();
+		assertNull(parameters.getAnnualRate());
+		LoanParameters withBalloon = parameters.toBuilder().balloon(new BigDecimal("7500")).buildWithoutAnnualRate();
+		String[] targets = { "0", "0.0371", "0.0490", "0.1500" };
+		for (LoanParameters loan : new LoanParameters[] { parameters, withBalloon }) {
+			for (String target : targets) {
+				BigDecimal targetApr = new BigDecimal(target);
+				BigDecimal annualRate = calculator.calculateAnnualRateForAPR(loan, targetApr);
+
+				// The target is reached, one unit of the last decimal less does not reach it
+				assertTrue(calculator.calculateForFixedDuration(loan.toBuilder().annualRate(annualRate).build()).getApr().compareTo(targetApr) >= 0);
+				if (annualRate.signum() > 0) {
+					BigDecimal lower = annualRate.subtract(new BigDecimal("0.0001"));
+					assertTrue(calculator.calculateForFixedDuration(loan.toBuilder().annualRate(lower).build()).getApr().compareTo(targetApr) < 0);
+				}
+			}
+		}
+		// The balloon bears interests like the rest of the loan, the annual rate does not depend on it
+		assertEquals(calculator.calculateAnnualRateForAPR(parameters, new BigDecimal("0.0490")), calculator.calculateAnnualRateForAPR(withBalloon, new BigDecimal("0.0490")));
+
+		try {
+			calculator.calculateAnnualRateForAPR(parameters, new BigDecimal("5"));
+			fail("An APR of 500% needs an annual rate above 100%");
+		} catch (LoanCalculationException e) {
+			assertNotNull(e.getMessage());
+		}
+		try {
+			calculator.calculateForFixedDuration(parameters);
+			fail("The annual rate is missing");
+		} catch (LoanSettingsException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+	public void testCalculationContext() throws Exception {
+		CalculationContext context = CalculationContext.current();
+		assertSame(context.getCashFlows(), context.getCashFlows());
+		long[] daysOfInterest = context.getDaysOfInterest(600);
+		assertTrue(daysOfInterest.length >= 600);
+		assertSame(daysOfInterest, context.getDaysOfInterest(12));
+
+		// A short loan calculated after a long one is not affected by the longer buffers
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("150000"))
+				.numberOfInstallments(12)
+				.build();
+		LoanCalculationResult expected = calculator.calculateForFixedDuration(parameters);
+		calculator.calculateForFixedDuration(parameters.toBuilder().numberOfInstallments(480).build());
+		assertSameResult(expected, calculator.calculateForFixedDuration(parameters));
+		BigDecimal apr = expected.getApr();
+		new APRCalculator().calculateAPR(expected);
+		assertEquals(apr, expected.getApr());
+
+		// No context is left bound to the thread once the calculations are done
+		assertNotSame(CalculationContext.current(), CalculationContext.current());
+	}
+
+	public void testTerminationGuards() throws Exception {
+		LoanParameters parameters = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.0450"))
+				.loanStartDate(LocalDate.of(2019, 11, 20))
+				.firstReimbursementDate(LocalDate.of(2019, 12, 5))
+				.loanAmount(new BigDecimal("150000"))
+				.monthlyInstallment(new BigDecimal("500"))
+				.build();
+		// About 456 of interests every month, the daily rate being rounded to 0.0001
+		String[] infeasibleInstallments = { "400", "457" };
+		for (CalculationEngine engine : CalculationEngine.values()) {
+			StandardLoanCalculator calculator = new StandardLoanCalculator(engine);
+			for (String installment : infeasibleInstallments) {
+				try {
+					calculator.calculateSummaryForFixedInstallment(parameters.toBuilder().monthlyInstallment(new BigDecimal(installment)).build());
+					fail("An installment of " + installment + " does not reimburse the loan within 1200 installments");
+				} catch (LoanCalculationException e) {
+					assertNotNull(e.getMessage());
+				}
+			}
+		}
+
+		StandardLoanCalculator calculator = new StandardLoanCalculator();
+		LoanParameters twentyInstallments = LoanParameters.builder()
+				.annualRate(BigDecimal.ZERO)
+				.loanStartDate(LocalDate.of(2017, 1, 12))
+				.firstReimbursementDate(LocalDate.of(2017, 2, 7))
+				.loanAmount(new BigDecimal(10000))
+				.monthlyInstallment(new BigDecimal(500))
+				.numberOfInstallments(20)
+				.build();
+		calculator.setMaximumNumberOfInstallments(20);
+		assertEquals(21, calculator.calculateForFixedInstallment(twentyInstallments).getAmortizationSchedule().getCashStreamList().size());
+		// Rejected up front as estimated, or aborted once the maximum is reached
+		int[] maximums = { 12, 19 };
+		for (int maximum : maximums) {
+			calculator.setMaximumNumberOfInstallments(maximum);
+			try {
+				calculator.calculateForFixedInstallment(twentyInstallments);
+				fail("The loan needs more than " + maximum + " installments");
+			} catch (LoanCalculationException e) {
+				assertNotNull(e.getMessage());
+			}
+			try {
+				calculator.calculateForFixedDuration(twentyInstallments);
+				fail("The number of installments exceeds the maximum of " + maximum);
+			} catch (LoanSettingsException e) {
+				assertNotNull(e.getMessage());
+			}
+		}
+	}
+
+	public void testParametersValidation() throws Exception {
+		LoanParameters after28th = LoanParameters.builder()
+				.annualRate(new BigDecimal("0.05"))
+				.loanStartDate(LocalDate.of(2017, 1, 12))
+				.firstReimbursementDate(LocalDate.of(2017, 1, 29))
+				.loanAmount(new BigDecimal(10000))
+				.monthlyInstallment(new BigDecimal(500))
+				.build();
+		try {
+			new StandardLoanCalculator().calculateForFixedInstallment(after28th);
+			fail("The first reimbursement cannot happen after the 28th");
+		} catch (LoanSettingsException e) {
+			assertNotNull(e.getMessage());
+		}
+
+		// Subclasses adding their own controls are still called
+		StandardLoanCalculator calculator = new StandardLoanCalculator() {
+			@Override
+			@SuppressWarnings("deprecation")
+			protected void validateInputData() throws LoanSettingsException {
+				super.validateInputData();
+				if(getLoanAmount().compareTo(new BigDecimal(5000)) > 0) {
+					throw new LoanSettingsException("The loan amount cannot exceed 5000");
+				}
+			}
+		};
+		calculator.setAnnualRate(BigDecimal.ZERO);
+		calculator.setLoanStartDate(LocalDate.of(2017, 1, 12));
+		calculator.setFirstReimbursementDate(LocalDate.of(2017, 2, 7));
+		calculator.setLoanAmount(new BigDecimal(10000));
+		calculator.setMonthlyInstallment(new BigDecimal(500));
+		try {
+			calculator.calculateForFixedInstallment();
+			fail("The loan amount exceeds the limit of the subclass");
+		} catch (LoanSettingsException e) {
+			assertEquals("The loan amount cannot exceed 5000", e.getMessage());
+		}
+		calculator.setFirstReimbursementDate(LocalDate.of(2017, 1, 29));
+		try {
+			calculator.calculateForFixedInstallment();
+			fail("The first reimbursement cannot happen after the 28th");
+		} catch (LoanSettingsException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+	public void testLegacyInterests() throws Exception {
+		// Subclasses overriding the interests without the daily rates are still called
+		StandardLoanCalculator calculator = new StandardLoanCalculator() {
+			@Override
+			@SuppressWarnings("deprecation")
+			protected BigDecimal getInterests(BigDecimal remainingBalance, long daysOfInterest365, long daysOfInterest366) {
+				return super.getInterests(remainingBalance, daysOfInterest365, daysOfInterest366).multiply(new BigDecimal(2));
+			}
+		};
+		calculator.setAnnualRate(new BigDecimal("0.0365"));
+		calculator.setLoanStartDate(LocalDate.of(2017, 1, 12));
+		calculator.setFirstReimbursementDate(LocalDate.of(2017, 2, 7));
+		calculator.setLoanAmount(new BigDecimal(10000));
+		calculator.setMonthlyInstallment(new BigDecimal(500));
+		BigDecimal interest = new StandardLoanCalculator().calculateForFixedInstallment(calculator.getParameters()).getAmortizationSchedule().getCashStreamList().get(1).getInterest();
+		assertEquals(interest.multiply(new BigDecimal(2)), calculator.calculateForFixedInstallment().getAmortizationSchedule().getCashStreamList().get(1).getInterest());
+	}
 		
 }